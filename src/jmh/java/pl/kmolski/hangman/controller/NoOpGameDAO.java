@@ -0,0 +1,59 @@
+package pl.kmolski.hangman.controller;
+
+import pl.kmolski.hangman.dao.HangmanGameDAO;
+import pl.kmolski.hangman.model.HangmanGame;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+
+/**
+ * A data-access object that does not persist anything: every update is flushed
+ * immediately, as with EVERY_GUESS durability, but transactions are never executed.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+class NoOpGameDAO extends HangmanGameDAO {
+    /**
+     * Flush the game immediately, without consulting the configured durability.
+     * @param model The updated game.
+     * @param guard The lock of the session, not used.
+     */
+    @Override
+    public void update(HangmanGame model, Lock guard) {
+        flush(model);
+    }
+
+    /**
+     * Flush the game immediately, without consulting the configured durability.
+     * @param model The game that has started a new round.
+     * @param guard The lock of the session, not used.
+     */
+    @Override
+    public void commitRound(HangmanGame model, Lock guard) {
+        flush(model);
+    }
+
+    /**
+     * Skip the transaction.
+     * @param action The action that would be executed.
+     * @param <T> The result type.
+     * @return Always null.
+     */
+    @Override
+    public <T> T computeInsideTransaction(Function<EntityManager, T> action) {
+        return null;
+    }
+
+    /**
+     * Inject this DAO into the `gameDAO` field of a servlet.
+     * @param servlet The servlet.
+     * @throws ReflectiveOperationException Thrown if the servlet has no `gameDAO` field.
+     */
+    void injectInto(Object servlet) throws ReflectiveOperationException {
+        var daoField = servlet.getClass().getDeclaredField("gameDAO");
+        daoField.setAccessible(true);
+        daoField.set(servlet, this);
+    }
+}
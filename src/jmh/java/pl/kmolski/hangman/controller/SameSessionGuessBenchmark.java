@@ -0,0 +1,166 @@
+package pl.kmolski.hangman.controller;
+
+import org.openjdk.jmh.annotations.*;
+import pl.kmolski.hangman.model.BenchmarkWords;
+import pl.kmolski.hangman.model.HangmanDictionary;
+import pl.kmolski.hangman.model.HangmanGame;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Benchmark of concurrent SubmitGuessServlet requests, serialized by GameLocks.
+ *
+ * Four threads submit guesses at the same time, either all to one shared session
+ * (`sameSession`, every request contends for the same lock, like a double submit or
+ * parallel tabs) or each to its own session (`ownSession`, the locks are uncontended).
+ * The difference is the cost of serializing the requests of one game.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class SameSessionGuessBenchmark {
+    /**
+     * Letters of the Polish alphabet, in the order they are guessed.
+     */
+    private static final String[] LETTERS = BenchmarkWords.POLISH.split("");
+
+    /**
+     * A session and the servlet that handles its requests.
+     */
+    public abstract static class Game {
+        /**
+         * The servlet under test.
+         */
+        SubmitGuessServlet servlet;
+        /**
+         * The session that holds the game.
+         */
+        HttpSession session;
+
+        /**
+         * Create the servlet, inject the DAO and create the session.
+         * @throws ReflectiveOperationException Thrown if the DAO cannot be injected.
+         */
+        void init() throws ReflectiveOperationException {
+            servlet = new SubmitGuessServlet();
+            new NoOpGameDAO().injectInto(servlet);
+            session = ServletMocks.session();
+        }
+    }
+
+    /**
+     * A game shared by all threads.
+     */
+    @State(Scope.Benchmark)
+    public static class SharedGame extends Game {
+        /**
+         * Initialize the shared game.
+         * @throws ReflectiveOperationException Thrown if the DAO cannot be injected.
+         */
+        @Setup
+        public void setUp() throws ReflectiveOperationException {
+            init();
+        }
+    }
+
+    /**
+     * A game that belongs to a single thread.
+     */
+    @State(Scope.Thread)
+    public static class OwnGame extends Game {
+        /**
+         * Initialize the game of the thread.
+         * @throws ReflectiveOperationException Thrown if the DAO cannot be injected.
+         */
+        @Setup
+        public void setUp() throws ReflectiveOperationException {
+            init();
+        }
+    }
+
+    /**
+     * The requests of a single thread.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+        /**
+         * Parameters of the next request.
+         */
+        final Map<String, String> parameters = new HashMap<>();
+        /**
+         * The response that is sent back by the servlet.
+         */
+        final HttpServletResponse response = ServletMocks.response();
+        /**
+         * Index of the next guessed letter.
+         */
+        int nextLetter;
+    }
+
+    /**
+     * Submit guesses from all threads to a single session.
+     * @param game The shared game.
+     * @param client The requests of the thread.
+     * @return The session of the game.
+     * @throws ServletException Never thrown, the mock request is handled synchronously.
+     * @throws IOException Never thrown, the response discards everything.
+     */
+    @Benchmark
+    public Object sameSession(SharedGame game, Client client) throws ServletException, IOException {
+        return submitGuess(game, client);
+    }
+
+    /**
+     * Submit guesses from every thread to its own session.
+     * @param game The game of the thread.
+     * @param client The requests of the thread.
+     * @return The session of the game.
+     * @throws ServletException Never thrown, the mock request is handled synchronously.
+     * @throws IOException Never thrown, the response discards everything.
+     */
+    @Benchmark
+    public Object ownSession(OwnGame game, Client client) throws ServletException, IOException {
+        return submitGuess(game, client);
+    }
+
+    /**
+     * Submit the next guess, starting a new game (under the session lock) if necessary.
+     * @param game The game.
+     * @param client The requests of the thread.
+     * @return The session of the game.
+     * @throws ServletException Never thrown, the mock request is handled synchronously.
+     * @throws IOException Never thrown, the response discards everything.
+     */
+    private static Object submitGuess(Game game, Client client) throws ServletException, IOException {
+        Lock lock = GameLocks.getInstance().lock(game.session);
+        try {
+            if (game.session.getAttribute("model") == null) {
+                var model = new HangmanGame();
+                model.addWords(HangmanDictionary.DEFAULT_WORDS);
+                model.nextRound();
+                game.session.setAttribute("model", model);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        client.parameters.put("guess", LETTERS[client.nextLetter++ % LETTERS.length]);
+        HttpServletRequest request = ServletMocks.request(game.session, client.parameters);
+        game.servlet.doPost(request, client.response);
+        return game.session;
+    }
+}
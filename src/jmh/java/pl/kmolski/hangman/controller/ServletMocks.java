@@ -0,0 +1,137 @@
+package pl.kmolski.hangman.controller;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Minimal servlet API stand-ins for benchmarking the controllers outside a container.
+ *
+ * Only the methods used by the servlets are implemented, every other method
+ * returns the default value of its return type.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.4
+ */
+public final class ServletMocks {
+    /**
+     * This is a utility class - it should not be instantiated.
+     */
+    private ServletMocks() {}
+
+    /**
+     * Create a session with a random ID that stores its attributes in a HashMap.
+     * @return The session.
+     */
+    public static HttpSession session() {
+        String id = UUID.randomUUID().toString();
+        Map<String, Object> attributes = new HashMap<>();
+        return proxy(HttpSession.class, (name, args) -> {
+            switch (name) {
+                case "getId": return id;
+                case "getAttribute": return attributes.get((String) args[0]);
+                case "setAttribute": return attributes.put((String) args[0], args[1]);
+                case "removeAttribute": return attributes.remove((String) args[0]);
+                default: return null;
+            }
+        });
+    }
+
+    /**
+     * Create a request that belongs to the session and has the given parameters.
+     * The request attributes are stored in a HashMap, and the request carries a fixed player ID.
+     * @param session The session of the request.
+     * @param parameters The request parameters.
+     * @return The request.
+     */
+    public static HttpServletRequest request(HttpSession session, Map<String, String> parameters) {
+        var cookies = new Cookie[]{new Cookie(PlayerId.COOKIE_NAME, "00000000-0000-4000-8000-000000000000")};
+        Map<String, Object> attributes = new HashMap<>();
+        return proxy(HttpServletRequest.class, (name, args) -> {
+            switch (name) {
+                case "getAttribute": return attributes.get((String) args[0]);
+                case "setAttribute": return attributes.put((String) args[0], args[1]);
+                case "removeAttribute": return attributes.remove((String) args[0]);
+                case "getAttributeNames": return Collections.enumeration(attributes.keySet());
+                case "getSession": return session;
+                case "getParameter": return parameters.get((String) args[0]);
+                case "getCookies": return cookies;
+                case "getContextPath": return "";
+                default: return null;
+            }
+        });
+    }
+
+    /**
+     * Create a response that discards everything that is sent to it.
+     * @return The response.
+     */
+    public static HttpServletResponse response() {
+        var writer = new PrintWriter(Writer.nullWriter());
+        return proxy(HttpServletResponse.class, (name, args) -> {
+            switch (name) {
+                case "getWriter": return writer;
+                case "encodeURL": return args[0];
+                default: return null;
+            }
+        });
+    }
+
+    /**
+     * Create a servlet context without any attributes.
+     * @return The servlet context.
+     */
+    public static ServletContext servletContext() {
+        return proxy(ServletContext.class, (name, args) -> null);
+    }
+
+    /**
+     * Create a servlet configuration that belongs to a new servlet context.
+     * @return The servlet configuration.
+     */
+    public static ServletConfig servletConfig() {
+        var context = servletContext();
+        return proxy(ServletConfig.class, (name, args) -> name.equals("getServletContext") ? context : null);
+    }
+
+    /**
+     * Handler for the methods of a proxied servlet API interface.
+     */
+    @FunctionalInterface
+    private interface Handler {
+        /**
+         * Handle a method call.
+         * @param name The method name.
+         * @param args The method arguments.
+         * @return The result of the call.
+         */
+        Object invoke(String name, Object[] args);
+    }
+
+    /**
+     * Create a proxy instance of the interface.
+     * @param type The interface class.
+     * @param handler The method handler.
+     * @param <T> The interface type.
+     * @return The proxy instance.
+     */
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Object result = handler.invoke(method.getName(), args);
+            if (result == null && method.getReturnType() == boolean.class) { return false; }
+            if (result == null && method.getReturnType() == int.class) { return 0; }
+            if (result == null && method.getReturnType() == long.class) { return 0L; }
+            return result;
+        }));
+    }
+}
@@ -0,0 +1,51 @@
+package pl.kmolski.hangman.controller;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold-start benchmark: the time to the first served "/Home" page.
+ *
+ * Every fork runs a fresh JVM and measures a single operation: initializing HomeServlet,
+ * starting a new game (the first request) and rendering the Home page (the second request).
+ * This includes loading the application classes and bootstrapping Thymeleaf, but not the
+ * container or the database, the DAO does not persist anything.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+    /**
+     * Initialize HomeServlet and request "/Home" until the page is rendered.
+     * @return The session with the new game.
+     * @throws ServletException Thrown if the servlet cannot be initialized.
+     * @throws IOException Never thrown, the response discards everything.
+     * @throws ReflectiveOperationException Thrown if the DAO cannot be injected.
+     */
+    @Benchmark
+    public Object firstHome() throws ServletException, IOException, ReflectiveOperationException {
+        var servlet = new HomeServlet();
+        servlet.init(ServletMocks.servletConfig());
+        new NoOpGameDAO().injectInto(servlet);
+
+        HttpSession session = ServletMocks.session();
+        HttpServletRequest request = ServletMocks.request(session, Map.of());
+        HttpServletResponse response = ServletMocks.response();
+        servlet.doGet(request, response);
+        servlet.doGet(request, response);
+        return session;
+    }
+}
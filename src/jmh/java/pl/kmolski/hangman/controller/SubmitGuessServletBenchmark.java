@@ -0,0 +1,100 @@
+package pl.kmolski.hangman.controller;
+
+import org.openjdk.jmh.annotations.*;
+import pl.kmolski.hangman.model.BenchmarkWords;
+import pl.kmolski.hangman.model.HangmanDictionary;
+import pl.kmolski.hangman.model.HangmanGame;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end benchmark of a SubmitGuessServlet request cycle.
+ *
+ * Every operation submits one guess through the servlet against mock requests
+ * and responses. The DAO does not touch a database, so the benchmark measures the
+ * controller and model overhead of a guess. A new game is started whenever the
+ * previous one is over.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.3
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubmitGuessServletBenchmark {
+    /**
+     * Letters of the Polish alphabet, in the order they are guessed.
+     */
+    private static final String[] LETTERS = BenchmarkWords.POLISH.split("");
+
+    /**
+     * The servlet under test.
+     */
+    private SubmitGuessServlet servlet;
+    /**
+     * The session that holds the game.
+     */
+    private HttpSession session;
+    /**
+     * Parameters of the next request.
+     */
+    private Map<String, String> parameters;
+    /**
+     * The request that is sent to the servlet.
+     */
+    private HttpServletRequest request;
+    /**
+     * The response that is sent back by the servlet.
+     */
+    private HttpServletResponse response;
+    /**
+     * Index of the next guessed letter.
+     */
+    private int nextLetter;
+
+    /**
+     * Create the servlet and inject the DAO.
+     * @throws ReflectiveOperationException Thrown if the DAO cannot be injected.
+     */
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        servlet = new SubmitGuessServlet();
+        new NoOpGameDAO().injectInto(servlet);
+
+        session = ServletMocks.session();
+        parameters = new HashMap<>();
+        request = ServletMocks.request(session, parameters);
+        response = ServletMocks.response();
+    }
+
+    /**
+     * Submit the next guess, starting a new game if necessary.
+     * @return The game after the guess.
+     * @throws ServletException Never thrown, the mock request is handled synchronously.
+     * @throws IOException Never thrown, the response discards everything.
+     */
+    @Benchmark
+    public Object submitGuess() throws ServletException, IOException {
+        if (session.getAttribute("model") == null) {
+            var model = new HangmanGame();
+            model.addWords(HangmanDictionary.DEFAULT_WORDS);
+            model.nextRound();
+            session.setAttribute("model", model);
+            nextLetter = 0;
+        }
+
+        parameters.put("guess", LETTERS[nextLetter++ % LETTERS.length]);
+        servlet.doPost(request, response);
+        return session.getAttribute("model");
+    }
+}
@@ -0,0 +1,103 @@
+package pl.kmolski.hangman.dao;
+
+import org.openjdk.jmh.annotations.*;
+import pl.kmolski.hangman.model.HangmanDictionary;
+import pl.kmolski.hangman.model.HangmanGame;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the commit throughput of writing stored games, one game per transaction
+ * (`flushEach`) and all games in a single transaction (`flushAll`), against the embedded
+ * H2 database of the "hangman-test" persistence unit.
+ *
+ * Every write is the version-checked UPDATE of a stored game, so the difference is the
+ * cost of a commit per game. The results are reported per written game.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommitThroughputBenchmark {
+    /**
+     * The number of games written by every invocation.
+     */
+    private static final int GAMES = 500;
+
+    /**
+     * The factory of the persistence unit.
+     */
+    private EntityManagerFactory emf;
+    /**
+     * The entity manager of the DAO.
+     */
+    private EntityManager em;
+    /**
+     * The DAO that writes the games.
+     */
+    private HangmanGameDAO dao;
+    /**
+     * The stored games.
+     */
+    private List<HangmanGame> models;
+
+    /**
+     * Create a new database and save the games.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        emf = Persistence.createEntityManagerFactory("hangman-test", Map.of(
+                "javax.persistence.jdbc.url", "jdbc:h2:mem:commit-benchmark;DB_CLOSE_DELAY=-1"));
+        em = emf.createEntityManager();
+        dao = new LocalTransactionGameDAO(em);
+
+        models = new ArrayList<>(GAMES);
+        for (int i = 0; i < GAMES; ++i) {
+            var model = new HangmanGame();
+            model.addWords(HangmanDictionary.DEFAULT_WORDS);
+            model.nextRound();
+            models.add(model);
+        }
+        dao.saveAll(models);
+    }
+
+    /**
+     * Drop the database.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        emf.close();
+    }
+
+    /**
+     * Write every game in its own transaction.
+     */
+    @Benchmark
+    @OperationsPerInvocation(GAMES)
+    public void flushEach() {
+        for (HangmanGame model : models) {
+            dao.flush(model);
+        }
+    }
+
+    /**
+     * Write all games in a single transaction.
+     */
+    @Benchmark
+    @OperationsPerInvocation(GAMES)
+    public void flushAll() {
+        dao.flushAll(models);
+    }
+}
@@ -0,0 +1,111 @@
+package pl.kmolski.hangman.dao;
+
+import org.openjdk.jmh.annotations.*;
+import pl.kmolski.hangman.model.BenchmarkWords;
+import pl.kmolski.hangman.model.HangmanGame;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the insert throughput of saving games with large dictionaries,
+ * against the embedded H2 database of the "hangman-test" persistence unit.
+ *
+ * Every game gets a new corpus, so all of its words are inserted into `corpus_words`.
+ * A `batchSize` of 1 disables JDBC batching, which is the behaviour without
+ * `hibernate.jdbc.batch_size`.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaveGameBenchmark {
+    /**
+     * The value of `hibernate.jdbc.batch_size`.
+     */
+    @Param({"1", "50", "500"})
+    public int batchSize;
+    /**
+     * The number of words in the dictionary of each game.
+     */
+    @Param({"10000"})
+    public int dictionarySize;
+
+    /**
+     * The factory of the persistence unit, configured with the batch size.
+     */
+    private EntityManagerFactory emf;
+    /**
+     * The entity manager of the DAO.
+     */
+    private EntityManager em;
+    /**
+     * The DAO that saves the games.
+     */
+    private HangmanGameDAO dao;
+    /**
+     * The generated words, the first one is replaced to make every corpus unique.
+     */
+    private List<String> words;
+    /**
+     * The number of games that have been created.
+     */
+    private int games;
+    /**
+     * The game that is saved by the next invocation.
+     */
+    private HangmanGame model;
+
+    /**
+     * Create a new database and generate the words.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        emf = Persistence.createEntityManagerFactory("hangman-test", Map.of(
+                "javax.persistence.jdbc.url", "jdbc:h2:mem:save-benchmark-" + batchSize + ";DB_CLOSE_DELAY=-1",
+                "hibernate.jdbc.batch_size", String.valueOf(batchSize)));
+        em = emf.createEntityManager();
+        dao = new LocalTransactionGameDAO(em);
+        words = new ArrayList<>(BenchmarkWords.dictionary(dictionarySize));
+    }
+
+    /**
+     * Drop the database.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        emf.close();
+    }
+
+    /**
+     * Create a game with a new corpus of words.
+     */
+    @Setup(Level.Invocation)
+    public void newGame() {
+        words.set(0, "game" + games++);
+        model = new HangmanGame();
+        model.addWords(words);
+        model.nextRound();
+    }
+
+    /**
+     * Save the game together with its dictionary and corpus.
+     * @return The identifier of the saved game.
+     */
+    @Benchmark
+    public Long saveGame() {
+        dao.save(model);
+        return model.getId();
+    }
+}
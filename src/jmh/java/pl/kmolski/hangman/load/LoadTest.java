@@ -0,0 +1,231 @@
+package pl.kmolski.hangman.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Closed-loop load test of a deployed application.
+ *
+ * Every simulated player starts a game with "GET /Home" and keeps sending "POST /SubmitGuess"
+ * requests, one at a time, until the test ends. A player that has finished its game starts
+ * a new one. The test reports the throughput, the latency percentiles and the number of
+ * requests that were rejected with HTTP 503. Compare the results of a deployment that runs
+ * with `-Dhangman.async=OFF` to one that runs with the default RequestExecutor, e.g.:
+ *
+ *   java -cp target/test-classes pl.kmolski.hangman.load.LoadTest http://localhost:8080/hangman 10000 60
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+public class LoadTest {
+    /**
+     * The letters that are guessed by the players.
+     */
+    private static final String ALPHABET = "aąbcćdeęfghijklłmnńoóprsśtuwyzźż";
+
+    /**
+     * The client shared by all players. Redirects are not followed, their targets are static pages.
+     */
+    private final HttpClient client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    /**
+     * The base URL of the application, without a trailing slash.
+     */
+    private final String baseUrl;
+    /**
+     * The time when the players stop sending requests, from `System.nanoTime()`.
+     */
+    private final long deadline;
+    /**
+     * The number of requests that were rejected with HTTP 503.
+     */
+    private final LongAdder rejected = new LongAdder();
+    /**
+     * The number of requests that failed with another status or an exception.
+     */
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * Create a load test.
+     * @param baseUrl The base URL of the application.
+     * @param duration The duration of the test.
+     */
+    private LoadTest(String baseUrl, Duration duration) {
+        this.baseUrl = baseUrl.replaceAll("/+$", "");
+        this.deadline = System.nanoTime() + duration.toNanos();
+    }
+
+    /**
+     * A simulated player. Its requests are sent one at a time, so its state is never accessed concurrently.
+     */
+    private class Player {
+        /**
+         * The cookies of the player (the session and the player ID).
+         */
+        private final Map<String, String> cookies = new HashMap<>();
+        /**
+         * The latencies of the successful requests, in nanoseconds.
+         */
+        private long[] latencies = new long[64];
+        /**
+         * The number of recorded latencies.
+         */
+        private int count;
+        /**
+         * The letters that have not been guessed yet in the current game.
+         */
+        private final List<Character> letters = new ArrayList<>();
+        /**
+         * Completed when the player stops sending requests.
+         */
+        private final CompletableFuture<Player> done = new CompletableFuture<>();
+
+        /**
+         * Start a new game.
+         */
+        private void startGame() {
+            letters.clear();
+            ALPHABET.chars().forEach(c -> letters.add((char) c));
+            Collections.shuffle(letters, ThreadLocalRandom.current());
+            send(HttpRequest.newBuilder(URI.create(baseUrl + "/Home")).GET());
+        }
+
+        /**
+         * Guess the next letter, or start a new game if all letters have been guessed.
+         */
+        private void guess() {
+            if (letters.isEmpty()) {
+                startGame();
+                return;
+            }
+
+            String body = "guess=" + letters.remove(letters.size() - 1);
+            send(HttpRequest.newBuilder(URI.create(baseUrl + "/SubmitGuess"))
+                    .header("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8")
+                    .POST(HttpRequest.BodyPublishers.ofString(body)));
+        }
+
+        /**
+         * Send the request with the player's cookies and schedule the next one.
+         * @param builder The request builder.
+         */
+        private void send(HttpRequest.Builder builder) {
+            if (System.nanoTime() >= deadline) {
+                done.complete(this);
+                return;
+            }
+
+            if (!cookies.isEmpty()) {
+                builder.header("Cookie", cookies.entrySet().stream()
+                        .map(cookie -> cookie.getKey() + "=" + cookie.getValue())
+                        .collect(Collectors.joining("; ")));
+            }
+
+            long start = System.nanoTime();
+            client.sendAsync(builder.timeout(Duration.ofSeconds(60)).build(), HttpResponse.BodyHandlers.discarding())
+                  .whenComplete((response, error) -> {
+                      if (error != null) {
+                          failed.increment();
+                          guess();
+                      } else {
+                          onResponse(response, System.nanoTime() - start);
+                      }
+                  });
+        }
+
+        /**
+         * Record the response and send the next request.
+         * @param response The response.
+         * @param latency The latency of the request, in nanoseconds.
+         */
+        private void onResponse(HttpResponse<Void> response, long latency) {
+            for (String header : response.headers().allValues("Set-Cookie")) {
+                String[] cookie = header.split(";", 2)[0].split("=", 2);
+                cookies.put(cookie[0].strip(), cookie.length > 1 ? cookie[1].strip() : "");
+            }
+
+            int status = response.statusCode();
+            if (status == 503) {
+                rejected.increment();
+            } else if (status >= 400) {
+                failed.increment();
+            } else {
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, 2 * count);
+                }
+                latencies[count++] = latency;
+            }
+
+            // The game is over, or there is no game in the session.
+            String location = response.headers().firstValue("Location").orElse("");
+            if (location.contains("game_won") || location.contains("game_lost") || location.endsWith("Home")) {
+                startGame();
+            } else {
+                guess();
+            }
+        }
+    }
+
+    /**
+     * Run the players until the deadline and print the results.
+     * @param playerCount The number of simulated players.
+     * @param duration The duration of the test.
+     */
+    private void run(int playerCount, Duration duration) {
+        var players = new ArrayList<Player>(playerCount);
+        for (int i = 0; i < playerCount; ++i) {
+            var player = new Player();
+            players.add(player);
+            player.startGame();
+        }
+        CompletableFuture.allOf(players.stream().map(player -> player.done).toArray(CompletableFuture[]::new)).join();
+
+        long[] latencies = players.stream()
+                .flatMapToLong(player -> Arrays.stream(player.latencies, 0, player.count))
+                .sorted()
+                .toArray();
+        System.out.printf("players: %d, duration: %ds%n", playerCount, duration.toSeconds());
+        System.out.printf("requests: %d ok, %d rejected (503), %d failed%n", latencies.length, rejected.sum(), failed.sum());
+        System.out.printf("throughput: %.1f req/s%n", latencies.length / (double) duration.toSeconds());
+        if (latencies.length > 0) {
+            System.out.printf("latency [ms]: p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n",
+                              percentile(latencies, 0.5), percentile(latencies, 0.9), percentile(latencies, 0.99),
+                              percentile(latencies, 0.999), latencies[latencies.length - 1] / 1e6);
+        }
+    }
+
+    /**
+     * Get a percentile of the sorted latencies.
+     * @param sorted The sorted latencies, in nanoseconds.
+     * @param p The percentile, between 0 and 1.
+     * @return The latency, in milliseconds.
+     */
+    private static double percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+
+    /**
+     * Run the load test from the command line.
+     * @param args The base URL, the number of players (1000 by default) and the duration in seconds (30 by default).
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("usage: LoadTest <base URL> [players] [duration in seconds]");
+            System.exit(1);
+        }
+
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        var duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+        new LoadTest(args[0], duration).run(players, duration);
+    }
+}
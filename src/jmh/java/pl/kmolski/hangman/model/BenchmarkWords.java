@@ -0,0 +1,69 @@
+package pl.kmolski.hangman.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Word generators shared by the model benchmarks.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+public final class BenchmarkWords {
+    /**
+     * Letters of the English alphabet.
+     */
+    public static final String LATIN = "abcdefghijklmnopqrstuvwxyz";
+    /**
+     * Letters of the Polish alphabet, including the diacritics used in `DEFAULT_WORDS`.
+     */
+    public static final String POLISH = "aąbcćdeęfghijklłmnńoóprsśtuwyzźż";
+
+    /**
+     * This is a utility class - it should not be instantiated.
+     */
+    private BenchmarkWords() {}
+
+    /**
+     * Get the letters of the alphabet with the specified name.
+     * @param alphabet Either `latin` or `polish`.
+     * @return The letters of the alphabet.
+     */
+    public static String alphabet(String alphabet) {
+        return "polish".equals(alphabet) ? POLISH : LATIN;
+    }
+
+    /**
+     * Generate a random word.
+     * @param random The random number generator.
+     * @param letters The letters the word is made of.
+     * @param length The length of the word.
+     * @return The generated word.
+     */
+    public static String word(Random random, String letters, int length) {
+        var builder = new StringBuilder(length);
+        for (int i = 0; i < length; ++i) {
+            builder.append(letters.charAt(random.nextInt(letters.length())));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Generate a list of random words, the first words are taken from `DEFAULT_WORDS`.
+     * @param count The number of words.
+     * @return The generated words.
+     */
+    public static List<String> dictionary(int count) {
+        var random = new Random(count);
+        List<String> words = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            if (i < HangmanDictionary.DEFAULT_WORDS.size()) {
+                words.add(HangmanDictionary.DEFAULT_WORDS.get(i));
+            } else {
+                words.add(word(random, POLISH, 4 + random.nextInt(8)));
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,76 @@
+package pl.kmolski.hangman.model;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Microbenchmark for the per-guess cost of hangman rounds.
+ *
+ * Every operation plays a whole round by guessing the Polish alphabet letter by letter,
+ * checking the round-over condition and masking the word after each guess. The `regex`
+ * benchmark replays the previous implementation, which built a character class from
+ * the guessed letters, the `guessSet` benchmark uses HangmanRound and GuessSet.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(GuessBenchmark.ALPHABET_LENGTH)
+public class GuessBenchmark {
+    /**
+     * The letters that are guessed in every round.
+     */
+    private static final String[] ALPHABET = "aąbcćdeęfghijklłmnńoóprsśtuwyzźż".split("");
+    /**
+     * The number of guesses in every round.
+     */
+    static final int ALPHABET_LENGTH = 32;
+
+    /**
+     * The word that is being guessed.
+     */
+    @Param({"koło", "słońce", "konstantynopolitańczykowianeczka"})
+    public String word;
+
+    /**
+     * Play a round using the regex-based masking from before HangmanRound was introduced.
+     * @param blackhole Consumer for the intermediate results.
+     */
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        String guessedLetters = " ";
+        for (String guess : ALPHABET) {
+            guessedLetters += guess;
+            blackhole.consume(word.contains(guess));
+            blackhole.consume(word.replaceAll("([" + guessedLetters + "])", "").isEmpty());
+            blackhole.consume(word.replaceAll("([^" + guessedLetters + "])", "_")
+                                  .chars().mapToObj(Character::toString)
+                                  .collect(Collectors.joining(" ")));
+        }
+    }
+
+    /**
+     * Play a round using HangmanRound and its GuessSet.
+     * @param blackhole Consumer for the intermediate results.
+     * @throws InvalidGuessException Never thrown, the alphabet contains only valid letters.
+     */
+    @Benchmark
+    public void guessSet(Blackhole blackhole) throws InvalidGuessException {
+        var round = new HangmanRound(word, " ");
+        for (String guess : ALPHABET) {
+            String letter = GuessSet.normalize(guess);
+            blackhole.consume(round.contains(letter));
+            blackhole.consume(round.tryLetter(letter));
+            blackhole.consume(round.isOver());
+            blackhole.consume(round.getMaskedWord());
+        }
+    }
+}
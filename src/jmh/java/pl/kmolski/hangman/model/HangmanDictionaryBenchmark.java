@@ -0,0 +1,91 @@
+package pl.kmolski.hangman.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for drawing words from a HangmanDictionary, with the default
+ * thread-local random source or a seeded draw order.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HangmanDictionaryBenchmark {
+    /**
+     * The number of words in the dictionary.
+     */
+    @Param({"6", "1000", "100000", "1000000"})
+    public int dictionarySize;
+    /**
+     * Whether the draw order is `random` (thread-local) or `seeded`.
+     */
+    @Param({"random", "seeded"})
+    public String draws;
+
+    /**
+     * The words that are added to the dictionary.
+     */
+    private List<String> words;
+    /**
+     * The dictionary that words are drawn from.
+     */
+    private HangmanDictionary dictionary;
+
+    /**
+     * Generate the words.
+     */
+    @Setup(Level.Trial)
+    public void generateWords() {
+        words = BenchmarkWords.dictionary(dictionarySize);
+    }
+
+    /**
+     * Fill a new dictionary with the generated words.
+     */
+    @Setup(Level.Iteration)
+    public void fillDictionary() {
+        dictionary = new HangmanDictionary();
+        if ("seeded".equals(draws)) {
+            dictionary.setSeed(dictionarySize);
+        }
+        dictionary.addWords(words);
+    }
+
+    /**
+     * Draw a single word, refilling the dictionary when it is drained.
+     * @return The drawn word.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public String takeWord() {
+        if (dictionary.isEmpty()) {
+            fillDictionary();
+        }
+        return dictionary.takeWord();
+    }
+
+    /**
+     * Drain the whole dictionary.
+     * @return The number of drawn words.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1, batchSize = 1)
+    @Measurement(iterations = 3, batchSize = 1)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int drain() {
+        fillDictionary();
+        int count = 0;
+        while (dictionary.takeWord() != null) {
+            ++count;
+        }
+        return count;
+    }
+}
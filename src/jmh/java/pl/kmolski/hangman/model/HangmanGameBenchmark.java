@@ -0,0 +1,128 @@
+package pl.kmolski.hangman.model;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the HangmanGame methods that are called on every request.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HangmanGameBenchmark {
+    /**
+     * The length of the word that is being guessed.
+     */
+    @Param({"4", "16", "64"})
+    public int wordLength;
+
+    /**
+     * The alphabet of the word and the guesses: `latin` or `polish`.
+     */
+    @Param({"latin", "polish"})
+    public String alphabet;
+
+    /**
+     * The word that is being guessed.
+     */
+    private String word;
+    /**
+     * Letters of the alphabet, in the order they are guessed.
+     */
+    private String[] letters;
+    /**
+     * A game in the middle of a round, with half of the alphabet guessed.
+     */
+    private HangmanGame game;
+
+    /**
+     * Generate the word and prepare the game.
+     * @throws InvalidGuessException Never thrown, the alphabet contains only valid letters.
+     */
+    @Setup
+    public void setUp() throws InvalidGuessException {
+        String alphabetLetters = BenchmarkWords.alphabet(alphabet);
+        word = BenchmarkWords.word(new Random(wordLength), alphabetLetters, wordLength);
+        letters = alphabetLetters.split("");
+
+        game = new HangmanGame(new HangmanDictionary());
+        game.addWords(List.of(word));
+        game.nextRound();
+        for (int i = 0; i < letters.length / 2; ++i) {
+            game.tryLetter(letters[i]);
+        }
+    }
+
+    /**
+     * Start a round and guess every letter of the alphabet.
+     * @param blackhole Consumer for the results of `tryLetter()`.
+     * @return The finished game.
+     * @throws InvalidGuessException Never thrown, the alphabet contains only valid letters.
+     */
+    @Benchmark
+    public HangmanGame tryLetter(Blackhole blackhole) throws InvalidGuessException {
+        var model = new HangmanGame(new HangmanDictionary());
+        model.addWords(List.of(word));
+        model.nextRound();
+        for (String letter : letters) {
+            blackhole.consume(model.tryLetter(letter));
+        }
+        return model;
+    }
+
+    /**
+     * Mask the current word.
+     * @return The masked word.
+     */
+    @Benchmark
+    public String getMaskedWord() {
+        return game.getMaskedWord();
+    }
+
+    /**
+     * List the guessed letters.
+     * @return The guessed letters.
+     */
+    @Benchmark
+    public String getGuessedLetters() {
+        return game.getGuessedLetters();
+    }
+
+    /**
+     * Read the view fields of the game three times, as the Home page after a guess,
+     * a refresh of the Home page and the Stats page do. Nothing changes between the
+     * reads, so only the first read may build the values.
+     * @param blackhole Consumer for the view fields.
+     */
+    @Benchmark
+    public void renderViews(Blackhole blackhole) {
+        for (int i = 0; i < 3; ++i) {
+            blackhole.consume(game.getMaskedWord());
+            blackhole.consume(game.getGuessedLetters());
+            blackhole.consume(game.getMisses());
+        }
+    }
+
+    /**
+     * Guess a letter that has already been guessed and read the view fields, so the
+     * values stay memoized. Mixing in a new guess would rebuild them.
+     * @param blackhole Consumer for the view fields.
+     * @throws InvalidGuessException Never thrown, the alphabet contains only valid letters.
+     */
+    @Benchmark
+    public void repeatedGuessAndRender(Blackhole blackhole) throws InvalidGuessException {
+        blackhole.consume(game.tryLetter(letters[0]));
+        blackhole.consume(game.getMaskedWord());
+        blackhole.consume(game.getGuessedLetters());
+    }
+}
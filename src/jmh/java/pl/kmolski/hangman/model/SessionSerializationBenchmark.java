@@ -0,0 +1,129 @@
+package pl.kmolski.hangman.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the session form of a HangmanGame: serializing and deserializing
+ * a game in progress, like session passivation or replication does.
+ *
+ * With the `stored` form the game's corpus has been saved, so only a reference to it
+ * is written. With the `inline` form the corpus has not been saved and its words are
+ * written with the game. The size of the serialized game is reported by the `serializedSize`
+ * benchmark, as the `bytes` secondary result.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionSerializationBenchmark {
+    /**
+     * The number of rounds that have been played before the game is serialized.
+     */
+    private static final int ROUNDS_PLAYED = 50;
+
+    /**
+     * The number of words in the dictionary.
+     */
+    @Param({"10", "10000", "1000000"})
+    public int dictionarySize;
+    /**
+     * Whether the corpus has been saved (`stored`) or not (`inline`).
+     */
+    @Param({"stored", "inline"})
+    public String form;
+
+    /**
+     * The game that is serialized.
+     */
+    private HangmanGame game;
+    /**
+     * The serialized game.
+     */
+    private byte[] serialized;
+
+    /**
+     * Counter of the size of the serialized game, reported as a secondary result.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SerializedSize {
+        /**
+         * The size of the serialized game, in bytes.
+         */
+        public long bytes;
+    }
+
+    /**
+     * Create a game in progress and serialize it once.
+     * @throws Exception Thrown if the game cannot be played or serialized.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        var corpus = new WordCorpus(BenchmarkWords.dictionary(dictionarySize));
+        if ("stored".equals(form)) {
+            // The corpus is registered like after it has been persisted, without a database.
+            corpus.markStored(1L);
+            corpus.register();
+        }
+
+        game = new HangmanGame();
+        game.getDictionary().addCorpus(corpus);
+        for (int i = 0; i < Math.min(ROUNDS_PLAYED, dictionarySize); ++i) {
+            game.nextRound();
+        }
+        game.tryLetter("e");
+
+        serialized = serialize();
+    }
+
+    /**
+     * Serialize the game.
+     * @return The serialized game.
+     * @throws IOException Thrown if the game cannot be serialized.
+     */
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(bytes)) {
+            out.writeObject(game);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Serialize the game once and report its size. The EVENTS counters are summed over
+     * the iterations, so the size is measured in a single iteration of a single call.
+     * @param size The counter of the size of the serialized game.
+     * @return The serialized game.
+     * @throws IOException Thrown if the game cannot be serialized.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1, batchSize = 1)
+    public byte[] serializedSize(SerializedSize size) throws IOException {
+        byte[] bytes = serialize();
+        size.bytes = bytes.length;
+        return bytes;
+    }
+
+    /**
+     * Deserialize the game.
+     * @return The deserialized game.
+     * @throws Exception Thrown if the game cannot be deserialized.
+     */
+    @Benchmark
+    public Object deserialize() throws Exception {
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return in.readObject();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package pl.kmolski.hangman.view;
+
+import org.openjdk.jmh.annotations.*;
+import org.thymeleaf.context.WebContext;
+import pl.kmolski.hangman.controller.ServletMocks;
+import pl.kmolski.hangman.dao.KeysetPage;
+import pl.kmolski.hangman.model.GameSaveSummary;
+import pl.kmolski.hangman.model.HangmanDictionary;
+import pl.kmolski.hangman.model.HangmanGame;
+import pl.kmolski.hangman.model.InvalidGuessException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of rendering the page templates.
+ *
+ * Compares TemplateRenderer, which renders into a reused buffer, with calling
+ * `TemplateEngine.process()` directly on the response writer. The response discards
+ * everything, so the benchmark measures the template processing only.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateRendererBenchmark {
+    /**
+     * The rendered template.
+     */
+    @Param({"Home", "Stats", "Saves"})
+    public String template;
+
+    /**
+     * The renderer under test.
+     */
+    private TemplateRenderer renderer;
+    /**
+     * The context with the template variables.
+     */
+    private WebContext context;
+    /**
+     * The response that discards the rendered page.
+     */
+    private HttpServletResponse response;
+
+    /**
+     * Create the renderer and fill the context with a game in progress and a page of saves.
+     * @throws InvalidGuessException Never thrown, the guesses are valid.
+     */
+    @Setup
+    public void setUp() throws InvalidGuessException {
+        renderer = TemplateRenderer.forTemplates("/templates/", null);
+        response = ServletMocks.response();
+        context = new WebContext(ServletMocks.request(ServletMocks.session(), Map.of()),
+                                 response, ServletMocks.servletContext());
+
+        var model = new HangmanGame();
+        model.addWords(HangmanDictionary.DEFAULT_WORDS);
+        model.nextRound();
+        model.tryLetter("o");
+        model.tryLetter("z");
+        context.setVariable("model", model);
+        context.setVariable("winCount", "3");
+        context.setVariable("loseCount", "2");
+        context.setVariable("correctGuesses", "41");
+        context.setVariable("wrongGuesses", "17");
+
+        var saves = new ArrayList<GameSaveSummary>();
+        for (long id = 1; id <= 20; ++id) {
+            saves.add(new GameSaveSummary(id, "drzewo", " o z ", 1, 2, 6));
+        }
+        context.setVariable("saves", new KeysetPage<>(saves, 20L));
+        context.setVariable("after", null);
+    }
+
+    /**
+     * Render the template into the reused buffer and copy it to the response.
+     * @return The response.
+     * @throws IOException Never thrown, the response discards everything.
+     */
+    @Benchmark
+    public Object renderBuffered() throws IOException {
+        renderer.render(template, context, response);
+        return response;
+    }
+
+    /**
+     * Render the template directly into the response writer.
+     * @return The response.
+     * @throws IOException Never thrown, the response discards everything.
+     */
+    @Benchmark
+    public Object renderDirect() throws IOException {
+        renderer.getTemplateEngine().process(template, context, response.getWriter());
+        return response;
+    }
+}
@@ -1,44 +1,123 @@
 package pl.kmolski.hangman;
 
 import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import pl.kmolski.hangman.controller.GameStates;
+import pl.kmolski.hangman.controller.RequestExecutor;
+import pl.kmolski.hangman.dao.Durability;
+import pl.kmolski.hangman.metrics.Metrics;
+import pl.kmolski.hangman.model.HangmanDictionary;
+import pl.kmolski.hangman.model.HangmanGame;
+import pl.kmolski.hangman.model.MappedWordIndex;
+import pl.kmolski.hangman.model.WordCorpus;
+import pl.kmolski.hangman.view.TemplateRenderer;
 
-import javax.persistence.EntityManagerFactory;
-import javax.persistence.Persistence;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Application class for the web-based hangman.
  *
  * This class provides a way to initialize and access the
- * Thymeleaf template engine from other classes.
+ * Thymeleaf template renderer and the application configuration from other classes.
+ * The renderer is created on first use, so loading this class (e.g. to read the
+ * configuration) does not initialize Thymeleaf. Persistence is managed by the container,
+ * see HangmanGameDAO.
  *
  * @author Krzysztof Molski
- * @version 1.0.0
+ * @version 1.0.13
  */
 public class HangmanApplication {
     /**
-     * The entity manager for the `hangman` persistence unit (HangmanGame storage).
+     * System property with the path of a compiled MappedWordIndex that is used
+     * instead of `DEFAULT_WORDS` for new games.
      */
-    private static final EntityManagerFactory emFactory = Persistence.createEntityManagerFactory("hangman");
-
+    public static final String DICTIONARY_INDEX_PROPERTY = "hangman.dictionaryIndex";
+    /**
+     * System property with the Durability level of game state updates (EVERY_GUESS by default).
+     */
+    public static final String DURABILITY_PROPERTY = "hangman.durability";
+    /**
+     * System property with the interval between write-behind flushes, in milliseconds (5000 by default).
+     */
+    public static final String FLUSH_INTERVAL_PROPERTY = "hangman.flushIntervalMs";
+    /**
+     * System property with the time after which cached templates are reloaded, in milliseconds.
+     * Templates are cached until the application is restarted by default.
+     */
+    public static final String TEMPLATE_CACHE_TTL_PROPERTY = "hangman.templateCacheTtlMs";
+    /**
+     * System property with the interval between statistics snapshots, in milliseconds (10000 by default).
+     */
+    public static final String STATS_SNAPSHOT_INTERVAL_PROPERTY = "hangman.statsSnapshotIntervalMs";
+    /**
+     * System property with the RequestExecutor mode: VIRTUAL (the default), PLATFORM or OFF.
+     */
+    public static final String ASYNC_MODE_PROPERTY = "hangman.async";
+    /**
+     * System property with the number of platform threads of the RequestExecutor (64 by default).
+     */
+    public static final String ASYNC_POOL_SIZE_PROPERTY = "hangman.asyncPoolSize";
+    /**
+     * System property with the maximum number of requests in flight in the RequestExecutor (1024 by default).
+     */
+    public static final String ASYNC_MAX_IN_FLIGHT_PROPERTY = "hangman.asyncMaxInFlight";
+    /**
+     * System property with the timeout of async requests, in milliseconds (30000 by default).
+     */
+    public static final String ASYNC_TIMEOUT_PROPERTY = "hangman.asyncTimeoutMs";
+    /**
+     * System property with the GameStates mode: SESSION (the default) or TOKEN.
+     */
+    public static final String STATE_MODE_PROPERTY = "hangman.state";
+    /**
+     * System property with the secret that the state tokens are signed and encrypted with.
+     * All nodes have to share it, a random secret is generated for a single node by default.
+     */
+    public static final String TOKEN_SECRET_PROPERTY = "hangman.tokenSecret";
+    /**
+     * System property with the maximum age of the state tokens, in milliseconds (86400000 by default).
+     */
+    public static final String TOKEN_MAX_AGE_PROPERTY = "hangman.tokenMaxAgeMs";
+    /**
+     * System property that enables seeded draw orders: every new game gets a random seed,
+     * stored with its dictionary, from which the order of its words can be reproduced.
+     */
+    public static final String SEEDED_DRAWS_PROPERTY = "hangman.seededDraws";
     /**
-     * The Thymeleaf template resolver for the application.
+     * System property with the maximum number of cached games (10000 by default and 0 in
+     * TOKEN mode, 0 disables the cache).
      */
-    private static final TemplateEngine templateEngine;
+    public static final String GAME_CACHE_SIZE_PROPERTY = "hangman.cacheGames";
+    /**
+     * System property with the maximum number of cached dictionaries (10000 by default, 0 disables the cache).
+     */
+    public static final String DICTIONARY_CACHE_SIZE_PROPERTY = "hangman.cacheDictionaries";
+    /**
+     * System property with the maximum number of cached word corpora (64 by default, 0 disables the cache).
+     */
+    public static final String CORPUS_CACHE_SIZE_PROPERTY = "hangman.cacheCorpora";
 
     /**
      * This is an application class - it should not be instantiated.
      */
     private HangmanApplication() {}
 
-    static {
-        var templateResolver = new ClassLoaderTemplateResolver();
-        templateResolver.setTemplateMode("HTML");
-        templateResolver.setPrefix("/templates/");
-        templateResolver.setSuffix(".html");
+    /**
+     * Holder of the template renderer, initialized by the JVM on first access.
+     */
+    private static class TemplateRendererHolder {
+        /**
+         * The Thymeleaf template renderer for the application.
+         */
+        private static final TemplateRenderer INSTANCE =
+                TemplateRenderer.forTemplates("/templates/", Long.getLong(TEMPLATE_CACHE_TTL_PROPERTY));
 
-        templateEngine = new TemplateEngine();
-        templateEngine.setTemplateResolver(templateResolver);
+        static {
+            Metrics.getInstance().register("templates", INSTANCE::collectMetrics);
+        }
     }
 
     /**
@@ -46,6 +125,164 @@ public class HangmanApplication {
      * @return The unique TemplateEngine object.
      */
     public static TemplateEngine getTemplateEngine() {
-        return templateEngine;
+        return TemplateRendererHolder.INSTANCE.getTemplateEngine();
+    }
+
+    /**
+     * Get the renderer of the page templates.
+     * @return The unique TemplateRenderer object.
+     */
+    public static TemplateRenderer getTemplateRenderer() {
+        return TemplateRendererHolder.INSTANCE;
+    }
+
+    /**
+     * Get the word index that new games should use, if one is configured.
+     * @return The mapped word index, or an empty Optional if the default words should be used.
+     */
+    public static Optional<MappedWordIndex> getDictionaryIndex() {
+        return Optional.ofNullable(System.getProperty(DICTIONARY_INDEX_PROPERTY))
+                       .map(path -> MappedWordIndex.open(Path.of(path)));
+    }
+
+    /**
+     * Create a new game with its first round started. The game uses the
+     * configured dictionary index, or the default words if there is none,
+     * and a seeded draw order if seeded draws are enabled. The game is counted in Metrics.
+     * @return The new game, not yet saved to the database.
+     */
+    public static HangmanGame createGame() {
+        var model = new HangmanGame();
+        if (isSeededDraws()) {
+            model.getDictionary().setSeed(ThreadLocalRandom.current().nextLong());
+        }
+        Optional<MappedWordIndex> dictionaryIndex = getDictionaryIndex();
+        if (dictionaryIndex.isPresent()) {
+            model.getDictionary().addCorpus(new WordCorpus(dictionaryIndex.get()));
+        } else {
+            model.addWords(HangmanDictionary.DEFAULT_WORDS);
+        }
+        model.nextRound();
+        Metrics.getInstance().recordGameStarted();
+        return model;
+    }
+
+    /**
+     * Get the configured durability of game state updates. Every update is written
+     * immediately when the games are stored in state tokens (see GameStates).
+     * @return The Durability level.
+     */
+    public static Durability getDurability() {
+        if (getStateMode() == GameStates.Mode.TOKEN) {
+            return Durability.EVERY_GUESS;
+        }
+        return Durability.valueOf(System.getProperty(DURABILITY_PROPERTY, Durability.EVERY_GUESS.name()));
+    }
+
+    /**
+     * Get the configured interval between write-behind flushes.
+     * @return The flush interval.
+     */
+    public static Duration getFlushInterval() {
+        return Duration.ofMillis(Long.getLong(FLUSH_INTERVAL_PROPERTY, 5000));
+    }
+
+    /**
+     * Get the configured interval between statistics snapshots.
+     * @return The snapshot interval.
+     */
+    public static Duration getStatsSnapshotInterval() {
+        return Duration.ofMillis(Long.getLong(STATS_SNAPSHOT_INTERVAL_PROPERTY, 10000));
+    }
+
+    /**
+     * Get the configured mode of the RequestExecutor.
+     * @return The RequestExecutor mode.
+     */
+    public static RequestExecutor.Mode getAsyncMode() {
+        return RequestExecutor.Mode.valueOf(System.getProperty(ASYNC_MODE_PROPERTY, RequestExecutor.Mode.VIRTUAL.name()));
+    }
+
+    /**
+     * Get the configured number of platform threads of the RequestExecutor.
+     * @return The thread pool size.
+     */
+    public static int getAsyncPoolSize() {
+        return Integer.getInteger(ASYNC_POOL_SIZE_PROPERTY, 64);
+    }
+
+    /**
+     * Get the configured maximum number of requests in flight.
+     * @return The in-flight limit.
+     */
+    public static int getAsyncMaxInFlight() {
+        return Integer.getInteger(ASYNC_MAX_IN_FLIGHT_PROPERTY, 1024);
+    }
+
+    /**
+     * Get the configured timeout of async requests.
+     * @return The request timeout.
+     */
+    public static Duration getAsyncTimeout() {
+        return Duration.ofMillis(Long.getLong(ASYNC_TIMEOUT_PROPERTY, 30000));
+    }
+
+    /**
+     * Get the configured storage of the games in progress.
+     * @return The GameStates mode.
+     */
+    public static GameStates.Mode getStateMode() {
+        return GameStates.Mode.valueOf(System.getProperty(STATE_MODE_PROPERTY, GameStates.Mode.SESSION.name()));
+    }
+
+    /**
+     * Get the configured secret of the state tokens.
+     * @return The UTF-8 encoded secret, or an empty Optional if none is configured.
+     */
+    public static Optional<byte[]> getTokenSecret() {
+        return Optional.ofNullable(System.getProperty(TOKEN_SECRET_PROPERTY))
+                       .filter(secret -> !secret.isEmpty())
+                       .map(secret -> secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get the configured maximum age of the state tokens.
+     * @return The maximum token age.
+     */
+    public static Duration getTokenMaxAge() {
+        return Duration.ofMillis(Long.getLong(TOKEN_MAX_AGE_PROPERTY, 86400000));
+    }
+
+    /**
+     * Check whether new games use seeded draw orders.
+     * @return true if the draw orders of new games are seeded.
+     */
+    public static boolean isSeededDraws() {
+        return Boolean.getBoolean(SEEDED_DRAWS_PROPERTY);
+    }
+
+    /**
+     * Get the configured maximum number of games cached by HangmanGameDAO. In TOKEN mode the
+     * games are not cached by default, the nodes cannot invalidate each other's caches.
+     * @return The maximum size of the game cache.
+     */
+    public static int getGameCacheSize() {
+        return Integer.getInteger(GAME_CACHE_SIZE_PROPERTY, getStateMode() == GameStates.Mode.TOKEN ? 0 : 10000);
+    }
+
+    /**
+     * Get the configured maximum number of dictionaries cached by HangmanGameDAO.
+     * @return The maximum size of the dictionary cache.
+     */
+    public static int getDictionaryCacheSize() {
+        return Integer.getInteger(DICTIONARY_CACHE_SIZE_PROPERTY, 10000);
+    }
+
+    /**
+     * Get the configured maximum number of word corpora cached by HangmanGameDAO.
+     * @return The maximum size of the corpus cache.
+     */
+    public static int getCorpusCacheSize() {
+        return Integer.getInteger(CORPUS_CACHE_SIZE_PROPERTY, 64);
     }
 }
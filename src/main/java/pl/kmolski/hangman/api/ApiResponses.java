@@ -0,0 +1,165 @@
+package pl.kmolski.hangman.api;
+
+import pl.kmolski.hangman.dao.KeysetPage;
+import pl.kmolski.hangman.dao.PlayerStats;
+import pl.kmolski.hangman.model.GameSaveSummary;
+import pl.kmolski.hangman.model.HangmanGame;
+
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Helper methods for writing the JSON responses of the API servlets.
+ *
+ * The responses are streamed to the client with a JsonGenerator, no intermediate
+ * object tree is built.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.9
+ */
+final class ApiResponses {
+    /**
+     * Shared factory of the JSON generators.
+     */
+    private static final JsonGeneratorFactory generatorFactory = Json.createGeneratorFactory(Map.of());
+
+    /**
+     * This is a utility class - it should not be instantiated.
+     */
+    private ApiResponses() {}
+
+    /**
+     * Start a JSON response.
+     * @param response The HTTP response.
+     * @param status The HTTP status code.
+     * @return The generator that writes the response body.
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    private static JsonGenerator begin(HttpServletResponse response, int status) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json;charset=UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        return generatorFactory.createGenerator(response.getWriter());
+    }
+
+    /**
+     * Send the state of the game: the masked word, misses, guessed letters and the word counts.
+     * @param response The HTTP response.
+     * @param model The game.
+     * @param outcome The result of the action, e.g. "correct" or "won".
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    static void sendGame(HttpServletResponse response, HangmanGame model, String outcome) throws IOException {
+        sendGame(response, HttpServletResponse.SC_OK, model, outcome);
+    }
+
+    /**
+     * Send the state of the game with an HTTP status, e.g. the stored state after a conflict.
+     * @param response The HTTP response.
+     * @param status The HTTP status code.
+     * @param model The game.
+     * @param outcome The result of the action, e.g. "conflict".
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    static void sendGame(HttpServletResponse response, int status, HangmanGame model, String outcome) throws IOException {
+        try (JsonGenerator json = begin(response, status)) {
+            json.writeStartObject()
+                .write("outcome", outcome);
+            if (model.getId() != null) {
+                json.write("id", model.getId());
+            }
+            json.write("maskedWord", model.getMaskedWord())
+                .write("misses", model.getMisses())
+                .writeStartArray("guessedLetters");
+            for (String letter : model.getGuessedLetters().split(" ")) {
+                if (!letter.isEmpty()) { json.write(letter); }
+            }
+            json.writeEnd()
+                .write("wordsGuessed", model.getWordsGuessed())
+                .write("wordsRemaining", model.getWordsRemaining())
+                .write("roundOver", model.isRoundOver())
+                .write("gameOver", model.isGameOver())
+                .writeEnd();
+        }
+    }
+
+    /**
+     * Send a page of game save summaries.
+     * @param response The HTTP response.
+     * @param saves The page of summaries.
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    static void sendSaves(HttpServletResponse response, KeysetPage<GameSaveSummary> saves) throws IOException {
+        try (JsonGenerator json = begin(response, HttpServletResponse.SC_OK)) {
+            json.writeStartObject()
+                .writeStartArray("saves");
+            for (GameSaveSummary save : saves.getItems()) {
+                json.writeStartObject()
+                    .write("id", save.getId())
+                    .write("maskedWord", save.getMaskedWord())
+                    .write("misses", save.getMisses())
+                    .write("wordsGuessed", save.getWordsGuessed())
+                    .write("wordsRemaining", save.getWordsRemaining())
+                    .writeEnd();
+            }
+            json.writeEnd();
+            if (saves.hasNext()) {
+                json.write("next", saves.getNextCursor());
+            } else {
+                json.writeNull("next");
+            }
+            json.writeEnd();
+        }
+    }
+
+    /**
+     * Send the statistics of the player and of all players.
+     * @param response The HTTP response.
+     * @param player The statistics of the player.
+     * @param global The statistics of all players.
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    static void sendStats(HttpServletResponse response, PlayerStats player, PlayerStats global) throws IOException {
+        try (JsonGenerator json = begin(response, HttpServletResponse.SC_OK)) {
+            json.writeStartObject();
+            writeStats(json, "player", player);
+            writeStats(json, "global", global);
+            json.writeEnd();
+        }
+    }
+
+    /**
+     * Write the statistics as a member of the current JSON object.
+     * @param json The generator.
+     * @param name The name of the member.
+     * @param stats The statistics.
+     */
+    private static void writeStats(JsonGenerator json, String name, PlayerStats stats) {
+        json.writeStartObject(name)
+            .write("wins", stats.getWins())
+            .write("losses", stats.getLosses())
+            .write("correctGuesses", stats.getCorrectGuesses())
+            .write("wrongGuesses", stats.getWrongGuesses())
+            .write("accuracy", stats.getAccuracy())
+            .writeEnd();
+    }
+
+    /**
+     * Send an error response.
+     * @param response The HTTP response.
+     * @param status The HTTP status code.
+     * @param message The error message.
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    static void sendError(HttpServletResponse response, int status, String message) throws IOException {
+        try (JsonGenerator json = begin(response, status)) {
+            json.writeStartObject()
+                .write("error", message)
+                .writeEnd();
+        }
+    }
+}
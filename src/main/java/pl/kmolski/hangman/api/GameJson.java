@@ -0,0 +1,73 @@
+package pl.kmolski.hangman.api;
+
+import pl.kmolski.hangman.controller.GameSteps;
+import pl.kmolski.hangman.model.HangmanGame;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * View of the game steps for the API clients, which receive the state of the game as JSON.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+final class GameJson implements GameSteps.View {
+    /**
+     * The view of the application.
+     */
+    static final GameJson INSTANCE = new GameJson();
+
+    /**
+     * Create the view, the servlets use `INSTANCE`.
+     */
+    private GameJson() {}
+
+    /**
+     * Send an HTTP 409 "Conflict" response.
+     * @param response The HTTP response.
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    @Override
+    public void noGame(HttpServletResponse response) throws IOException {
+        ApiResponses.sendError(response, HttpServletResponse.SC_CONFLICT, "No game in progress.");
+    }
+
+    /**
+     * Send an HTTP 400 "Bad Request" response.
+     * @param response The HTTP response.
+     * @param message The description of the error.
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    @Override
+    public void invalid(HttpServletResponse response, String message) throws IOException {
+        ApiResponses.sendError(response, HttpServletResponse.SC_BAD_REQUEST, message);
+    }
+
+    /**
+     * Send the state of the game with the name of the outcome.
+     * @param response The HTTP response.
+     * @param model The game, after the step.
+     * @param outcome The result of the step.
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    @Override
+    public void show(HttpServletResponse response, HangmanGame model, GameSteps.Outcome outcome) throws IOException {
+        ApiResponses.sendGame(response, model, outcome.getName());
+    }
+
+    /**
+     * Send an HTTP 409 "Conflict" response with the stored state of the game and the outcome "conflict".
+     * @param response The HTTP response.
+     * @param stored The reloaded game, null if the save has been deleted.
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    @Override
+    public void conflict(HttpServletResponse response, HangmanGame stored) throws IOException {
+        if (stored == null) {
+            ApiResponses.sendError(response, HttpServletResponse.SC_CONFLICT, "The game has ended in another session.");
+        } else {
+            ApiResponses.sendGame(response, HttpServletResponse.SC_CONFLICT, stored, "conflict");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package pl.kmolski.hangman.api;
+
+import pl.kmolski.hangman.controller.GameStates;
+import pl.kmolski.hangman.model.HangmanGame;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * API servlet that reports the state of the current game.
+ *
+ * It is located under "/api/state".
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.2
+ */
+@WebServlet(name = "GameStateApi", urlPatterns = "/api/state")
+public class GameStateApiServlet extends HttpServlet {
+    /**
+     * Send the state of the game in progress, with the outcome "inProgress".
+     * If there's no game in progress, an HTTP 404 "Not Found" response is sent back.
+     * @param request The HTTP request.
+     * @param response The response (a JSON object).
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        GameStates states = GameStates.getInstance();
+        if (!states.mayHaveGame(request)) {
+            ApiResponses.sendError(response, HttpServletResponse.SC_NOT_FOUND, "No game in progress.");
+            return;
+        }
+
+        Lock lock = states.lock(request);
+        try {
+            HangmanGame model = states.load(request);
+            if (model == null) {
+                ApiResponses.sendError(response, HttpServletResponse.SC_NOT_FOUND, "No game in progress.");
+                return;
+            }
+
+            ApiResponses.sendGame(response, model, "inProgress");
+        } finally {
+            lock.unlock();
+        }
+    }
+}
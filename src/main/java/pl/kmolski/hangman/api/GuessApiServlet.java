@@ -0,0 +1,58 @@
+package pl.kmolski.hangman.api;
+
+import pl.kmolski.hangman.controller.GameSteps;
+import pl.kmolski.hangman.controller.RequestExecutor;
+import pl.kmolski.hangman.dao.HangmanGameDAO;
+
+import javax.ejb.EJB;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * API servlet that processes guesses.
+ *
+ * This is the JSON counterpart of SubmitGuessServlet: the new state of the game is sent
+ * back in the response instead of a redirect. It is located under "/api/guess".
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.6
+ */
+@WebServlet(name = "GuessApi", urlPatterns = "/api/guess", asyncSupported = true)
+public class GuessApiServlet extends HttpServlet {
+    /**
+     * Injected data-access object for HangmanGame object management.
+     */
+    @EJB
+    private HangmanGameDAO gameDAO;
+
+    /**
+     * Process the guess (see `GameSteps.guess()`) and send the state of the game, with one of
+     * the outcomes "correct", "wrong", "roundOver" (the state of the next round is sent), "won"
+     * or "lost". If there's no game in progress, an HTTP 409 "Conflict" response is sent back.
+     * If the guess is invalid or non-existent, an HTTP 400 "Bad Request" response is sent back.
+     * If the save has been modified by another session, the guess is discarded and an HTTP 409
+     * "Conflict" response with the stored state of the game and the outcome "conflict" is sent back.
+     * @param request The request that contains the guess.
+     * @param response The response (a JSON object).
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    private void processRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        GameSteps.guess(gameDAO, request, response, GameJson.INSTANCE);
+    }
+
+    /**
+     * Process POST requests from the client on the RequestExecutor.
+     * @param request The request from the client.
+     * @param response The response associated with the request.
+     * @throws ServletException May be thrown by the request handler.
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        RequestExecutor.getInstance().execute(request, response, this::processRequest);
+    }
+}
@@ -0,0 +1,80 @@
+package pl.kmolski.hangman.api;
+
+import pl.kmolski.hangman.controller.RequestExecutor;
+import pl.kmolski.hangman.dao.HangmanGameDAO;
+
+import javax.ejb.EJB;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * API servlet that lists the game saves.
+ *
+ * The saves are paginated in the same way as on the "/Saves" page: the `after` parameter
+ * is the cursor returned as `next` with the previous page. It is located under "/api/saves".
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+@WebServlet(name = "SavesApi", urlPatterns = "/api/saves", asyncSupported = true)
+public class SavesApiServlet extends HttpServlet {
+    /**
+     * Injected data-access object for HangmanGame object management.
+     */
+    @EJB
+    private HangmanGameDAO gameDAO;
+
+    /**
+     * The number of saves on a page if the `size` parameter is missing.
+     */
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    /**
+     * The largest allowed page size.
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Send a page of game save summaries. If the `after` or `size` parameter
+     * is invalid, an HTTP 400 "Bad Request" response is sent back.
+     * @param request The HTTP request.
+     * @param response The response (a JSON object).
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    private void processRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String afterParamString = request.getParameter("after");
+        String sizeParamString = request.getParameter("size");
+        Long after;
+        int size;
+        try {
+            after = afterParamString == null ? null : Long.parseLong(afterParamString);
+            size = sizeParamString == null ? DEFAULT_PAGE_SIZE : Integer.parseInt(sizeParamString);
+        } catch (NumberFormatException e) {
+            ApiResponses.sendError(response, HttpServletResponse.SC_BAD_REQUEST, "Invalid cursor or page size: " + e.getMessage());
+            return;
+        }
+
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            ApiResponses.sendError(response, HttpServletResponse.SC_BAD_REQUEST,
+                                   "The page size must be between 1 and " + MAX_PAGE_SIZE + "!");
+            return;
+        }
+
+        ApiResponses.sendSaves(response, gameDAO.getSummaries(after, size));
+    }
+
+    /**
+     * Process GET requests from the client on the RequestExecutor.
+     * @param request The request from the client.
+     * @param response The response associated with the request.
+     * @throws ServletException May be thrown by the request handler.
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        RequestExecutor.getInstance().execute(request, response, this::processRequest);
+    }
+}
@@ -0,0 +1,56 @@
+package pl.kmolski.hangman.api;
+
+import pl.kmolski.hangman.controller.GameSteps;
+import pl.kmolski.hangman.controller.RequestExecutor;
+import pl.kmolski.hangman.dao.HangmanGameDAO;
+
+import javax.ejb.EJB;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * API servlet that skips the current word.
+ *
+ * This is the JSON counterpart of SkipWordServlet. It is located under "/api/skip".
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.7
+ */
+@WebServlet(name = "SkipWordApi", urlPatterns = "/api/skip", asyncSupported = true)
+public class SkipWordApiServlet extends HttpServlet {
+    /**
+     * Injected data-access object for HangmanGame object management.
+     */
+    @EJB
+    private HangmanGameDAO gameDAO;
+
+    /**
+     * Skip the current word (see `GameSteps.skip()`) and send the state of the game, with the
+     * outcome "skipped", or "lost" if there are no more words. If there's no game in progress,
+     * an HTTP 409 "Conflict" response is sent back. If the save has been modified by another session,
+     * the skip is discarded and an HTTP 409 "Conflict" response with the stored state of the game
+     * and the outcome "conflict" is sent back.
+     * @param request The HTTP request.
+     * @param response The response (a JSON object).
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    private void processRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        GameSteps.skip(gameDAO, request, response, GameJson.INSTANCE);
+    }
+
+    /**
+     * Process POST requests from the client on the RequestExecutor.
+     * @param request The request from the client.
+     * @param response The response associated with the request.
+     * @throws ServletException May be thrown by the request handler.
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        RequestExecutor.getInstance().execute(request, response, this::processRequest);
+    }
+}
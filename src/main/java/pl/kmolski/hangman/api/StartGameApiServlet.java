@@ -0,0 +1,77 @@
+package pl.kmolski.hangman.api;
+
+import pl.kmolski.hangman.HangmanApplication;
+import pl.kmolski.hangman.controller.GameStates;
+import pl.kmolski.hangman.controller.RequestExecutor;
+import pl.kmolski.hangman.dao.HangmanGameDAO;
+import pl.kmolski.hangman.dao.SaveConflictException;
+import pl.kmolski.hangman.model.HangmanGame;
+
+import javax.ejb.EJB;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * API servlet that starts a new game.
+ *
+ * The new game replaces the game in the current session. It is located under "/api/start".
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.5
+ */
+@WebServlet(name = "StartGameApi", urlPatterns = "/api/start", asyncSupported = true)
+public class StartGameApiServlet extends HttpServlet {
+    /**
+     * Injected data-access object for HangmanGame object management.
+     */
+    @EJB
+    private HangmanGameDAO gameDAO;
+
+    /**
+     * Start a new game and send its state. If a model instance exists in the current
+     * session, its buffered changes are saved to the database before it is replaced, unless
+     * its save has been modified by another session, which keeps it.
+     * @param request The HTTP request.
+     * @param response The response (a JSON object).
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    private void processRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        GameStates states = GameStates.getInstance();
+        Lock lock = states.lock(request);
+        try {
+            HangmanGame model = states.load(request);
+            if (model != null && !model.isGameOver()) {
+                try {
+                    gameDAO.flushIfPending(model);
+                } catch (SaveConflictException e) {
+                    // The save has been continued by another session, the stale game is discarded.
+                }
+            }
+
+            model = HangmanApplication.createGame();
+            gameDAO.save(model);
+
+            states.store(request, response, model);
+            ApiResponses.sendGame(response, model, "started");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Process POST requests from the client on the RequestExecutor.
+     * @param request The request from the client.
+     * @param response The response associated with the request.
+     * @throws ServletException May be thrown by the request handler.
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        RequestExecutor.getInstance().execute(request, response, this::processRequest);
+    }
+}
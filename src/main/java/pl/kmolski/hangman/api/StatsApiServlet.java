@@ -0,0 +1,42 @@
+package pl.kmolski.hangman.api;
+
+import pl.kmolski.hangman.controller.PlayerId;
+import pl.kmolski.hangman.dao.HangmanGameDAO;
+import pl.kmolski.hangman.dao.StatsStore;
+
+import javax.ejb.EJB;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * API servlet that reports the game statistics of the player and of all players.
+ *
+ * The statistics of all players are read from memory, the statistics of the player are read
+ * from the database. It is located under "/api/stats".
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.2
+ */
+@WebServlet(name = "StatsApi", urlPatterns = "/api/stats")
+public class StatsApiServlet extends HttpServlet {
+    /**
+     * Injected data-access object for HangmanGame object management.
+     */
+    @EJB
+    private HangmanGameDAO gameDAO;
+
+    /**
+     * Send the wins, losses, correct/wrong guess counts and the guess accuracy.
+     * @param request The HTTP request.
+     * @param response The response (a JSON object).
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StatsStore stats = StatsStore.getInstance();
+        ApiResponses.sendStats(response, stats.getPlayer(PlayerId.find(request), gameDAO::findStats), stats.getGlobal());
+    }
+}
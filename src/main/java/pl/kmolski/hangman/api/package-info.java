@@ -0,0 +1,11 @@
+/**
+ * JSON API for the hangman game.
+ *
+ * The API servlets share the session-bound game with the HTML controllers, but every
+ * action responds with the full game state, so a client needs a single request per guess.
+ *
+ * @since 5.0
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+package pl.kmolski.hangman.api;
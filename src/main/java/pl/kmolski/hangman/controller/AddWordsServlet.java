@@ -1,7 +1,12 @@
 package pl.kmolski.hangman.controller;
 
+import pl.kmolski.hangman.dao.HangmanGameDAO;
+import pl.kmolski.hangman.dao.ImportProgress;
+import pl.kmolski.hangman.dao.SaveConflictException;
 import pl.kmolski.hangman.model.HangmanGame;
+import pl.kmolski.hangman.model.WordCorpus;
 
+import javax.ejb.EJB;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.MultipartConfig;
 import javax.servlet.annotation.WebServlet;
@@ -9,34 +14,45 @@ import javax.servlet.http.*;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.stream.Collectors;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Servlet implementation for the AddWords page.
  *
  * This servlet is responsible for receiving and processing word files sent by the user
- * and updating the model accordingly. It is located under "/AddWords".
+ * and updating the model accordingly. It is located under "/AddWords". Uploads larger
+ * than 1 MiB are buffered on disk by the container, and the words are streamed into
+ * the database in batches, so large word files are not kept in memory.
  *
  * @author Krzysztof Molski
- * @version 1.0.1
+ * @version 1.0.6
  */
-@WebServlet(name = "AddWords", urlPatterns = {"/AddWords"})
-@MultipartConfig(maxFileSize = 4096, maxRequestSize = 6144)
+@WebServlet(name = "AddWords", urlPatterns = {"/AddWords"}, asyncSupported = true)
+@MultipartConfig(fileSizeThreshold = 1 << 20, maxFileSize = 1L << 30, maxRequestSize = (1L << 30) + 4096)
 public class AddWordsServlet extends HttpServlet {
+    /**
+     * Injected data-access object for HangmanGame object management.
+     */
+    @EJB
+    private HangmanGameDAO gameDAO;
+
     /**
      * Process the file submission that was received from the client. If there's no
      * model instance in the current session, the client is redirected to HomeServlet.
      * If the request does not contain a multipart form that contains a `wordFile` part,
-     * an HTTP 400 "Bad Request" response will be sent back to the client.
+     * an HTTP 400 "Bad Request" response will be sent back to the client. The progress
+     * of the import is available in the `importProgress` session attribute. If the save of the
+     * game has been modified by another session, the stored game is reloaded without the words.
      * @param request The request that contains the word file.
      * @param response The response associated with the request.
      * @throws IOException May be thrown if sending the redirect or opening the word file fails.
      * @throws ServletException May be thrown if the form does not contain a `wordFile` part.
      */
     private void processRequest(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        HttpSession session = request.getSession(true);
-        HangmanGame model = (HangmanGame) session.getAttribute("model");
-        if (model == null) {
+        GameStates states = GameStates.getInstance();
+        if (states.load(request) == null) {
             response.sendRedirect("Home");
             return;
         }
@@ -47,8 +63,28 @@ public class AddWordsServlet extends HttpServlet {
             return;
         }
 
-        try (var reader = new BufferedReader(new InputStreamReader(wordFilePart.getInputStream()))) {
-            model.addWords(reader.lines().map(String::trim).map(String::toLowerCase).collect(Collectors.toList()));
+        var progress = new ImportProgress();
+        request.getSession(true).setAttribute("importProgress", progress);
+        Optional<WordCorpus> corpus;
+        try (var reader = new BufferedReader(new InputStreamReader(wordFilePart.getInputStream(), StandardCharsets.UTF_8))) {
+            corpus = gameDAO.importCorpus(reader, progress);
+        }
+
+        // The import can take a long time, so the game is locked only while the corpus is added.
+        Lock lock = states.lock(request);
+        try {
+            HangmanGame model = states.load(request);
+            if (corpus.isPresent() && model != null) {
+                model.getDictionary().addCorpus(corpus.get());
+                try {
+                    gameDAO.flush(model);
+                    states.store(request, response, model);
+                } catch (SaveConflictException e) {
+                    GameSteps.reload(gameDAO, request, response, model);
+                }
+            }
+        } finally {
+            lock.unlock();
         }
 
         response.sendRedirect("Home");
@@ -59,9 +95,10 @@ public class AddWordsServlet extends HttpServlet {
      * @param request The HTTP request.
      * @param response The response associated with the request.
      * @throws IOException May be thrown if sending the redirect fails.
+     * @throws ServletException May be thrown by the request handler.
      */
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        processRequest(request, response);
+        RequestExecutor.getInstance().execute(request, response, this::processRequest);
     }
 }
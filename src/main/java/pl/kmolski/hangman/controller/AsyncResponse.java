@@ -0,0 +1,446 @@
+package pl.kmolski.hangman.controller;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Response of a request that is handled on the RequestExecutor, and the listener of its AsyncContext.
+ *
+ * If the request times out while the handler is still running, the listener sends an HTTP 503
+ * "Service Unavailable" response and completes the request on the container thread. The
+ * container may then recycle the underlying response, so everything that the handler sends
+ * afterwards (status, headers, cookies and the body) is discarded. The writes of the handler,
+ * the timeout and the completion of the request are serialized by the monitor of the response,
+ * so no write can reach the underlying response after the request has ended.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+final class AsyncResponse extends HttpServletResponseWrapper implements AsyncListener {
+    /**
+     * The async context of the request.
+     */
+    private final AsyncContext asyncContext;
+    /**
+     * Called when the request times out, e.g. to count the timeouts.
+     */
+    private final Runnable timeoutListener;
+    /**
+     * Whether the request has been completed, has timed out or has failed, guarded by the monitor.
+     */
+    private boolean ended = false;
+    /**
+     * The guarded writer of the response, created on first use.
+     */
+    private PrintWriter writer;
+    /**
+     * The guarded output stream of the response, created on first use.
+     */
+    private ServletOutputStream outputStream;
+
+    /**
+     * Create the response of an async request.
+     * @param response The underlying response.
+     * @param asyncContext The async context of the request.
+     * @param timeoutListener Called when the request times out.
+     */
+    AsyncResponse(HttpServletResponse response, AsyncContext asyncContext, Runnable timeoutListener) {
+        super(response);
+        this.asyncContext = asyncContext;
+        this.timeoutListener = timeoutListener;
+    }
+
+    /**
+     * Get the underlying response.
+     * @return The response that is wrapped.
+     */
+    private HttpServletResponse target() {
+        return (HttpServletResponse) getResponse();
+    }
+
+    /**
+     * Check whether the request has ended, after which nothing is sent to the client.
+     * @return true if the request has been completed, has timed out or has failed.
+     */
+    synchronized boolean hasEnded() {
+        return ended;
+    }
+
+    /**
+     * Complete the request after the handler has finished, unless it has already ended.
+     */
+    synchronized void complete() {
+        if (ended) { return; }
+        ended = true;
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException ignored) {
+            // The request has already been completed by the container.
+        }
+    }
+
+    /**
+     * End a request that has timed out: send HTTP 503 "Service Unavailable" unless the handler
+     * has already committed the response, and complete the request.
+     * @param event The async event.
+     */
+    @Override
+    public synchronized void onTimeout(AsyncEvent event) {
+        if (ended) { return; }
+        ended = true;
+        timeoutListener.run();
+        try {
+            if (!target().isCommitted()) {
+                target().reset();
+                target().setHeader("Retry-After", "1");
+                target().sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "The request has timed out, try again later.");
+            }
+        } catch (IOException | IllegalStateException ignored) {
+            // The client is gone, the request is completed anyway.
+        }
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException ignored) {
+            // The request has already been completed by the container.
+        }
+    }
+
+    /**
+     * Stop sending to a request that has failed, e.g. because the client has disconnected.
+     * The container completes the request.
+     * @param event The async event.
+     */
+    @Override
+    public synchronized void onError(AsyncEvent event) {
+        ended = true;
+    }
+
+    /**
+     * Nothing to do when the request is completed.
+     * @param event The async event.
+     */
+    @Override
+    public void onComplete(AsyncEvent event) {}
+
+    /**
+     * Nothing to do when the request is started in async mode again.
+     * @param event The async event.
+     */
+    @Override
+    public void onStartAsync(AsyncEvent event) {}
+
+    /**
+     * Add a cookie, unless the request has ended.
+     * @param cookie The cookie.
+     */
+    @Override
+    public synchronized void addCookie(Cookie cookie) {
+        if (!ended) { super.addCookie(cookie); }
+    }
+
+    /**
+     * Send an error, unless the request has ended.
+     * @param sc The status code.
+     * @param msg The description of the error.
+     * @throws IOException May be thrown if sending the error fails.
+     */
+    @Override
+    public synchronized void sendError(int sc, String msg) throws IOException {
+        if (!ended) { super.sendError(sc, msg); }
+    }
+
+    /**
+     * Send an error, unless the request has ended.
+     * @param sc The status code.
+     * @throws IOException May be thrown if sending the error fails.
+     */
+    @Override
+    public synchronized void sendError(int sc) throws IOException {
+        if (!ended) { super.sendError(sc); }
+    }
+
+    /**
+     * Send a redirect, unless the request has ended.
+     * @param location The location of the redirect.
+     * @throws IOException May be thrown if sending the redirect fails.
+     */
+    @Override
+    public synchronized void sendRedirect(String location) throws IOException {
+        if (!ended) { super.sendRedirect(location); }
+    }
+
+    /**
+     * Set a header, unless the request has ended.
+     * @param name The header name.
+     * @param date The header value.
+     */
+    @Override
+    public synchronized void setDateHeader(String name, long date) {
+        if (!ended) { super.setDateHeader(name, date); }
+    }
+
+    /**
+     * Add a header, unless the request has ended.
+     * @param name The header name.
+     * @param date The header value.
+     */
+    @Override
+    public synchronized void addDateHeader(String name, long date) {
+        if (!ended) { super.addDateHeader(name, date); }
+    }
+
+    /**
+     * Set a header, unless the request has ended.
+     * @param name The header name.
+     * @param value The header value.
+     */
+    @Override
+    public synchronized void setHeader(String name, String value) {
+        if (!ended) { super.setHeader(name, value); }
+    }
+
+    /**
+     * Add a header, unless the request has ended.
+     * @param name The header name.
+     * @param value The header value.
+     */
+    @Override
+    public synchronized void addHeader(String name, String value) {
+        if (!ended) { super.addHeader(name, value); }
+    }
+
+    /**
+     * Set a header, unless the request has ended.
+     * @param name The header name.
+     * @param value The header value.
+     */
+    @Override
+    public synchronized void setIntHeader(String name, int value) {
+        if (!ended) { super.setIntHeader(name, value); }
+    }
+
+    /**
+     * Add a header, unless the request has ended.
+     * @param name The header name.
+     * @param value The header value.
+     */
+    @Override
+    public synchronized void addIntHeader(String name, int value) {
+        if (!ended) { super.addIntHeader(name, value); }
+    }
+
+    /**
+     * Set the status code, unless the request has ended.
+     * @param sc The status code.
+     */
+    @Override
+    public synchronized void setStatus(int sc) {
+        if (!ended) { super.setStatus(sc); }
+    }
+
+    /**
+     * Set the character encoding, unless the request has ended.
+     * @param charset The character encoding.
+     */
+    @Override
+    public synchronized void setCharacterEncoding(String charset) {
+        if (!ended) { super.setCharacterEncoding(charset); }
+    }
+
+    /**
+     * Set the content length, unless the request has ended.
+     * @param len The content length.
+     */
+    @Override
+    public synchronized void setContentLength(int len) {
+        if (!ended) { super.setContentLength(len); }
+    }
+
+    /**
+     * Set the content length, unless the request has ended.
+     * @param len The content length.
+     */
+    @Override
+    public synchronized void setContentLengthLong(long len) {
+        if (!ended) { super.setContentLengthLong(len); }
+    }
+
+    /**
+     * Set the content type, unless the request has ended.
+     * @param type The content type.
+     */
+    @Override
+    public synchronized void setContentType(String type) {
+        if (!ended) { super.setContentType(type); }
+    }
+
+    /**
+     * Set the locale, unless the request has ended.
+     * @param loc The locale.
+     */
+    @Override
+    public synchronized void setLocale(Locale loc) {
+        if (!ended) { super.setLocale(loc); }
+    }
+
+    /**
+     * Set the buffer size, unless the request has ended.
+     * @param size The buffer size.
+     */
+    @Override
+    public synchronized void setBufferSize(int size) {
+        if (!ended) { super.setBufferSize(size); }
+    }
+
+    /**
+     * Flush the buffer, unless the request has ended.
+     * @throws IOException May be thrown if flushing fails.
+     */
+    @Override
+    public synchronized void flushBuffer() throws IOException {
+        if (!ended) { super.flushBuffer(); }
+    }
+
+    /**
+     * Clear the buffer, unless the request has ended.
+     */
+    @Override
+    public synchronized void resetBuffer() {
+        if (!ended) { super.resetBuffer(); }
+    }
+
+    /**
+     * Clear the buffer, the status and the headers, unless the request has ended.
+     */
+    @Override
+    public synchronized void reset() {
+        if (!ended) { super.reset(); }
+    }
+
+    /**
+     * Get a writer that writes to the response until the request ends.
+     * @return The guarded writer.
+     * @throws IOException May be thrown if getting the writer of the response fails.
+     */
+    @Override
+    public synchronized PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            PrintWriter target = ended ? new PrintWriter(Writer.nullWriter()) : super.getWriter();
+            writer = new PrintWriter(new Writer() {
+                /**
+                 * Write characters to the response, unless the request has ended.
+                 * @param buffer The characters.
+                 * @param offset The offset of the first character.
+                 * @param length The number of characters.
+                 */
+                @Override
+                public void write(char[] buffer, int offset, int length) {
+                    synchronized (AsyncResponse.this) {
+                        if (!ended) { target.write(buffer, offset, length); }
+                    }
+                }
+
+                /**
+                 * Flush the writer of the response, unless the request has ended.
+                 */
+                @Override
+                public void flush() {
+                    synchronized (AsyncResponse.this) {
+                        if (!ended) { target.flush(); }
+                    }
+                }
+
+                /**
+                 * Close the writer of the response, unless the request has ended.
+                 */
+                @Override
+                public void close() {
+                    synchronized (AsyncResponse.this) {
+                        if (!ended) { target.close(); }
+                    }
+                }
+            });
+        }
+        return writer;
+    }
+
+    /**
+     * Get an output stream that writes to the response until the request ends.
+     * @return The guarded output stream.
+     * @throws IOException May be thrown if getting the output stream of the response fails.
+     */
+    @Override
+    public synchronized ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            OutputStream target = ended ? OutputStream.nullOutputStream() : super.getOutputStream();
+            outputStream = new ServletOutputStream() {
+                /**
+                 * Write a byte to the response, unless the request has ended.
+                 * @param b The byte.
+                 * @throws IOException May be thrown if writing fails.
+                 */
+                @Override
+                public void write(int b) throws IOException {
+                    synchronized (AsyncResponse.this) {
+                        if (!ended) { target.write(b); }
+                    }
+                }
+
+                /**
+                 * Write bytes to the response, unless the request has ended.
+                 * @param b The bytes.
+                 * @param off The offset of the first byte.
+                 * @param len The number of bytes.
+                 * @throws IOException May be thrown if writing fails.
+                 */
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    synchronized (AsyncResponse.this) {
+                        if (!ended) { target.write(b, off, len); }
+                    }
+                }
+
+                /**
+                 * Flush the output stream of the response, unless the request has ended.
+                 * @throws IOException May be thrown if flushing fails.
+                 */
+                @Override
+                public void flush() throws IOException {
+                    synchronized (AsyncResponse.this) {
+                        if (!ended) { target.flush(); }
+                    }
+                }
+
+                /**
+                 * The handlers write in blocking mode, the stream is always ready.
+                 * @return Always true.
+                 */
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * Non-blocking writes are not supported by the handlers.
+                 * @param writeListener The listener.
+                 */
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    throw new UnsupportedOperationException("Non-blocking writes are not supported");
+                }
+            };
+        }
+        return outputStream;
+    }
+}
@@ -0,0 +1,105 @@
+package pl.kmolski.hangman.controller;
+
+import javax.servlet.http.HttpSession;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks that serialize the requests which modify the game of a session.
+ *
+ * HangmanGame is not thread-safe, and the game in a session can be modified by
+ * parallel requests (double submits, multiple tabs). Every servlet that reads and
+ * modifies the `model` session attribute does so while holding the lock of the session.
+ * The locks are striped by the session ID, so requests from different sessions rarely
+ * contend and no global lock is needed. ReentrantLock is used instead of `synchronized`,
+ * so waiting virtual threads do not pin their carrier threads.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+public final class GameLocks {
+    /**
+     * The number of stripes of the application's locks.
+     */
+    private static final int DEFAULT_STRIPE_COUNT = 1024;
+    /**
+     * The locks of the application.
+     */
+    private static final GameLocks INSTANCE = new GameLocks(DEFAULT_STRIPE_COUNT);
+
+    /**
+     * The lock stripes, the length is a power of two.
+     */
+    private final ReentrantLock[] stripes;
+    /**
+     * The number of times a lock has been acquired.
+     */
+    private final LongAdder acquisitions = new LongAdder();
+    /**
+     * The number of times a lock was held by another request and had to be waited for.
+     */
+    private final LongAdder contentions = new LongAdder();
+
+    /**
+     * Create a set of striped locks.
+     * @param stripeCount The minimum number of stripes, rounded up to a power of two.
+     */
+    GameLocks(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; ++i) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Get the locks of the application.
+     * @return The unique GameLocks object.
+     */
+    public static GameLocks getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Acquire the lock of the session, waiting until it is released by other requests.
+     * The lock must be released with `unlock()` in a `finally` block.
+     * @param session The session whose game will be modified.
+     * @return The acquired lock.
+     */
+    public Lock lock(HttpSession session) {
+        ReentrantLock lock = stripeOf(session.getId());
+        if (!lock.tryLock()) {
+            contentions.increment();
+            lock.lock();
+        }
+        acquisitions.increment();
+        return lock;
+    }
+
+    /**
+     * Get the stripe that guards the key.
+     * @param key The session ID.
+     * @return The lock of the stripe.
+     */
+    private ReentrantLock stripeOf(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    /**
+     * Get the number of times a lock has been acquired.
+     * @return The acquisition count.
+     */
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    /**
+     * Get the number of times a lock had to be waited for.
+     * @return The contention count.
+     */
+    public long getContentions() {
+        return contentions.sum();
+    }
+}
@@ -0,0 +1,88 @@
+package pl.kmolski.hangman.controller;
+
+import pl.kmolski.hangman.model.HangmanGame;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * View of the game steps for the browser, which is redirected to the page of the outcome.
+ *
+ * Requests without a game in progress are redirected to HomeServlet, which starts a new game.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+final class GamePages implements GameSteps.View {
+    /**
+     * The view of the application.
+     */
+    static final GamePages INSTANCE = new GamePages();
+
+    /**
+     * Create the view, the servlets use `INSTANCE`.
+     */
+    private GamePages() {}
+
+    /**
+     * Redirect the client to HomeServlet.
+     * @param response The HTTP response.
+     * @throws IOException May be thrown if sending the redirect fails.
+     */
+    @Override
+    public void noGame(HttpServletResponse response) throws IOException {
+        response.sendRedirect("Home");
+    }
+
+    /**
+     * Send an HTTP 400 "Bad Request" response.
+     * @param response The HTTP response.
+     * @param message The description of the error.
+     * @throws IOException May be thrown if sending the error fails.
+     */
+    @Override
+    public void invalid(HttpServletResponse response, String message) throws IOException {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, message);
+    }
+
+    /**
+     * Redirect the client to the page of the outcome, or to HomeServlet after a skipped word.
+     * @param response The HTTP response.
+     * @param model The game, after the step.
+     * @param outcome The result of the step.
+     * @throws IOException May be thrown if sending the redirect fails.
+     */
+    @Override
+    public void show(HttpServletResponse response, HangmanGame model, GameSteps.Outcome outcome) throws IOException {
+        switch (outcome) {
+            case CORRECT:
+                response.sendRedirect("guess_correct.html");
+                break;
+            case WRONG:
+                response.sendRedirect("guess_wrong.html");
+                break;
+            case ROUND_OVER:
+                response.sendRedirect("round_over.html");
+                break;
+            case WON:
+                response.sendRedirect("game_won.html");
+                break;
+            case LOST:
+                response.sendRedirect("game_lost.html");
+                break;
+            default:
+                response.sendRedirect("Home");
+        }
+    }
+
+    /**
+     * Redirect the client to the page that explains that the game has been continued in another session.
+     * @param response The HTTP response.
+     * @param stored The reloaded game, null if the save has been deleted.
+     * @throws IOException May be thrown if sending the redirect fails.
+     */
+    @Override
+    public void conflict(HttpServletResponse response, HangmanGame stored) throws IOException {
+        response.sendRedirect("save_conflict.html");
+    }
+}
@@ -0,0 +1,45 @@
+package pl.kmolski.hangman.controller;
+
+import pl.kmolski.hangman.dao.HangmanGameDAO;
+import pl.kmolski.hangman.dao.SaveConflictException;
+import pl.kmolski.hangman.model.HangmanGame;
+
+import javax.ejb.EJB;
+import javax.servlet.annotation.WebListener;
+import javax.servlet.http.HttpSessionEvent;
+import javax.servlet.http.HttpSessionListener;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Session listener that writes the buffered state of a game when its session expires.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.3
+ */
+@WebListener
+public class GameSessionListener implements HttpSessionListener {
+    /**
+     * Injected data-access object for HangmanGame object management.
+     */
+    @EJB
+    private HangmanGameDAO gameDAO;
+
+    /**
+     * Flush the game of the destroyed session, if it has unwritten changes.
+     * @param event The session event.
+     */
+    @Override
+    public void sessionDestroyed(HttpSessionEvent event) {
+        Lock lock = GameLocks.getInstance().lock(event.getSession());
+        try {
+            HangmanGame model = (HangmanGame) event.getSession().getAttribute("model");
+            if (model != null) {
+                gameDAO.flushIfPending(model);
+            }
+        } catch (SaveConflictException e) {
+            // The save has been continued by another session, which keeps it.
+        } finally {
+            lock.unlock();
+        }
+    }
+}
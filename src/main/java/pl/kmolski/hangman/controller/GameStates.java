@@ -0,0 +1,284 @@
+package pl.kmolski.hangman.controller;
+
+import pl.kmolski.hangman.HangmanApplication;
+import pl.kmolski.hangman.model.HangmanGame;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Storage of the game in progress of the player that sent a request.
+ *
+ * In SESSION mode the game is an attribute of the HTTP session, so a cluster needs
+ * sticky sessions or session replication. In TOKEN mode the state of the game is
+ * kept by the client in a token (see GameTokens), sent in a cookie for the browser
+ * and in the `X-Hangman-Game` header for API clients, so any node can serve any
+ * request. Guesses do not read the database, the dictionary is loaded only when the
+ * game takes the next word.
+ *
+ * In TOKEN mode every update is written to the database immediately (see
+ * `HangmanApplication.getDurability()`), because a write buffered on one node would
+ * conflict with the next request of the same game on another node. Requests of the
+ * same game are not serialized: every write checks that the version of the token is
+ * still the stored version of the save, so a concurrent request or a replayed older
+ * token is rejected, and GameSteps reloads the stored state into a new token.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.2
+ */
+public final class GameStates {
+    /**
+     * Where the game in progress is stored.
+     */
+    public enum Mode {
+        /**
+         * In the HTTP session.
+         */
+        SESSION,
+        /**
+         * In a state token held by the client.
+         */
+        TOKEN
+    }
+
+    /**
+     * The name of the session attribute that holds the game in SESSION mode.
+     */
+    public static final String MODEL_ATTRIBUTE = "model";
+    /**
+     * The name of the cookie that holds the state token in TOKEN mode.
+     */
+    public static final String TOKEN_COOKIE = "hangmanGame";
+    /**
+     * The name of the header that holds the state token in TOKEN mode.
+     */
+    public static final String TOKEN_HEADER = "X-Hangman-Game";
+
+    /**
+     * The lock of the games in TOKEN mode.
+     */
+    static final Lock NO_LOCK = new NoOpLock();
+
+    /**
+     * Lock that is always available. In TOKEN mode there is no shared state to guard,
+     * so locking and unlocking does nothing. Conditions are not supported.
+     */
+    private static final class NoOpLock implements Lock {
+        /**
+         * Does nothing.
+         */
+        @Override
+        public void lock() {}
+
+        /**
+         * Does nothing.
+         */
+        @Override
+        public void lockInterruptibly() {}
+
+        /**
+         * Does nothing.
+         * @return Always true.
+         */
+        @Override
+        public boolean tryLock() {
+            return true;
+        }
+
+        /**
+         * Does nothing.
+         * @param time Ignored.
+         * @param unit Ignored.
+         * @return Always true.
+         */
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) {
+            return true;
+        }
+
+        /**
+         * Does nothing.
+         */
+        @Override
+        public void unlock() {}
+
+        /**
+         * Conditions are not supported.
+         * @return Never returns.
+         * @throws UnsupportedOperationException Always thrown.
+         */
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("The lock of TOKEN mode does not support conditions");
+        }
+    }
+
+    /**
+     * Holder of the game storage, initialized by the JVM on first access.
+     */
+    private static class InstanceHolder {
+        /**
+         * The game storage of the application.
+         */
+        private static final GameStates INSTANCE = new GameStates(HangmanApplication.getStateMode(), new GameTokens(
+                HangmanApplication.getTokenSecret().orElseGet(InstanceHolder::randomSecret),
+                HangmanApplication.getTokenMaxAge(), Clock.systemUTC()));
+
+        /**
+         * Generate a secret for a single node, used if no secret is configured.
+         * @return A random secret.
+         */
+        private static byte[] randomSecret() {
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            return secret;
+        }
+    }
+
+    /**
+     * Where the game in progress is stored.
+     */
+    private final Mode mode;
+    /**
+     * The codec of the state tokens.
+     */
+    private final GameTokens tokens;
+
+    /**
+     * Create a game storage.
+     * @param mode Where the game in progress is stored.
+     * @param tokens The codec of the state tokens.
+     */
+    GameStates(Mode mode, GameTokens tokens) {
+        this.mode = mode;
+        this.tokens = tokens;
+    }
+
+    /**
+     * Get the game storage of the application, configured by HangmanApplication.
+     * @return The game storage.
+     */
+    public static GameStates getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Get where the game in progress is stored.
+     * @return The storage mode.
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Check whether the request can have a game in progress, without creating a session.
+     * @param request The HTTP request.
+     * @return false if the request certainly has no game in progress.
+     */
+    public boolean mayHaveGame(HttpServletRequest request) {
+        return mode == Mode.TOKEN ? findToken(request) != null : request.getSession(false) != null;
+    }
+
+    /**
+     * Lock the game of the request. In SESSION mode the requests of a session are
+     * serialized with GameLocks, in TOKEN mode there is no shared state to lock and
+     * `NO_LOCK` is returned.
+     * @param request The HTTP request.
+     * @return The acquired lock, which has to be unlocked by the caller.
+     */
+    public Lock lock(HttpServletRequest request) {
+        return mode == Mode.SESSION ? GameLocks.getInstance().lock(request.getSession(true)) : NO_LOCK;
+    }
+
+    /**
+     * Load the game in progress of the request.
+     * @param request The HTTP request.
+     * @return The game, null if there is no game or the token is invalid or expired.
+     */
+    public HangmanGame load(HttpServletRequest request) {
+        if (mode == Mode.SESSION) {
+            HttpSession session = request.getSession(false);
+            return session == null ? null : (HangmanGame) session.getAttribute(MODEL_ATTRIBUTE);
+        }
+
+        String token = findToken(request);
+        return token == null ? null : tokens.decode(token).orElse(null);
+    }
+
+    /**
+     * Store the game in progress. In TOKEN mode the game has to be saved, and this has
+     * to be called before the response is committed.
+     * @param request The HTTP request.
+     * @param response The HTTP response that carries the new token.
+     * @param model The game.
+     */
+    public void store(HttpServletRequest request, HttpServletResponse response, HangmanGame model) {
+        if (mode == Mode.SESSION) {
+            request.getSession(true).setAttribute(MODEL_ATTRIBUTE, model);
+            return;
+        }
+
+        String token = tokens.encode(model);
+        response.setHeader(TOKEN_HEADER, token);
+        response.addCookie(tokenCookie(request, token, (int) tokens.getMaxAge().toSeconds()));
+    }
+
+    /**
+     * Remove the game in progress, e.g. when the game is over.
+     * @param request The HTTP request.
+     * @param response The HTTP response that removes the token.
+     */
+    public void clear(HttpServletRequest request, HttpServletResponse response) {
+        if (mode == Mode.SESSION) {
+            HttpSession session = request.getSession(false);
+            if (session != null) { session.removeAttribute(MODEL_ATTRIBUTE); }
+            return;
+        }
+
+        response.addCookie(tokenCookie(request, "", 0));
+    }
+
+    /**
+     * Find the state token of the request, the header takes precedence over the cookie.
+     * @param request The HTTP request.
+     * @return The token, null if the request does not carry one.
+     */
+    private static String findToken(HttpServletRequest request) {
+        String header = request.getHeader(TOKEN_HEADER);
+        if (header != null && !header.isEmpty()) { return header; }
+
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (cookie.getName().equals(TOKEN_COOKIE) && !cookie.getValue().isEmpty()) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Create the cookie of a state token.
+     * @param request The HTTP request.
+     * @param token The token, empty to remove the cookie.
+     * @param maxAge The maximum age of the cookie in seconds, 0 to remove it.
+     * @return The cookie.
+     */
+    private static Cookie tokenCookie(HttpServletRequest request, String token, int maxAge) {
+        var cookie = new Cookie(TOKEN_COOKIE, token);
+        String contextPath = request.getContextPath();
+        cookie.setPath(contextPath == null || contextPath.isEmpty() ? "/" : contextPath);
+        cookie.setMaxAge(maxAge);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(request.isSecure());
+        return cookie;
+    }
+}
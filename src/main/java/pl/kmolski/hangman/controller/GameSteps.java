@@ -0,0 +1,271 @@
+package pl.kmolski.hangman.controller;
+
+import pl.kmolski.hangman.dao.HangmanGameDAO;
+import pl.kmolski.hangman.dao.SaveConflictException;
+import pl.kmolski.hangman.dao.StatsStore;
+import pl.kmolski.hangman.metrics.Metrics;
+import pl.kmolski.hangman.model.HangmanGame;
+import pl.kmolski.hangman.model.InvalidGuessException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * The steps of a game in progress, shared by the HTML and the API servlets.
+ *
+ * A step locks and loads the game of the request (see GameStates), applies the action
+ * of the player, writes the game with HangmanGameDAO, stores or clears the game in
+ * progress and records the statistics. The servlets only differ in how the result is sent
+ * to the client, which is implemented by a View: GamePages redirects the browser to
+ * the result pages, the API servlets send the state of the game as JSON.
+ *
+ * If the save of the game has been modified or deleted by another session (or by an
+ * older state token of the same game), the write is rejected with a SaveConflictException.
+ * The step is then discarded: the stored state of the save is reloaded into the game
+ * in progress and shown to the player, and nothing is recorded in the statistics.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.2
+ */
+public final class GameSteps {
+    /**
+     * The result of a step.
+     */
+    public enum Outcome {
+        /**
+         * The guessed letter is in the word.
+         */
+        CORRECT("correct"),
+        /**
+         * The guessed letter is not in the word.
+         */
+        WRONG("wrong"),
+        /**
+         * The word has been guessed or the player missed too often, the next round has started.
+         */
+        ROUND_OVER("roundOver"),
+        /**
+         * The word has been skipped, the next round has started.
+         */
+        SKIPPED("skipped"),
+        /**
+         * The game is over and has been won.
+         */
+        WON("won"),
+        /**
+         * The game is over and has been lost.
+         */
+        LOST("lost");
+
+        /**
+         * The name of the outcome in the API responses.
+         */
+        private final String name;
+
+        /**
+         * Create an outcome.
+         * @param name The name of the outcome in the API responses.
+         */
+        Outcome(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Get the name of the outcome in the API responses.
+         * @return The name, e.g. "roundOver".
+         */
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Sends the result of a step to the client.
+     */
+    public interface View {
+        /**
+         * Respond to a request that has no game in progress.
+         * @param response The HTTP response.
+         * @throws IOException May be thrown if writing the response fails.
+         */
+        void noGame(HttpServletResponse response) throws IOException;
+
+        /**
+         * Respond to an invalid request, e.g. a missing or invalid guess.
+         * @param response The HTTP response.
+         * @param message The description of the error.
+         * @throws IOException May be thrown if writing the response fails.
+         */
+        void invalid(HttpServletResponse response, String message) throws IOException;
+
+        /**
+         * Send the result of a step.
+         * @param response The HTTP response.
+         * @param model The game, after the step.
+         * @param outcome The result of the step.
+         * @throws IOException May be thrown if writing the response fails.
+         */
+        void show(HttpServletResponse response, HangmanGame model, Outcome outcome) throws IOException;
+
+        /**
+         * Respond to a step that was discarded because the save has been modified by another session.
+         * @param response The HTTP response.
+         * @param stored The reloaded game, null if the save has been deleted.
+         * @throws IOException May be thrown if writing the response fails.
+         */
+        void conflict(HttpServletResponse response, HangmanGame stored) throws IOException;
+    }
+
+    /**
+     * This is a utility class - it should not be instantiated.
+     */
+    private GameSteps() {}
+
+    /**
+     * Guess a letter of the current word. The guess is taken from the `guess` parameter, and
+     * the guess and the result of the game are recorded in the player's statistics once the
+     * game has been written.
+     * @param gameDAO The DAO that writes the game.
+     * @param request The request that contains the guess.
+     * @param response The response associated with the request.
+     * @param view The view that sends the result.
+     * @throws IOException May be thrown if writing the response fails.
+     */
+    public static void guess(HangmanGameDAO gameDAO, HttpServletRequest request, HttpServletResponse response,
+                             View view) throws IOException {
+        GameStates states = GameStates.getInstance();
+        Lock lock = states.lock(request);
+        try {
+            HangmanGame model = states.load(request);
+            if (model == null) {
+                view.noGame(response);
+                return;
+            }
+
+            String guess = request.getParameter("guess");
+            if (guess == null) {
+                view.invalid(response, "`guess` parameter not found.");
+                return;
+            }
+
+            boolean isGuessCorrect;
+            try {
+                isGuessCorrect = model.tryLetter(guess);
+            } catch (InvalidGuessException e) {
+                view.invalid(response, "Invalid guess: " + e.getMessage());
+                return;
+            }
+
+            Outcome outcome;
+            try {
+                if (model.isGameOver()) {
+                    gameDAO.delete(model);
+                    outcome = model.didWin() ? Outcome.WON : Outcome.LOST;
+                } else if (model.isRoundOver()) {
+                    model.nextRound();
+                    gameDAO.commitRound(model, lock);
+                    outcome = Outcome.ROUND_OVER;
+                } else {
+                    gameDAO.update(model, lock);
+                    outcome = isGuessCorrect ? Outcome.CORRECT : Outcome.WRONG;
+                }
+            } catch (SaveConflictException e) {
+                view.conflict(response, reload(gameDAO, request, response, model));
+                return;
+            }
+
+            String playerId = PlayerId.of(request, response);
+            StatsStore.getInstance().recordGuess(playerId, isGuessCorrect);
+            finish(request, response, model, outcome, playerId);
+            view.show(response, model, outcome);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Skip the current word. If there are no more words, the lost game is recorded
+     * in the player's statistics.
+     * @param gameDAO The DAO that writes the game.
+     * @param request The HTTP request.
+     * @param response The response associated with the request.
+     * @param view The view that sends the result.
+     * @throws IOException May be thrown if writing the response fails.
+     */
+    public static void skip(HangmanGameDAO gameDAO, HttpServletRequest request, HttpServletResponse response,
+                            View view) throws IOException {
+        GameStates states = GameStates.getInstance();
+        Lock lock = states.lock(request);
+        try {
+            HangmanGame model = states.load(request);
+            if (model == null) {
+                view.noGame(response);
+                return;
+            }
+
+            model.nextRound();
+            Outcome outcome;
+            try {
+                if (model.isGameOver()) {
+                    gameDAO.delete(model);
+                    outcome = Outcome.LOST;
+                } else {
+                    gameDAO.commitRound(model, lock);
+                    outcome = Outcome.SKIPPED;
+                }
+            } catch (SaveConflictException e) {
+                view.conflict(response, reload(gameDAO, request, response, model));
+                return;
+            }
+
+            Metrics.getInstance().recordRoundSkipped();
+            finish(request, response, model, outcome, PlayerId.of(request, response));
+            view.show(response, model, outcome);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Store the game in progress after a step has been written. If the game is over, it is
+     * removed instead and the result is recorded in the player's statistics.
+     * @param request The HTTP request.
+     * @param response The HTTP response.
+     * @param model The game.
+     * @param outcome The result of the step.
+     * @param playerId The ID of the player.
+     */
+    private static void finish(HttpServletRequest request, HttpServletResponse response, HangmanGame model,
+                               Outcome outcome, String playerId) {
+        GameStates states = GameStates.getInstance();
+        if (outcome == Outcome.WON || outcome == Outcome.LOST) {
+            states.clear(request, response);
+            StatsStore.getInstance().recordGame(playerId, outcome == Outcome.WON);
+        } else {
+            states.store(request, response, model);
+        }
+    }
+
+    /**
+     * Replace the game in progress with the stored state of its save, after a write of the game
+     * has been rejected. If the save has been deleted, the game in progress is removed.
+     * @param gameDAO The DAO that loads the save.
+     * @param request The HTTP request.
+     * @param response The HTTP response.
+     * @param model The game whose write has been rejected.
+     * @return The stored game, null if the save has been deleted.
+     */
+    public static HangmanGame reload(HangmanGameDAO gameDAO, HttpServletRequest request, HttpServletResponse response,
+                                     HangmanGame model) {
+        GameStates states = GameStates.getInstance();
+        HangmanGame stored = model.getId() == null ? null : gameDAO.get(model.getId()).orElse(null);
+        if (stored == null) {
+            states.clear(request, response);
+        } else {
+            states.store(request, response, stored);
+        }
+        return stored;
+    }
+}
@@ -0,0 +1,229 @@
+package pl.kmolski.hangman.controller;
+
+import pl.kmolski.hangman.model.HangmanDictionary;
+import pl.kmolski.hangman.model.HangmanGame;
+import pl.kmolski.hangman.model.Varints;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Codec of the state tokens of saved games in progress.
+ *
+ * A token holds the per-round state of a game (the current word, the guessed letters,
+ * the miss and guessed word counts), the save ID and version, and a reference to the
+ * stored dictionary (its ID, version, word count and the number of words taken). The
+ * state is written as varints, encrypted with AES-CTR so the client cannot read the
+ * current word, and authenticated with a truncated HMAC-SHA256 (encrypt-then-MAC):
+ *
+ *   base64url(byte[16] iv, byte[] encrypted state, byte[16] tag)
+ *
+ * Both keys are derived from a shared secret, so every node that has the secret can
+ * restore the game. Tokens expire after the configured maximum age.
+ *
+ * A token stays decodable until it expires, but only the latest token of a game can
+ * change it: every step of a restored game is written with the save version of the
+ * token, and HangmanGameDAO rejects the write if the stored version is newer. Replaying
+ * an older token (e.g. to undo a wrong guess) therefore only reloads the stored state.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+final class GameTokens {
+    /**
+     * The version of the token format, written before the state.
+     */
+    private static final int FORMAT = 1;
+    /**
+     * The length of the AES-CTR initialization vector.
+     */
+    private static final int IV_LENGTH = 16;
+    /**
+     * The length of the truncated HMAC-SHA256 tag.
+     */
+    private static final int TAG_LENGTH = 16;
+
+    /**
+     * The key of the HMAC-SHA256 tag.
+     */
+    private final SecretKeySpec macKey;
+    /**
+     * The key of the AES-CTR encryption.
+     */
+    private final SecretKeySpec cipherKey;
+    /**
+     * The maximum age of a valid token.
+     */
+    private final Duration maxAge;
+    /**
+     * The clock of the issue times.
+     */
+    private final Clock clock;
+    /**
+     * Source of the initialization vectors.
+     */
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Create a codec with keys derived from the secret.
+     * @param secret The shared secret of all nodes.
+     * @param maxAge The maximum age of a valid token.
+     * @param clock The clock of the issue times.
+     */
+    GameTokens(byte[] secret, Duration maxAge, Clock clock) {
+        this.macKey = new SecretKeySpec(derive(secret, "hangman-token-mac"), "HmacSHA256");
+        this.cipherKey = new SecretKeySpec(Arrays.copyOf(derive(secret, "hangman-token-cipher"), 16), "AES");
+        this.maxAge = maxAge;
+        this.clock = clock;
+    }
+
+    /**
+     * Derive a key from the secret.
+     * @param secret The shared secret.
+     * @param purpose The purpose of the key.
+     * @return HMAC-SHA256 of the purpose, keyed with the secret.
+     */
+    private static byte[] derive(byte[] secret, String purpose) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            return mac.doFinal(purpose.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /**
+     * Get the maximum age of a valid token.
+     * @return The maximum token age.
+     */
+    Duration getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Encode the state of a saved game into a token.
+     * @param model The game, it has to be saved.
+     * @return The token.
+     * @throws IllegalStateException Thrown if the game or its dictionary has not been saved.
+     */
+    String encode(HangmanGame model) {
+        HangmanDictionary dictionary = model.getDictionary();
+        if (model.getId() == null || dictionary.getId() == null) {
+            throw new IllegalStateException("Only saved games can be stored in a token");
+        }
+
+        var bytes = new ByteArrayOutputStream(64);
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            Varints.writeLong(out, clock.instant().getEpochSecond());
+            Varints.writeLong(out, model.getId());
+            Varints.writeLong(out, model.getVersion());
+            Varints.writeLong(out, dictionary.getId());
+            Varints.writeLong(out, dictionary.getVersion());
+            Varints.writeInt(out, dictionary.getWordCount());
+            Varints.writeInt(out, dictionary.getDrawn());
+            Varints.writeString(out, model.getCurrentWord());
+            Varints.writeString(out, model.getGuessHistory());
+            Varints.writeInt(out, model.getMisses());
+            Varints.writeInt(out, model.getWordsGuessed());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        byte[] state = bytes.toByteArray();
+        byte[] token = new byte[IV_LENGTH + state.length + TAG_LENGTH];
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        System.arraycopy(iv, 0, token, 0, IV_LENGTH);
+        System.arraycopy(crypt(Cipher.ENCRYPT_MODE, iv, state), 0, token, IV_LENGTH, state.length);
+        System.arraycopy(tag(token, IV_LENGTH + state.length), 0, token, IV_LENGTH + state.length, TAG_LENGTH);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    /**
+     * Decode a token into a game. The dictionary of the game is a reference to the stored
+     * dictionary, which is loaded only when the game takes its next word.
+     * @param token The token.
+     * @return The game, or an empty Optional if the token is malformed, forged or expired.
+     */
+    Optional<HangmanGame> decode(String token) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+
+        int stateLength = bytes.length - IV_LENGTH - TAG_LENGTH;
+        if (stateLength <= 0 || !MessageDigest.isEqual(tag(bytes, IV_LENGTH + stateLength),
+                                                        Arrays.copyOfRange(bytes, IV_LENGTH + stateLength, bytes.length))) {
+            return Optional.empty();
+        }
+
+        byte[] state = crypt(Cipher.DECRYPT_MODE, Arrays.copyOf(bytes, IV_LENGTH),
+                             Arrays.copyOfRange(bytes, IV_LENGTH, IV_LENGTH + stateLength));
+        try (var in = new DataInputStream(new ByteArrayInputStream(state))) {
+            if (in.readByte() != FORMAT) { return Optional.empty(); }
+            long issuedAt = Varints.readLong(in);
+            if (clock.instant().getEpochSecond() - issuedAt > maxAge.toSeconds()) { return Optional.empty(); }
+
+            long id = Varints.readLong(in);
+            long version = Varints.readLong(in);
+            var dictionary = HangmanDictionary.reference(Varints.readLong(in), Varints.readLong(in),
+                                                         Varints.readInt(in), Varints.readInt(in));
+            String currentWord = Varints.readString(in);
+            String guessHistory = Varints.readString(in);
+            return Optional.of(HangmanGame.restore(id, version, dictionary, currentWord, guessHistory,
+                                                   Varints.readInt(in), Varints.readInt(in)));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Compute the truncated tag of the beginning of a token.
+     * @param token The token bytes.
+     * @param length The number of bytes that are authenticated (the IV and the encrypted state).
+     * @return The truncated HMAC-SHA256 tag.
+     */
+    private byte[] tag(byte[] token, int length) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(macKey);
+            mac.update(token, 0, length);
+            return Arrays.copyOf(mac.doFinal(), TAG_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /**
+     * Encrypt or decrypt the state with AES-CTR.
+     * @param mode Either `Cipher.ENCRYPT_MODE` or `Cipher.DECRYPT_MODE`.
+     * @param iv The initialization vector.
+     * @param input The state.
+     * @return The encrypted or decrypted state.
+     */
+    private byte[] crypt(int mode, byte[] iv, byte[] input) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES/CTR/NoPadding");
+            cipher.init(mode, cipherKey, new IvParameterSpec(iv));
+            return cipher.doFinal(input);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES/CTR is not available", e);
+        }
+    }
+}
@@ -3,16 +3,16 @@ package pl.kmolski.hangman.controller;
 import org.thymeleaf.context.WebContext;
 import pl.kmolski.hangman.HangmanApplication;
 import pl.kmolski.hangman.dao.HangmanGameDAO;
-import pl.kmolski.hangman.model.HangmanDictionary;
 import pl.kmolski.hangman.model.HangmanGame;
 
 import javax.ejb.EJB;
+import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.io.IOException;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Servlet implementation for the Home page.
@@ -21,9 +21,9 @@ import java.io.IOException;
  * (miss count, the current word, etc.) of the game. It is located under "/Home".
  *
  * @author Krzysztof Molski
- * @version 1.0.1
+ * @version 1.0.7
  */
-@WebServlet(name = "Home", urlPatterns = {"/Home"})
+@WebServlet(name = "Home", urlPatterns = {"/Home"}, asyncSupported = true)
 public class HomeServlet extends HttpServlet {
     /**
      * Injected data-access object for HangmanGame object management.
@@ -34,30 +34,33 @@ public class HomeServlet extends HttpServlet {
     /**
      * Display the main screen of the game. Information about the current word
      * and the miss count is displayed along with the relevant controls. If there's
-     * no model instance in the current session, a new instance is created.
+     * no model instance in the current session, a new instance is created with
+     * `HangmanApplication.createGame()`.
      * @param request The HTTP request.
      * @param response The response (an HTML page).
      * @throws IOException May be thrown if sending the redirect or creating the PrintWriter fails.
      */
     private void processRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        HttpSession session = request.getSession(true);
-        HangmanGame model = (HangmanGame) session.getAttribute("model");
+        GameStates states = GameStates.getInstance();
+        Lock lock = states.lock(request);
+        try {
+            HangmanGame model = states.load(request);
 
-        if (model == null || model.isGameOver()) {
-            model = new HangmanGame();
-            model.addWords(HangmanDictionary.DEFAULT_WORDS);
-            model.nextRound();
-            gameDAO.save(model);
+            if (model == null || model.isGameOver()) {
+                model = HangmanApplication.createGame();
+                gameDAO.save(model);
 
-            session.setAttribute("model", model);
-            response.sendRedirect("add_words.html");
-            return;
-        }
+                states.store(request, response, model);
+                response.sendRedirect("add_words.html");
+                return;
+            }
 
-        response.setContentType("text/html;charset=UTF-8");
-        var ctx = new WebContext(request, response, getServletContext());
-        ctx.setVariable("model", model);
-        HangmanApplication.getTemplateEngine().process("Home", ctx, response.getWriter());
+            var ctx = new WebContext(request, response, getServletContext());
+            ctx.setVariable("model", model);
+            HangmanApplication.getTemplateRenderer().render("Home", ctx, response);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -65,9 +68,10 @@ public class HomeServlet extends HttpServlet {
      * @param request The HTTP request.
      * @param response The response associated with the request.
      * @throws IOException May be thrown if sending the redirect fails.
+     * @throws ServletException May be thrown by the request handler.
      */
     @Override
-    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        processRequest(request, response);
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        RequestExecutor.getInstance().execute(request, response, this::processRequest);
     }
 }
@@ -1,16 +1,18 @@
 package pl.kmolski.hangman.controller;
 
 import pl.kmolski.hangman.dao.HangmanGameDAO;
+import pl.kmolski.hangman.dao.SaveConflictException;
 import pl.kmolski.hangman.model.HangmanGame;
 
 import javax.ejb.EJB;
+import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Servlet implementation for the LoadSave page.
@@ -19,9 +21,9 @@ import java.util.Optional;
  * game saves from the database and updating the session. It is located under "/LoadSave".
  *
  * @author Krzysztof Molski
- * @version 1.0.0
+ * @version 1.0.6
  */
-@WebServlet(name = "LoadSave", urlPatterns = {"/LoadSave"})
+@WebServlet(name = "LoadSave", urlPatterns = {"/LoadSave"}, asyncSupported = true)
 public class LoadSaveServlet extends HttpServlet {
     /**
      * Injected data-access object for HangmanGame object management.
@@ -31,41 +33,51 @@ public class LoadSaveServlet extends HttpServlet {
 
     /**
      * Process the save load request from the client. If a model instance does exist in the
-     * current session, it will be saved to the database before any game save is loaded.
+     * current session, its buffered changes will be saved to the database before any game save
+     * is loaded, unless its save has been modified by another session, which keeps it.
      * If the game save ID is invalid or missing, an HTTP 400 "Bad Request" response is sent back.
      * @param request The request that contains the game save ID.
      * @param response The response associated with the request.
      * @throws IOException May be thrown if sending the redirect fails.
      */
     private void processRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        HttpSession session = request.getSession(true);
-        HangmanGame model = (HangmanGame) session.getAttribute("model");
-        if (model != null) {
-            gameDAO.update(model);
-        }
+        GameStates states = GameStates.getInstance();
+        Lock lock = states.lock(request);
+        try {
+            HangmanGame model = states.load(request);
+            if (model != null) {
+                try {
+                    gameDAO.flushIfPending(model);
+                } catch (SaveConflictException e) {
+                    // The save has been continued by another session, the stale game is discarded.
+                }
+            }
 
-        String idParamString = request.getParameter("id");
-        if (idParamString == null) {
-            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "`id` parameter not found.");
-            return;
-        }
+            String idParamString = request.getParameter("id");
+            if (idParamString == null) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "`id` parameter not found.");
+                return;
+            }
 
-        long id;
-        try {
-            id = Long.parseLong(idParamString);
-        } catch (NumberFormatException e) {
-            response.sendError(HttpServletResponse.SC_BAD_REQUEST, idParamString + " is not a valid game save ID!");
-            return;
-        }
+            long id;
+            try {
+                id = Long.parseLong(idParamString);
+            } catch (NumberFormatException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, idParamString + " is not a valid game save ID!");
+                return;
+            }
 
-        Optional<HangmanGame> newModel = gameDAO.get(id);
-        if (newModel.isEmpty()) {
-            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "game save ID " + id + " does not exist!");
-            return;
-        }
+            Optional<HangmanGame> newModel = gameDAO.get(id);
+            if (newModel.isEmpty()) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "game save ID " + id + " does not exist!");
+                return;
+            }
 
-        session.setAttribute("model", newModel.get());
-        response.sendRedirect("Home");
+            states.store(request, response, newModel.get());
+            response.sendRedirect("Home");
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -73,10 +85,11 @@ public class LoadSaveServlet extends HttpServlet {
      * @param request The request that contains the guess.
      * @param response The response associated with the request.
      * @throws IOException May be thrown if sending the redirect fails.
+     * @throws ServletException May be thrown by the request handler.
      */
     @Override
-    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        processRequest(request, response);
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        RequestExecutor.getInstance().execute(request, response, this::processRequest);
     }
 
     /**
@@ -84,9 +97,10 @@ public class LoadSaveServlet extends HttpServlet {
      * @param request The request that contains the guess.
      * @param response The response associated with the request.
      * @throws IOException May be thrown if sending the redirect fails.
+     * @throws ServletException May be thrown by the request handler.
      */
     @Override
-    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        processRequest(request, response);
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        RequestExecutor.getInstance().execute(request, response, this::processRequest);
     }
 }
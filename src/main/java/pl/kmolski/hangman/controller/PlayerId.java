@@ -0,0 +1,78 @@
+package pl.kmolski.hangman.controller;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.UUID;
+
+/**
+ * Identification of players by a long-lived cookie.
+ *
+ * The cookie only holds a random player ID, the statistics of the player are kept
+ * on the server (see StatsStore). The cookie is sent to the client once, when
+ * the player is seen for the first time.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+public final class PlayerId {
+    /**
+     * The name of the cookie that holds the player ID.
+     */
+    public static final String COOKIE_NAME = "playerId";
+
+    /**
+     * This is a utility class - it should not be instantiated.
+     */
+    private PlayerId() {}
+
+    /**
+     * Get the ID of the player that sent the request. If the request does not carry
+     * a valid player ID, a new ID is generated and sent to the client in a cookie.
+     * @param request The HTTP request.
+     * @param response The response where a new cookie will be sent back.
+     * @return The player ID.
+     */
+    public static String of(HttpServletRequest request, HttpServletResponse response) {
+        String existing = find(request);
+        if (existing != null) { return existing; }
+
+        String playerId = UUID.randomUUID().toString();
+        var cookie = new Cookie(COOKIE_NAME, playerId);
+        cookie.setMaxAge(60 * 60 * 24 * 365);
+        cookie.setHttpOnly(true);
+        response.addCookie(cookie);
+        return playerId;
+    }
+
+    /**
+     * Find the ID of the player that sent the request, without assigning a new one,
+     * e.g. for requests that only read the statistics of the player.
+     * @param request The HTTP request.
+     * @return The player ID, null if the request does not carry a valid one.
+     */
+    public static String find(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (cookie.getName().equals(COOKIE_NAME) && isValid(cookie.getValue())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check whether the value is a player ID generated by `of()`.
+     * @param value The cookie value.
+     * @return true if the value is a UUID in its canonical form.
+     */
+    private static boolean isValid(String value) {
+        try {
+            return value.length() == 36 && UUID.fromString(value).toString().equals(value);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package pl.kmolski.hangman.controller;
+
+import pl.kmolski.hangman.HangmanApplication;
+import pl.kmolski.hangman.metrics.Metrics;
+import pl.kmolski.hangman.metrics.PrometheusWriter;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor of the asynchronous request path of the controllers.
+ *
+ * Requests that wait on the database are started in async mode and handled on
+ * a dedicated executor, so they do not block the container's request threads.
+ * The executor uses virtual threads when the JVM supports them (JDK 21+), or a
+ * bounded pool of platform threads otherwise. The number of requests in flight is
+ * limited: requests over the limit are rejected with HTTP 503 "Service Unavailable".
+ * Requests that are not finished within the timeout are answered with HTTP 503 by the
+ * listener of the request (see AsyncResponse), and the handler, which keeps running
+ * until it returns, cannot send anything to the client afterwards.
+ * The executor collects queueing and execution time statistics, which the executor of the
+ * application exports to the Metrics registry.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.2
+ */
+public class RequestExecutor {
+    /**
+     * Kind of threads that handle the requests.
+     */
+    public enum Mode {
+        /**
+         * A new virtual thread for every request, requires JDK 21+.
+         */
+        VIRTUAL,
+        /**
+         * A bounded pool of platform threads.
+         */
+        PLATFORM,
+        /**
+         * Requests are handled synchronously on the container threads.
+         */
+        OFF
+    }
+
+    /**
+     * Handler of a request, e.g. the `processRequest()` method of a servlet.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        /**
+         * Handle the request.
+         * @param request The HTTP request.
+         * @param response The HTTP response.
+         * @throws ServletException May be thrown by the handler.
+         * @throws IOException May be thrown by the handler.
+         */
+        void handle(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException;
+    }
+
+    /**
+     * Holder of the request executor, initialized by the JVM on first access.
+     */
+    private static class InstanceHolder {
+        /**
+         * The request executor of the application.
+         */
+        private static final RequestExecutor INSTANCE = new RequestExecutor(
+                HangmanApplication.getAsyncMode(), HangmanApplication.getAsyncPoolSize(),
+                HangmanApplication.getAsyncMaxInFlight(), HangmanApplication.getAsyncTimeout().toMillis());
+
+        static {
+            Metrics.getInstance().register("executor", INSTANCE::collectMetrics);
+        }
+    }
+
+    /**
+     * The kind of threads that handle the requests.
+     */
+    private final Mode mode;
+    /**
+     * The executor of the requests, null if requests are handled synchronously.
+     */
+    private final ExecutorService executor;
+    /**
+     * Permits for the requests in flight.
+     */
+    private final Semaphore permits;
+    /**
+     * The maximum number of requests in flight.
+     */
+    private final int maxInFlight;
+    /**
+     * The timeout of the async requests, in milliseconds.
+     */
+    private final long timeoutMs;
+
+    /**
+     * The number of requests that were accepted.
+     */
+    private final LongAdder accepted = new LongAdder();
+    /**
+     * The number of requests that were rejected because of the in-flight limit.
+     */
+    private final LongAdder rejected = new LongAdder();
+    /**
+     * The number of requests that failed with an exception.
+     */
+    private final LongAdder failed = new LongAdder();
+    /**
+     * The number of requests that were not finished within the timeout.
+     */
+    private final LongAdder timedOut = new LongAdder();
+    /**
+     * The number of requests in flight (queued or running).
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+    /**
+     * The total time that the requests waited for a thread, in nanoseconds.
+     */
+    private final LongAdder totalQueueNanos = new LongAdder();
+    /**
+     * The longest time that a request waited for a thread, in nanoseconds.
+     */
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+    /**
+     * The total time spent handling the requests, in nanoseconds.
+     */
+    private final LongAdder totalRunNanos = new LongAdder();
+
+    /**
+     * Create a request executor.
+     * @param mode The requested kind of threads, VIRTUAL falls back to PLATFORM if unsupported.
+     * @param poolSize The number of platform threads.
+     * @param maxInFlight The maximum number of requests that are queued or running.
+     * @param timeoutMs The timeout of the async requests, in milliseconds.
+     */
+    RequestExecutor(Mode mode, int poolSize, int maxInFlight, long timeoutMs) {
+        ExecutorService virtualExecutor = mode == Mode.VIRTUAL ? newVirtualThreadExecutor() : null;
+        if (virtualExecutor != null) {
+            this.mode = Mode.VIRTUAL;
+            this.executor = virtualExecutor;
+        } else if (mode != Mode.OFF) {
+            this.mode = Mode.PLATFORM;
+            this.executor = newPlatformThreadExecutor(poolSize, maxInFlight);
+        } else {
+            this.mode = Mode.OFF;
+            this.executor = null;
+        }
+        this.permits = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Get the request executor of the application.
+     * @return The unique RequestExecutor object.
+     */
+    public static RequestExecutor getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Create an executor that starts a virtual thread for every task. The factory method
+     * is looked up reflectively, because the application is compiled for Java 11.
+     * @return The executor, or null if the JVM does not support virtual threads.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Create a bounded pool of daemon platform threads.
+     * @param poolSize The number of threads.
+     * @param queueCapacity The capacity of the task queue.
+     * @return The executor.
+     */
+    private static ExecutorService newPlatformThreadExecutor(int poolSize, int queueCapacity) {
+        var threadCount = new AtomicInteger();
+        var pool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                                          new ArrayBlockingQueue<>(queueCapacity), task -> {
+            var thread = new Thread(task, "hangman-request-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Handle the request on the executor. The request is started in async mode and completed
+     * after the handler returns, or with HTTP 503 if it times out. If the executor is disabled
+     * or the request does not support async mode, the handler is called synchronously.
+     * @param request The HTTP request.
+     * @param response The HTTP response.
+     * @param handler The handler of the request.
+     * @throws ServletException May be thrown by a synchronously called handler.
+     * @throws IOException May be thrown by a synchronously called handler, or if sending the 503 response fails.
+     */
+    public void execute(HttpServletRequest request, HttpServletResponse response, Handler handler)
+            throws ServletException, IOException {
+        if (executor == null || !request.isAsyncSupported()) {
+            handler.handle(request, response);
+            return;
+        }
+
+        if (!permits.tryAcquire()) {
+            reject(response);
+            return;
+        }
+
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(timeoutMs);
+        var asyncResponse = new AsyncResponse(response, asyncContext, timedOut::increment);
+        asyncContext.addListener(asyncResponse);
+        inFlight.incrementAndGet();
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> run(request, asyncResponse, handler, queuedAt));
+            accepted.increment();
+        } catch (RejectedExecutionException e) {
+            release();
+            reject(asyncResponse);
+            asyncResponse.complete();
+        }
+    }
+
+    /**
+     * Run the handler of an async request and complete the request, unless it has timed out.
+     * @param request The HTTP request.
+     * @param response The response of the async request.
+     * @param handler The handler of the request.
+     * @param queuedAt The time when the request was queued, from `System.nanoTime()`.
+     */
+    private void run(HttpServletRequest request, AsyncResponse response, Handler handler, long queuedAt) {
+        long startedAt = System.nanoTime();
+        totalQueueNanos.add(startedAt - queuedAt);
+        maxQueueNanos.accumulateAndGet(startedAt - queuedAt, Math::max);
+        try {
+            handler.handle(request, response);
+        } catch (ServletException | IOException | RuntimeException e) {
+            failed.increment();
+            request.getServletContext().log("Request " + request.getRequestURI() + " failed", e);
+            if (!response.hasEnded() && !response.isCommitted()) {
+                try {
+                    response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                } catch (IOException | IllegalStateException ignored) {
+                    // The client is gone, there is nobody to notify.
+                }
+            }
+        } finally {
+            totalRunNanos.add(System.nanoTime() - startedAt);
+            release();
+            response.complete();
+        }
+    }
+
+    /**
+     * Release the permit of a request that has finished or could not be queued.
+     */
+    private void release() {
+        inFlight.decrementAndGet();
+        permits.release();
+    }
+
+    /**
+     * Reject a request over the in-flight limit with HTTP 503 "Service Unavailable".
+     * @param response The HTTP response.
+     * @throws IOException May be thrown if sending the error fails.
+     */
+    private void reject(HttpServletResponse response) throws IOException {
+        rejected.increment();
+        response.setHeader("Retry-After", "1");
+        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many requests in progress, try again later.");
+    }
+
+    /**
+     * Stop accepting requests and let the running requests finish.
+     */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Get the kind of threads that handle the requests.
+     * @return The effective mode, after falling back from VIRTUAL to PLATFORM if necessary.
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Get the maximum number of requests in flight.
+     * @return The in-flight limit.
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Get the number of requests in flight.
+     * @return The number of queued or running requests.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Get the number of requests that were accepted.
+     * @return The accepted request count.
+     */
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    /**
+     * Get the number of requests that were rejected because of the in-flight limit.
+     * @return The rejected request count.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Get the number of requests that failed with an exception.
+     * @return The failed request count.
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Get the number of requests that were not finished within the timeout.
+     * @return The timed out request count.
+     */
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    /**
+     * Get the total time that the requests waited for a thread.
+     * @return The total queueing time, in nanoseconds.
+     */
+    public long getTotalQueueNanos() {
+        return totalQueueNanos.sum();
+    }
+
+    /**
+     * Get the longest time that a request waited for a thread.
+     * @return The maximum queueing time, in nanoseconds.
+     */
+    public long getMaxQueueNanos() {
+        return maxQueueNanos.get();
+    }
+
+    /**
+     * Get the total time spent handling the requests.
+     * @return The total handling time, in nanoseconds.
+     */
+    public long getTotalRunNanos() {
+        return totalRunNanos.sum();
+    }
+
+    /**
+     * Write the statistics of the executor as Prometheus metrics.
+     * @param out The writer of the metric families.
+     */
+    void collectMetrics(PrometheusWriter out) {
+        out.gauges("hangman_executor_info", "The kind of threads that handle the requests.", "mode",
+                   Map.of(mode.name(), mode), ignored -> 1);
+        out.gauge("hangman_executor_in_flight", "Requests that are queued or running.", getInFlight());
+        out.gauge("hangman_executor_in_flight_max", "The maximum number of requests in flight.", getMaxInFlight());
+        Map<String, Long> outcomes = Map.of("accepted", getAccepted(), "rejected", getRejected(),
+                                            "failed", getFailed(), "timed_out", getTimedOut());
+        out.counters("hangman_executor_requests_total", "Requests by outcome.", "outcome", outcomes, Long::doubleValue);
+        out.counter("hangman_executor_queue_seconds_total", "Time that the requests waited for a thread.",
+                    getTotalQueueNanos() / PrometheusWriter.NANOS_PER_SECOND);
+        out.gauge("hangman_executor_queue_seconds_max", "Longest time that a request waited for a thread.",
+                  getMaxQueueNanos() / PrometheusWriter.NANOS_PER_SECOND);
+        out.counter("hangman_executor_run_seconds_total", "Time spent handling the requests.",
+                    getTotalRunNanos() / PrometheusWriter.NANOS_PER_SECOND);
+    }
+}
@@ -0,0 +1,23 @@
+package pl.kmolski.hangman.controller;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Context listener that shuts down the RequestExecutor when the application is undeployed.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+@WebListener
+public class RequestExecutorListener implements ServletContextListener {
+    /**
+     * Shut down the request executor, so its threads do not outlive the application.
+     * @param event The context event.
+     */
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        RequestExecutor.getInstance().shutdown();
+    }
+}
@@ -5,6 +5,7 @@ import pl.kmolski.hangman.HangmanApplication;
 import pl.kmolski.hangman.dao.HangmanGameDAO;
 
 import javax.ejb.EJB;
+import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -16,11 +17,14 @@ import java.io.IOException;
  *
  * This servlet is responsible for displaying information about the
  * game saves that exist in the database. It is located under "/Saves".
+ * The saves are shown in pages of PAGE_SIZE entries, ordered and numbered by the save ID.
+ * A page is selected with the `after` parameter (ID of the last save on the previous page),
+ * so its position is not known and the pages are not numbered.
  *
  * @author Krzysztof Molski
- * @version 1.0.0
+ * @version 1.0.4
  */
-@WebServlet(name = "Saves", urlPatterns = {"/Saves"})
+@WebServlet(name = "Saves", urlPatterns = {"/Saves"}, asyncSupported = true)
 public class SavesServlet extends HttpServlet {
     /**
      * Injected data-access object for HangmanGame object management.
@@ -28,18 +32,33 @@ public class SavesServlet extends HttpServlet {
     @EJB
     private HangmanGameDAO gameDAO;
 
+    /**
+     * The number of saves on a single page.
+     */
+    private static final int PAGE_SIZE = 20;
+
     /**
      * Display information about the game saves that are in the database: the last word that was being
      * guessed, the number of words that were guessed correctly/are remaining and the miss count.
+     * If the `after` parameter is invalid, an HTTP 400 "Bad Request" response is sent back.
      * @param request The HTTP request.
      * @param response The response (an HTML page).
      * @throws IOException May be thrown if sending the redirect or creating the PrintWriter fails.
      */
     private void processRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        response.setContentType("text/html;charset=UTF-8");
+        String afterParamString = request.getParameter("after");
+        Long after;
+        try {
+            after = afterParamString == null ? null : Long.parseLong(afterParamString);
+        } catch (NumberFormatException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid cursor: " + e.getMessage());
+            return;
+        }
+
         var ctx = new WebContext(request, response, getServletContext());
-        ctx.setVariable("saves", gameDAO.getAll());
-        HangmanApplication.getTemplateEngine().process("Saves", ctx, response.getWriter());
+        ctx.setVariable("saves", gameDAO.getSummaries(after, PAGE_SIZE));
+        ctx.setVariable("after", after);
+        HangmanApplication.getTemplateRenderer().render("Saves", ctx, response);
     }
 
     /**
@@ -47,9 +66,10 @@ public class SavesServlet extends HttpServlet {
      * @param request The HTTP request.
      * @param response The response associated with the request.
      * @throws IOException May be thrown if sending the redirect fails.
+     * @throws ServletException May be thrown by the request handler.
      */
     @Override
-    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        processRequest(request, response);
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        RequestExecutor.getInstance().execute(request, response, this::processRequest);
     }
 }
@@ -1,11 +1,11 @@
 package pl.kmolski.hangman.controller;
 
 import javax.ejb.EJB;
+import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.*;
 
 import pl.kmolski.hangman.dao.HangmanGameDAO;
-import pl.kmolski.hangman.model.HangmanGame;
 
 import java.io.IOException;
 
@@ -16,9 +16,9 @@ import java.io.IOException;
  * It is located under "/SkipWord".
  *
  * @author Krzysztof Molski
- * @version 1.0.1
+ * @version 1.0.9
  */
-@WebServlet(name = "SkipWord", urlPatterns = {"/SkipWord"})
+@WebServlet(name = "SkipWord", urlPatterns = {"/SkipWord"}, asyncSupported = true)
 public class SkipWordServlet extends HttpServlet {
     /**
      * Injected data-access object for HangmanGame object management.
@@ -27,47 +27,15 @@ public class SkipWordServlet extends HttpServlet {
     private HangmanGameDAO gameDAO;
 
     /**
-     * Process the word skip request from the client. If there's no model instance
-     * in the current session, the client is redirected to HomeServlet.
+     * Process the word skip request from the client (see `GameSteps.skip()`). If there's no
+     * model instance in the current session, the client is redirected to HomeServlet. If the save
+     * has been modified by another session, the client is redirected to a page that says so.
      * @param request The request that contains the guess.
      * @param response The response associated with the request.
      * @throws IOException May be thrown if sending the redirect fails.
      */
     private void processRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        HttpSession session = request.getSession(true);
-        HangmanGame model = (HangmanGame) session.getAttribute("model");
-        if (model == null) {
-            response.sendRedirect("Home");
-            return;
-        }
-
-        model.nextRound();
-
-        if (model.isGameOver()) {
-            gameDAO.delete(model);
-            session.removeAttribute("model");
-
-            Cookie cookie = null;
-            for (Cookie requestCookie : request.getCookies()) {
-                if (requestCookie.getName().equals("loseCount")) {
-                    cookie = requestCookie;
-                }
-            }
-
-            if (cookie != null) {
-                int count = Integer.parseInt(cookie.getValue());
-                cookie.setValue(Integer.toString(count + 1));
-            } else {
-                cookie = new Cookie("loseCount", "1");
-            }
-
-            cookie.setMaxAge(60 * 60 * 24 * 365);
-            response.addCookie(cookie);
-            response.sendRedirect("game_lost.html");
-        } else {
-            gameDAO.update(model);
-            response.sendRedirect("Home");
-        }
+        GameSteps.skip(gameDAO, request, response, GamePages.INSTANCE);
     }
 
     /**
@@ -75,10 +43,11 @@ public class SkipWordServlet extends HttpServlet {
      * @param request The HTTP request.
      * @param response The response associated with the request.
      * @throws IOException May be thrown if sending the redirect fails.
+     * @throws ServletException May be thrown by the request handler.
      */
     @Override
-    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        processRequest(request, response);
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        RequestExecutor.getInstance().execute(request, response, this::processRequest);
     }
 
     /**
@@ -86,9 +55,10 @@ public class SkipWordServlet extends HttpServlet {
      * @param request The HTTP request.
      * @param response The response associated with the request.
      * @throws IOException May be thrown if sending the redirect fails.
+     * @throws ServletException May be thrown by the request handler.
      */
     @Override
-    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        processRequest(request, response);
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        RequestExecutor.getInstance().execute(request, response, this::processRequest);
     }
 }
@@ -2,14 +2,15 @@ package pl.kmolski.hangman.controller;
 
 import org.thymeleaf.context.WebContext;
 import pl.kmolski.hangman.HangmanApplication;
+import pl.kmolski.hangman.dao.HangmanGameDAO;
+import pl.kmolski.hangman.dao.StatsStore;
 import pl.kmolski.hangman.model.HangmanGame;
 
+import javax.ejb.EJB;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.*;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Servlet implementation for the Stats page.
@@ -18,39 +19,45 @@ import java.util.stream.Collectors;
  * and history of the games. It is located under "/Stats".
  *
  * @author Krzysztof Molski
- * @version 1.0.1
+ * @version 1.0.7
  */
 @WebServlet(name = "Stats", urlPatterns = "/Stats")
 public class StatsServlet extends HttpServlet {
     /**
-     * Names of the cookies used in the HTML template.
+     * Injected data-access object for HangmanGame object management.
      */
-    private static final Set<String> COOKIE_NAMES = Set.of("winCount", "loseCount", "correctGuesses", "wrongGuesses");
+    @EJB
+    private HangmanGameDAO gameDAO;
 
     /**
      * Display information about the total number of wins/losses, correct/wrong guesses
      * number of words that were guessed correctly/are remaining and the miss count.
-     * If there's no model instance in the current session, the client is redirected to HomeServlet.
+     * The totals of the player and of all players are read from the StatsStore.
+     * The totals of the player are loaded from the database.
+     * If there's no game in progress, the client is redirected to HomeServlet.
      * @param request The HTTP request.
      * @param response The response (an HTML page).
      * @throws IOException May be thrown if sending the redirect or creating the PrintWriter fails.
      */
     private void processRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        HttpSession session = request.getSession(true);
-        HangmanGame model = (HangmanGame) session.getAttribute("model");
+        GameStates states = GameStates.getInstance();
+        Lock lock = states.lock(request);
+        try {
+            HangmanGame model = states.load(request);
 
-        if (model == null) {
-            response.sendRedirect("Home");
-            return;
-        }
+            if (model == null) {
+                response.sendRedirect("Home");
+                return;
+            }
 
-        response.setContentType("text/html;charset=UTF-8");
-        var ctx = new WebContext(request, response, getServletContext());
-        ctx.setVariable("model", model);
-        ctx.setVariables(Arrays.stream(request.getCookies())
-                               .filter(cookie -> COOKIE_NAMES.contains(cookie.getName()))
-                               .collect(Collectors.toMap(Cookie::getName, Cookie::getValue)));
-        HangmanApplication.getTemplateEngine().process("Stats", ctx, response.getWriter());
+            var ctx = new WebContext(request, response, getServletContext());
+            ctx.setVariable("model", model);
+            ctx.setVariable("stats", StatsStore.getInstance().getPlayer(PlayerId.find(request), gameDAO::findStats));
+            ctx.setVariable("globalStats", StatsStore.getInstance().getGlobal());
+            HangmanApplication.getTemplateRenderer().render("Stats", ctx, response);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -0,0 +1,157 @@
+package pl.kmolski.hangman.dao;
+
+import pl.kmolski.hangman.metrics.PrometheusWriter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the optimistic locking conflicts in HangmanGameDAO.
+ *
+ * A conflict occurs when a save is written by a session that loaded an older version
+ * of it, e.g. because the same save has been loaded into several sessions. The stale
+ * write is rejected, and either the rest of the transaction is retried, or the conflict
+ * is reported to the caller (abandoned), or it fails after too many attempts.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.2
+ */
+public class ConflictStats {
+    /**
+     * The number of transactions that have been started.
+     */
+    private final LongAdder transactions = new LongAdder();
+    /**
+     * The number of transactions that failed because of a conflict.
+     */
+    private final LongAdder conflicts = new LongAdder();
+    /**
+     * The number of transactions that were retried after a conflict.
+     */
+    private final LongAdder retries = new LongAdder();
+    /**
+     * The number of game writes that were rejected because the save had been modified or deleted.
+     */
+    private final LongAdder rejected = new LongAdder();
+    /**
+     * The number of actions that were abandoned after a conflict.
+     */
+    private final LongAdder abandoned = new LongAdder();
+    /**
+     * The number of actions that failed because conflicts persisted after all attempts.
+     */
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Record a started transaction.
+     */
+    void recordTransaction() {
+        transactions.increment();
+    }
+
+    /**
+     * Record a conflict.
+     */
+    void recordConflict() {
+        conflicts.increment();
+    }
+
+    /**
+     * Record a retried transaction.
+     */
+    void recordRetry() {
+        retries.increment();
+    }
+
+    /**
+     * Record a rejected game write.
+     */
+    void recordRejected() {
+        rejected.increment();
+    }
+
+    /**
+     * Record an action that was abandoned and reported to the caller.
+     */
+    void recordAbandoned() {
+        abandoned.increment();
+    }
+
+    /**
+     * Record an action that failed after all attempts.
+     */
+    void recordFailure() {
+        failures.increment();
+    }
+
+    /**
+     * Get the number of transactions that have been started.
+     * @return The transaction count.
+     */
+    public long getTransactions() {
+        return transactions.sum();
+    }
+
+    /**
+     * Get the number of conflicts.
+     * @return The conflict count.
+     */
+    public long getConflicts() {
+        return conflicts.sum();
+    }
+
+    /**
+     * Get the fraction of transactions that failed because of a conflict.
+     * @return The conflict rate, between 0 and 1.
+     */
+    public double getConflictRate() {
+        long count = transactions.sum();
+        return count == 0 ? 0 : (double) conflicts.sum() / count;
+    }
+
+    /**
+     * Get the number of retried transactions.
+     * @return The retry count.
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * Get the number of game writes that were rejected because the save had been modified or deleted.
+     * @return The rejected write count.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Get the number of abandoned actions.
+     * @return The abandoned action count.
+     */
+    public long getAbandoned() {
+        return abandoned.sum();
+    }
+
+    /**
+     * Get the number of actions that failed after all attempts.
+     * @return The failure count.
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Write the statistics as Prometheus counters.
+     * @param out The writer of the metric families.
+     */
+    void collectMetrics(PrometheusWriter out) {
+        out.counter("hangman_dao_transactions_total", "Transactions that have been started.", getTransactions());
+        out.counter("hangman_dao_conflicts_total", "Transactions that failed because of a conflict.", getConflicts());
+        out.counter("hangman_dao_conflict_retries_total", "Transactions that were retried after a conflict.", getRetries());
+        out.counter("hangman_dao_rejected_writes_total", "Game writes that were rejected because of a conflict.",
+                    getRejected());
+        out.counter("hangman_dao_abandoned_total", "Actions that were abandoned after a conflict.", getAbandoned());
+        out.counter("hangman_dao_conflict_failures_total", "Actions that failed because conflicts persisted.",
+                    getFailures());
+    }
+}
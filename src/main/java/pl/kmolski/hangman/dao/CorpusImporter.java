@@ -0,0 +1,251 @@
+package pl.kmolski.hangman.dao;
+
+import pl.kmolski.hangman.model.CorpusDigest;
+import pl.kmolski.hangman.model.WordCorpus;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Streaming importer of word files into the WordCorpus tables.
+ *
+ * The words are read line by line, normalized and deduplicated in chunks of
+ * CHUNK_SIZE lines, and written with JDBC batch inserts. Only one chunk is kept
+ * in memory at a time, and the corpus digest is computed incrementally. Duplicates
+ * across chunks are removed before a chunk is written: the words of the chunk are
+ * looked up among the words of the corpus that are already stored (through the
+ * `corpus_words_word` index), in queries of LOOKUP_SIZE words. The stored corpus is
+ * therefore the same as a WordCorpus created from the words of the file. The corpus
+ * row is inserted with a placeholder digest, which is replaced with the real digest
+ * once all words have been written. If an identical corpus has been stored in the
+ * meantime, even by a concurrent import, the new corpus is dropped and the stored one
+ * is used. The imported corpus is returned as a reference, its words are not read back.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.3
+ */
+final class CorpusImporter {
+    /**
+     * The number of lines that are processed (and inserted in one batch) at a time.
+     */
+    static final int CHUNK_SIZE = 10_000;
+    /**
+     * The number of words that are looked up among the stored words in one query.
+     */
+    static final int LOOKUP_SIZE = 500;
+
+    /**
+     * Logger for the import progress.
+     */
+    private static final Logger LOGGER = Logger.getLogger(CorpusImporter.class.getName());
+
+    /**
+     * The JDBC connection of the current transaction.
+     */
+    private final Connection connection;
+    /**
+     * Progress of the import.
+     */
+    private final ImportProgress progress;
+    /**
+     * Digest of the words that have been written so far.
+     */
+    private final CorpusDigest digest = new CorpusDigest();
+    /**
+     * The number of words that have been written so far.
+     */
+    private int wordCount = 0;
+
+    /**
+     * Create an importer that writes to the connection.
+     * @param connection The JDBC connection of the current transaction.
+     * @param progress Progress of the import.
+     */
+    CorpusImporter(Connection connection, ImportProgress progress) {
+        this.connection = connection;
+        this.progress = progress;
+    }
+
+    /**
+     * Import all words from the reader into a new corpus. If a corpus with the same
+     * words already exists, the new corpus is dropped and the existing one is used.
+     * @param reader Reader of the word file, one word per line.
+     * @return A reference to the corpus, or null if the file does not contain any words.
+     * @throws SQLException Thrown if writing to the database fails.
+     * @throws UncheckedIOException Thrown if reading the word file fails.
+     */
+    WordCorpus importWords(BufferedReader reader) throws SQLException {
+        long corpusId = insertCorpus();
+        try (var insert = connection.prepareStatement(
+                "INSERT INTO corpus_words (corpus_id, word_index, word) VALUES (?, ?, ?)")) {
+            Set<String> chunk = new LinkedHashSet<>();
+            int lines = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                String word = WordCorpus.normalizeWord(line);
+                if (!word.isEmpty()) { chunk.add(word); }
+                if (++lines == CHUNK_SIZE) {
+                    writeChunk(insert, corpusId, chunk, lines);
+                    lines = 0;
+                }
+            }
+            writeChunk(insert, corpusId, chunk, lines);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        progress.finish();
+        LOGGER.info(() -> "Finished word import: " + progress);
+        if (wordCount == 0) {
+            dropCorpus(corpusId, -1);
+            return null;
+        }
+        return WordCorpus.reference(resolveDigest(corpusId), wordCount);
+    }
+
+    /**
+     * Write a chunk of words as a single JDBC batch. Words that have already been written
+     * by a previous chunk are skipped.
+     * @param insert The prepared INSERT statement.
+     * @param corpusId The ID of the new corpus.
+     * @param chunk The deduplicated words of the chunk, cleared after writing.
+     * @param lines The number of lines in the chunk.
+     * @throws SQLException Thrown if the batch insert fails.
+     */
+    private void writeChunk(PreparedStatement insert, long corpusId, Set<String> chunk, int lines) throws SQLException {
+        if (wordCount > 0) {
+            removeStored(corpusId, chunk);
+        }
+        for (String word : chunk) {
+            insert.setLong(1, corpusId);
+            insert.setInt(2, wordCount++);
+            insert.setString(3, word);
+            insert.addBatch();
+            digest.add(word);
+        }
+        insert.executeBatch();
+
+        progress.chunkDone(lines, chunk.size());
+        LOGGER.fine(() -> "Imported word chunk: " + progress);
+        chunk.clear();
+    }
+
+    /**
+     * Remove the words that are already stored in the new corpus from a chunk.
+     * @param corpusId The ID of the new corpus.
+     * @param chunk The deduplicated words of the chunk.
+     * @throws SQLException Thrown if a query fails.
+     */
+    private void removeStored(long corpusId, Set<String> chunk) throws SQLException {
+        String placeholders = String.join(", ", Collections.nCopies(LOOKUP_SIZE, "?"));
+        try (var select = connection.prepareStatement(
+                "SELECT word FROM corpus_words WHERE corpus_id = ? AND word IN (" + placeholders + ")")) {
+            select.setLong(1, corpusId);
+            var words = new ArrayList<>(chunk);
+            for (int start = 0; start < words.size(); start += LOOKUP_SIZE) {
+                for (int i = 0; i < LOOKUP_SIZE; ++i) {
+                    // Unused parameters are NULL, which never matches a word.
+                    select.setString(i + 2, start + i < words.size() ? words.get(start + i) : null);
+                }
+                try (var stored = select.executeQuery()) {
+                    while (stored.next()) {
+                        chunk.remove(stored.getString(1));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Insert the corpus row with a unique placeholder digest, which cannot be equal to a
+     * hex-encoded digest. The digest is filled in after all words are written.
+     * @return The ID of the new corpus.
+     * @throws SQLException Thrown if the insert fails.
+     */
+    private long insertCorpus() throws SQLException {
+        try (var insert = connection.prepareStatement("INSERT INTO word_corpora (digest) VALUES (?)",
+                                                      Statement.RETURN_GENERATED_KEYS)) {
+            insert.setString(1, "import:" + UUID.randomUUID());
+            insert.executeUpdate();
+            try (var keys = insert.getGeneratedKeys()) {
+                keys.next();
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * Store the digest of the new corpus, or replace the corpus with an identical existing one.
+     * If the identical corpus is stored concurrently, after the lookup, the update violates the
+     * unique digest: it is rolled back to a savepoint and the stored corpus is looked up again.
+     * @param corpusId The ID of the new corpus.
+     * @return The ID of the corpus that should be used.
+     * @throws SQLException Thrown if a query fails.
+     */
+    private long resolveDigest(long corpusId) throws SQLException {
+        String hex = digest.toHex();
+        long existingId = findCorpus(hex);
+        if (existingId >= 0) {
+            return dropCorpus(corpusId, existingId);
+        }
+
+        Savepoint savepoint = connection.setSavepoint();
+        try (var update = connection.prepareStatement("UPDATE word_corpora SET digest = ? WHERE corpus_id = ?")) {
+            update.setString(1, hex);
+            update.setLong(2, corpusId);
+            update.executeUpdate();
+        } catch (SQLException e) {
+            // SQLSTATE class 23 is an integrity constraint violation, here the unique digest.
+            if (e.getSQLState() == null || !e.getSQLState().startsWith("23")) { throw e; }
+            connection.rollback(savepoint);
+            existingId = findCorpus(hex);
+            if (existingId < 0) { throw e; }
+            return dropCorpus(corpusId, existingId);
+        }
+        connection.releaseSavepoint(savepoint);
+        return corpusId;
+    }
+
+    /**
+     * Find a stored corpus by its digest.
+     * @param hex The hex-encoded digest.
+     * @return The ID of the corpus, or -1 if it does not exist.
+     * @throws SQLException Thrown if the query fails.
+     */
+    private long findCorpus(String hex) throws SQLException {
+        try (var select = connection.prepareStatement("SELECT corpus_id FROM word_corpora WHERE digest = ?")) {
+            select.setString(1, hex);
+            try (var existing = select.executeQuery()) {
+                return existing.next() ? existing.getLong(1) : -1;
+            }
+        }
+    }
+
+    /**
+     * Delete the new corpus and its words.
+     * @param corpusId The ID of the new corpus.
+     * @param replacementId The ID that is returned instead.
+     * @return The replacement ID.
+     * @throws SQLException Thrown if the delete fails.
+     */
+    private long dropCorpus(long corpusId, long replacementId) throws SQLException {
+        for (String table : new String[]{"corpus_words", "word_corpora"}) {
+            try (var delete = connection.prepareStatement("DELETE FROM " + table + " WHERE corpus_id = ?")) {
+                delete.setLong(1, corpusId);
+                delete.executeUpdate();
+            }
+        }
+        return replacementId;
+    }
+}
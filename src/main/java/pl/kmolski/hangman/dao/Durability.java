@@ -0,0 +1,26 @@
+package pl.kmolski.hangman.dao;
+
+/**
+ * Durability guarantees for game state updates.
+ *
+ * The level selects which updates HangmanGameDAO writes to the database immediately.
+ * Updates that are not written immediately are buffered in the write-behind buffer and
+ * flushed in batches on the configured interval, on session expiry and on shutdown.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+public enum Durability {
+    /**
+     * Every update (after every guess) is written immediately.
+     */
+    EVERY_GUESS,
+    /**
+     * Updates at the end of a round are written immediately, guesses are buffered.
+     */
+    EVERY_ROUND,
+    /**
+     * All updates are buffered and written only when the buffer is flushed.
+     */
+    INTERVAL
+}
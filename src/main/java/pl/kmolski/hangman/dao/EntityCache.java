@@ -0,0 +1,242 @@
+package pl.kmolski.hangman.dao;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Bounded in-process cache of the entities loaded by HangmanGameDAO.
+ *
+ * The least recently used entry is evicted when the cache is full. The entries are kept
+ * in a LinkedHashMap in access order, which is guarded by the monitor of the cache: every
+ * operation is O(1), so the lock is only held briefly. A cache with a maximum size of 0
+ * is disabled and never holds any entries. The cache also collects hit, miss, eviction
+ * and invalidation statistics.
+ *
+ * A value that is loaded while its entity is written by another thread can be outdated
+ * by the time it is cached, after the write has already invalidated the key. To prevent
+ * this, the loader takes the invalidation stamp of the key with `stamp()` before it reads
+ * the value, and caches it with `put(key, value, stamp)`, which drops the value if the key
+ * has been invalidated in the meantime. The stamps are striped by the key hash, so an
+ * invalidation of another key in the same stripe only drops a value that could be cached.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the cached values, which have to be immutable or safely shared.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+public class EntityCache<K, V> {
+    /**
+     * The number of stripes of the invalidation stamps, a power of two.
+     */
+    private static final int STAMP_STRIPES = 64;
+
+    /**
+     * The maximum number of entries.
+     */
+    private final int maxSize;
+    /**
+     * The cached entries, from the least to the most recently used.
+     */
+    private final LinkedHashMap<K, V> entries;
+    /**
+     * The invalidation counts of the keys, striped by the key hash and guarded by the monitor of the cache.
+     */
+    private final long[] stamps = new long[STAMP_STRIPES];
+
+    /**
+     * The number of lookups that found a usable entry.
+     */
+    private final LongAdder hits = new LongAdder();
+    /**
+     * The number of lookups that did not find a usable entry.
+     */
+    private final LongAdder misses = new LongAdder();
+    /**
+     * The number of entries that were evicted because the cache was full.
+     */
+    private final LongAdder evictions = new LongAdder();
+    /**
+     * The number of entries that were removed because they were modified, deleted or outdated.
+     */
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Create an empty cache.
+     * @param maxSize The maximum number of entries, 0 disables the cache.
+     */
+    public EntityCache(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("The maximum cache size cannot be negative");
+        }
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() <= EntityCache.this.maxSize) { return false; }
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Get the cached value of the key, and mark it as the most recently used.
+     * @param key The key.
+     * @return The value, or null if it is not cached.
+     */
+    public V get(K key) {
+        return get(key, value -> true);
+    }
+
+    /**
+     * Get the cached value of the key if it is usable, and mark it as the most recently used.
+     * An unusable value (e.g. an older version than required) is invalidated.
+     * @param key The key.
+     * @param isUsable Checks whether the cached value can be used.
+     * @return The value, or null if no usable value is cached.
+     */
+    public V get(K key, Predicate<? super V> isUsable) {
+        V value;
+        synchronized (this) {
+            value = entries.get(key);
+            if (value != null && !isUsable.test(value)) {
+                entries.remove(key);
+                invalidations.increment();
+                value = null;
+            }
+        }
+
+        (value == null ? misses : hits).increment();
+        return value;
+    }
+
+    /**
+     * Cache the value of the key, possibly evicting the least recently used entry.
+     * @param key The key.
+     * @param value The value.
+     */
+    public void put(K key, V value) {
+        if (maxSize == 0) { return; }
+        synchronized (this) {
+            entries.put(key, value);
+        }
+    }
+
+    /**
+     * Get the invalidation stamp of the key, which has to be taken before the value of the key
+     * is loaded and then passed to `put(key, value, stamp)`.
+     * @param key The key.
+     * @return The stamp.
+     */
+    public synchronized long stamp(K key) {
+        return stamps[stripeOf(key)];
+    }
+
+    /**
+     * Cache a loaded value of the key, unless the key has been invalidated since the stamp was
+     * taken, i.e. the value may be older than a write that has already been made.
+     * @param key The key.
+     * @param value The value, loaded after the stamp was taken.
+     * @param stamp The invalidation stamp of the key from `stamp()`.
+     * @return true if the value has been cached.
+     */
+    public boolean put(K key, V value, long stamp) {
+        if (maxSize == 0) { return false; }
+        synchronized (this) {
+            if (stamps[stripeOf(key)] != stamp) { return false; }
+            entries.put(key, value);
+        }
+        return true;
+    }
+
+    /**
+     * Remove the cached value of the key, e.g. because the entity was modified or deleted.
+     * Values of the key that are being loaded are not cached.
+     * @param key The key.
+     */
+    public void invalidate(K key) {
+        synchronized (this) {
+            ++stamps[stripeOf(key)];
+            if (entries.remove(key) == null) { return; }
+        }
+        invalidations.increment();
+    }
+
+    /**
+     * Get the stripe of the invalidation stamp of the key.
+     * @param key The key.
+     * @return The index of the stripe.
+     */
+    private static int stripeOf(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STAMP_STRIPES - 1);
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Get the maximum number of entries.
+     * @return The maximum cache size, 0 if the cache is disabled.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Get the number of cached entries.
+     * @return The cache size.
+     */
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * Get the number of lookups that found a usable entry.
+     * @return The hit count.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of lookups that did not find a usable entry.
+     * @return The miss count.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the fraction of the lookups that found a usable entry.
+     * @return The hit rate, 0 if there were no lookups.
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        return lookups == 0 ? 0.0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * Get the number of entries that were evicted because the cache was full.
+     * @return The eviction count.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Get the number of entries that were removed because they were modified, deleted or outdated.
+     * @return The invalidation count.
+     */
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+}
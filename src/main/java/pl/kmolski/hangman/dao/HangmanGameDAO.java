@@ -1,92 +1,852 @@
 package pl.kmolski.hangman.dao;
 
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
+import pl.kmolski.hangman.HangmanApplication;
+import pl.kmolski.hangman.metrics.DaoMetricsInterceptor;
+import pl.kmolski.hangman.metrics.Metrics;
+import pl.kmolski.hangman.metrics.PrometheusWriter;
+import pl.kmolski.hangman.model.GameSaveSummary;
+import pl.kmolski.hangman.model.HangmanDictionary;
 import pl.kmolski.hangman.model.HangmanGame;
+import pl.kmolski.hangman.model.StatsRecord;
+import pl.kmolski.hangman.model.WordCorpus;
 
+import javax.annotation.Resource;
+import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.interceptor.Interceptors;
 import javax.persistence.EntityManager;
-import javax.persistence.EntityTransaction;
+import javax.persistence.OptimisticLockException;
 import javax.persistence.PersistenceContext;
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaQuery;
-import java.io.Serializable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.locks.Lock;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * DAO class for HangmanGame objects.
  *
  * This class provides methods that save, delete, modify and fetch
- * HangmanGame objects from the application database.
+ * HangmanGame objects from the application database. Word corpora of the
+ * saved games are shared: a new corpus is replaced with an identical stored one.
+ * New corpora are looked up (or stored) before the games are written, each in its
+ * own transaction, so if the same corpus is stored concurrently by another session,
+ * only the lookup fails on the unique digest, and it is repeated in a new transaction.
+ *
+ * Depending on the configured Durability, updates are either written immediately or
+ * buffered in a write-behind buffer that coalesces the updates of each game. The games
+ * in the HTTP sessions remain the authoritative state, and the buffer is flushed in
+ * batches by WriteBehindFlusher, when a session expires and on shutdown. A buffered game
+ * is only written by another thread while holding the lock of its session, which is
+ * passed to `update()` and `commitRound()`; games whose session is in a request are
+ * left in the buffer for the next flush.
+ *
+ * Games that are already stored are written with targeted JPQL updates: one UPDATE of
+ * the per-guess fields, and one UPDATE of the draw order if words have been taken.
+ * A full merge is only used after corpora are added.
+ *
+ * The same save can be loaded into many sessions, so writes use optimistic locking:
+ * every update checks and increments the version of the save. If the save has been
+ * written or deleted by another session in the meantime, the stale write is rejected:
+ * it is left out of its batch, the cached snapshot of the save is invalidated, and
+ * the conflict is reported to the caller with a SaveConflictException, so the session
+ * can reload the current state of the save. A save is never silently duplicated.
+ * Stale buffered writes (which have no caller) are dropped, the session gets the
+ * conflict on its next write. Conflicts are counted in ConflictStats.
+ *
+ * Transactions are managed by the container. The public methods do not run in the
+ * caller's transaction (NOT_SUPPORTED), because a conflict has to be retried in a new
+ * transaction: every attempt calls `computeInsideTransaction()` (REQUIRES_NEW) through
+ * the business object of the bean, so the call is intercepted by the container. Several
+ * games can be saved or written in a single transaction with `saveAll()` and `flushAll()`.
+ *
+ * Loaded games, dictionaries and word corpora are cached in bounded LRU caches (see
+ * EntityCache), sized by HangmanApplication. Games and dictionaries are mutable and
+ * owned by the sessions that load them, so they are cached as immutable snapshots of
+ * their externalized form, and every load creates a new instance. Corpora are immutable
+ * and shared. The cached snapshots are invalidated after a save is written, deleted or
+ * found to conflict. A game that is loaded concurrently with a write of its save is only
+ * cached if the save has not been invalidated since the load started (see EntityCache),
+ * and cached dictionaries are only used if they are not older than the required version.
+ * In TOKEN mode the games are not cached by default, because the saves are written by
+ * every node and a node cannot invalidate the caches of the others.
+ *
+ * The latency of every business method call is recorded by DaoMetricsInterceptor. The
+ * statistics of the caches, the conflicts and the write-behind buffer are exported to the
+ * Metrics registry when the class is initialized.
  *
  * @author Krzysztof Molski
- * @version 1.0.1
+ * @version 1.0.21
  */
 @Stateless
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+@Interceptors(DaoMetricsInterceptor.class)
 public class HangmanGameDAO {
     /**
      * The entity manager managed by the server persistence context.
      */
     @PersistenceContext(unitName = "hangman")
     private EntityManager em;
+    /**
+     * The context of the bean, null outside the container.
+     */
+    @Resource
+    private SessionContext context;
+
+    /**
+     * Games with unwritten changes, shared by all DAO instances.
+     */
+    private static final WriteBehindBuffer pendingWrites = new WriteBehindBuffer();
+    /**
+     * Statistics of the optimistic locking conflicts, shared by all DAO instances.
+     */
+    private static final ConflictStats conflictStats = new ConflictStats();
+    /**
+     * Snapshots of the loaded games, keyed by the save ID and shared by all DAO instances.
+     */
+    private static final EntityCache<Long, Snapshot> games =
+            new EntityCache<>(HangmanApplication.getGameCacheSize());
+    /**
+     * Snapshots of the loaded dictionaries, keyed by the dictionary ID and shared by all DAO instances.
+     */
+    private static final EntityCache<Long, Snapshot> dictionaries =
+            new EntityCache<>(HangmanApplication.getDictionaryCacheSize());
+    /**
+     * The loaded word corpora, keyed by the corpus ID and shared by all DAO instances.
+     */
+    private static final EntityCache<Long, WordCorpus> corpora =
+            new EntityCache<>(HangmanApplication.getCorpusCacheSize());
+    /**
+     * The maximum number of attempts of a transaction that fails because of conflicts.
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    static {
+        Metrics.getInstance().register("dao", HangmanGameDAO::collectMetrics);
+    }
+
+    /**
+     * Immutable snapshot of a cached game or dictionary.
+     */
+    private static final class Snapshot {
+        /**
+         * The version of the entity when the snapshot was taken.
+         */
+        private final long version;
+        /**
+         * The externalized form of the entity.
+         */
+        private final byte[] bytes;
+
+        /**
+         * Create a snapshot.
+         * @param version The version of the entity.
+         * @param bytes The externalized form of the entity.
+         */
+        private Snapshot(long version, byte[] bytes) {
+            this.version = version;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * The zero-argument constructor required for the EJB Stateless annotation.
+     */
+    public HangmanGameDAO() {}
+
+    /**
+     * Create a DAO that uses the provided entity manager outside the container,
+     * e.g. an application-managed entity manager in tests.
+     * @param em The entity manager.
+     */
+    HangmanGameDAO(EntityManager em) {
+        this.em = em;
+    }
 
     /**
      * Persist the game in the database.
      * @param model The game model that will be saved.
      */
     public void save(HangmanGame model) {
-        executeInsideTransaction(em -> em.persist(model));
+        saveAll(List.of(model));
+    }
+
+    /**
+     * Persist several new games in a single transaction.
+     * @param models The game models that will be saved.
+     */
+    public void saveAll(Collection<HangmanGame> models) {
+        internCorpora(models);
+        executeInsideTransaction(em -> models.forEach(em::persist));
+        models.forEach(model -> model.getDictionary().markWritten());
+    }
+
+    /**
+     * Update the save of the current game after a guess. The update is written
+     * immediately only if the durability level is EVERY_GUESS, or if the game
+     * does not have a save yet.
+     * @param model The game model that will be updated.
+     * @param guard The lock that guards the game (the lock of its session), held by the caller.
+     * @throws SaveConflictException Thrown if the save has been modified or deleted by another session.
+     */
+    public void update(HangmanGame model, Lock guard) {
+        if (HangmanApplication.getDurability() == Durability.EVERY_GUESS || model.getId() == null) {
+            flush(model, guard);
+        } else {
+            buffer(model, guard);
+        }
+    }
+
+    /**
+     * Update the save of the current game at the end of a round. The update is
+     * buffered only if the durability level is INTERVAL and the game has a save.
+     * @param model The game model that will be updated.
+     * @param guard The lock that guards the game (the lock of its session), held by the caller.
+     * @throws SaveConflictException Thrown if the save has been modified or deleted by another session.
+     */
+    public void commitRound(HangmanGame model, Lock guard) {
+        if (HangmanApplication.getDurability() == Durability.INTERVAL && model.getId() != null) {
+            buffer(model, guard);
+        } else {
+            flush(model, guard);
+        }
+    }
+
+    /**
+     * Put the game into the write-behind buffer. If another instance of the same save
+     * is buffered, it is written immediately, so its changes are not lost. If the session
+     * of the other instance is in a request, this game is written immediately instead,
+     * and the other instance is rejected when it is flushed.
+     * @param model The game model that will be buffered.
+     * @param guard The lock that guards the game, held by the caller.
+     * @throws SaveConflictException Thrown if the game is written and its save has been modified
+     *                               or deleted by another session.
+     */
+    private void buffer(HangmanGame model, Lock guard) {
+        WriteBehindBuffer.Pending displaced = pendingWrites.markDirty(new WriteBehindBuffer.Pending(model, guard));
+        if (displaced == null) { return; }
+
+        if (displaced.getGuard().tryLock()) {
+            try {
+                // The displaced instance belongs to another session, which gets a conflict on its next write.
+                writeBatch(List.of(displaced));
+            } finally {
+                displaced.getGuard().unlock();
+            }
+        } else {
+            pendingWrites.remove(model);
+            pendingWrites.restore(displaced);
+            flush(model, guard);
+        }
+    }
+
+    /**
+     * Write the current state of the game to the database immediately.
+     * @param model The game model that will be written.
+     * @throws SaveConflictException Thrown if the save has been modified or deleted by another session.
+     */
+    public void flush(HangmanGame model) {
+        flushAll(List.of(model));
+    }
+
+    /**
+     * Write the current state of the game to the database immediately. If the transaction
+     * fails, the game is put back into the write-behind buffer.
+     * @param model The game model that will be written.
+     * @param guard The lock that guards the game, held by the caller.
+     * @throws SaveConflictException Thrown if the save has been modified or deleted by another session.
+     */
+    private void flush(HangmanGame model, Lock guard) {
+        pendingWrites.remove(model);
+        OptimisticLockException conflict = writeBatch(List.of(new WriteBehindBuffer.Pending(model, guard)));
+        if (conflict != null) {
+            throw new SaveConflictException(conflict);
+        }
+    }
+
+    /**
+     * Write the current state of several games to the database in a single transaction.
+     * The games are owned by the caller, they are not buffered if the transaction fails.
+     * @param models The game models that will be written.
+     * @throws SaveConflictException Thrown if the save of a game has been modified or deleted by another
+     *                               session, the other games have been written.
+     */
+    public void flushAll(Collection<HangmanGame> models) {
+        List<WriteBehindBuffer.Pending> batch = new ArrayList<>(models.size());
+        for (HangmanGame model : models) {
+            pendingWrites.remove(model);
+            batch.add(new WriteBehindBuffer.Pending(model, null));
+        }
+        OptimisticLockException conflict = writeBatch(batch);
+        if (conflict != null) {
+            throw new SaveConflictException(conflict);
+        }
+    }
+
+    /**
+     * Write the game to the database only if it has buffered changes (or no save yet), e.g.
+     * before its session expires or the game is replaced. A game without unwritten changes is
+     * not written, so its save version is not incremented for the other sessions of the save.
+     * @param model The game model, guarded by the caller.
+     * @return true if the game has been written.
+     * @throws SaveConflictException Thrown if the save has been modified or deleted by another session.
+     */
+    public boolean flushIfPending(HangmanGame model) {
+        if (model.getId() != null && !pendingWrites.remove(model)) {
+            return false;
+        }
+        flush(model);
+        return true;
     }
 
     /**
-     * Update the save of the current game in the database.
+     * Write all buffered games to the database in a single transaction. Games whose session
+     * is in a request are left in the buffer.
+     */
+    public void flushPending() {
+        writeGuarded(pendingWrites.drain());
+    }
+
+    /**
+     * Write games that have been removed from the write-behind buffer, while holding their locks.
+     * Games whose lock is held by a request are put back into the buffer, for the next flush.
+     * @param buffered The buffered games and their locks.
+     */
+    private void writeGuarded(List<WriteBehindBuffer.Pending> buffered) {
+        List<WriteBehindBuffer.Pending> batch = new ArrayList<>(buffered.size());
+        for (WriteBehindBuffer.Pending pending : buffered) {
+            if (pending.getGuard().tryLock()) {
+                batch.add(pending);
+            } else {
+                pendingWrites.restore(pending);
+            }
+        }
+        try {
+            if (!batch.isEmpty()) { writeBatch(batch); }
+        } finally {
+            batch.forEach(pending -> pending.getGuard().unlock());
+        }
+    }
+
+    /**
+     * Write a batch of games in a single transaction. Games whose save has been modified or
+     * deleted by another session are rejected, and the rest of the batch is retried. If the
+     * transaction fails otherwise, the guarded games are put back into the write-behind buffer.
+     * @param batch The games that will be written and their locks, held by the caller.
+     * @return The conflict of the first rejected game, or null if all games have been written.
+     */
+    private OptimisticLockException writeBatch(List<WriteBehindBuffer.Pending> batch) {
+        long start = System.nanoTime();
+        List<WriteBehindBuffer.Pending> remaining = new ArrayList<>(batch);
+        OptimisticLockException rejected = null;
+        List<Runnable> written = new ArrayList<>(batch.size());
+        try {
+            internCorpora(remaining.stream().map(WriteBehindBuffer.Pending::getModel).collect(Collectors.toList()));
+            // Every rejection removes a game from the batch, so the retries are bounded by its size.
+            while (!remaining.isEmpty()) {
+                try {
+                    executeInsideTransaction(em -> {
+                        written.clear();
+                        remaining.forEach(pending -> written.add(write(em, pending.getModel())));
+                    });
+                    break;
+                } catch (RuntimeException e) {
+                    OptimisticLockException conflict = findConflict(e);
+                    if (conflict == null) { throw e; }
+
+                    conflictStats.recordConflict();
+                    em.clear();
+                    rejectConflicting(remaining, conflict);
+                    if (rejected == null) { rejected = conflict; }
+                    if (!remaining.isEmpty()) { conflictStats.recordRetry(); }
+                }
+            }
+        } catch (RuntimeException e) {
+            remaining.forEach(pendingWrites::restore);
+            throw e;
+        }
+
+        if (!remaining.isEmpty()) {
+            // The new versions are only taken over after the transaction has been committed.
+            written.forEach(Runnable::run);
+            remaining.forEach(pending -> invalidate(pending.getModel()));
+            pendingWrites.recordFlush(remaining.size(), System.nanoTime() - start);
+        }
+        return rejected;
+    }
+
+    /**
+     * Write the changed state of the game. Stored games are updated with targeted UPDATE
+     * statements that check the version of the save, games with added corpora are then merged.
+     * Games without a save are persisted. The corpora of the game must have been interned.
+     * @param em The entity manager of the current transaction.
+     * @param model The game model that will be written.
+     * @return Action that marks the game as written, to be run after the transaction is committed.
+     * @throws OptimisticLockException Thrown if the save has been modified or deleted by another session.
+     */
+    private static Runnable write(EntityManager em, HangmanGame model) {
+        HangmanDictionary dictionary = model.getDictionary();
+        if (model.getId() == null) {
+            em.persist(model);
+            return dictionary::markWritten;
+        }
+
+        long previousVersion = model.getVersion();
+        long gameVersion = updateState(em, model);
+        long dictionaryVersion = dictionary.getVersion();
+        if (dictionary.hasChangedCorpora() || dictionary.getId() == null) {
+            // Merge against the row that has just been updated.
+            model.setVersion(gameVersion);
+            try {
+                HangmanGame stored = em.merge(model);
+                em.flush();
+                gameVersion = stored.getVersion();
+                dictionaryVersion = stored.getDictionary().getVersion();
+            } finally {
+                model.setVersion(previousVersion);
+            }
+        } else if (dictionary.hasChangedDrawOrder()) {
+            int updated = em.createNamedQuery("HangmanDictionary.updateDrawOrder")
+                            .setParameter("drawOrder", dictionary.getDrawOrder())
+                            .setParameter("id", dictionary.getId())
+                            .setParameter("version", dictionaryVersion)
+                            .executeUpdate();
+            if (updated == 0) {
+                throw new OptimisticLockException("Dictionary " + dictionary.getId() + " has been modified", null, model);
+            }
+            ++dictionaryVersion;
+        }
+
+        long newGameVersion = gameVersion;
+        long newDictionaryVersion = dictionaryVersion;
+        return () -> {
+            model.setVersion(newGameVersion);
+            dictionary.setVersion(newDictionaryVersion);
+            dictionary.markWritten();
+        };
+    }
+
+    /**
+     * Update the fields of a stored game that change on every guess, if the version
+     * of the save is still the version of the game.
+     * @param em The entity manager of the current transaction.
      * @param model The game model that will be updated.
+     * @return The new version of the save.
+     * @throws OptimisticLockException Thrown if the save has been modified or deleted by another session.
      */
-    public void update(HangmanGame model) {
-        executeInsideTransaction(em -> em.merge(model));
+    private static long updateState(EntityManager em, HangmanGame model) {
+        int updated = em.createNamedQuery("HangmanGame.updateState")
+                        .setParameter("currentWord", model.getCurrentWord())
+                        .setParameter("guessedLetters", model.getGuessHistory())
+                        .setParameter("misses", model.getMisses())
+                        .setParameter("wordsGuessed", model.getWordsGuessed())
+                        .setParameter("id", model.getId())
+                        .setParameter("version", model.getVersion())
+                        .executeUpdate();
+        if (updated == 0) {
+            throw new OptimisticLockException("Game save " + model.getId() + " has been modified", null, model);
+        }
+        return model.getVersion() + 1;
     }
 
     /**
-     * Get the save of a game with the specified ID from the database.
+     * Resolve a conflict of a batch write: the write of the conflicting game is rejected,
+     * it is removed from the batch and the cached snapshots of its save are invalidated,
+     * so the save is reloaded from the database. The game keeps its stale version.
+     * @param batch The games that are written, the conflicting game is removed.
+     * @param conflict The conflict.
+     * @throws OptimisticLockException Rethrown if the conflicting game is not a part of the batch.
+     */
+    private static void rejectConflicting(List<WriteBehindBuffer.Pending> batch, OptimisticLockException conflict) {
+        Object entity = conflict.getEntity();
+        for (var it = batch.iterator(); it.hasNext(); ) {
+            HangmanGame model = it.next().getModel();
+            if (model == entity || entity instanceof HangmanGame && model.equals(entity)
+                    || entity instanceof HangmanDictionary && model.getDictionary().getId() != null
+                       && model.getDictionary().getId().equals(((HangmanDictionary) entity).getId())) {
+                it.remove();
+                invalidate(model);
+                conflictStats.recordRejected();
+                return;
+            }
+        }
+        throw conflict;
+    }
+
+    /**
+     * Get the statistics of the write-behind buffer.
+     * @return The write-behind buffer (pending games, flush latency and batch size).
+     */
+    public WriteBehindBuffer getWriteBehindStats() {
+        return pendingWrites;
+    }
+
+    /**
+     * Get the statistics of the optimistic locking conflicts.
+     * @return The conflict statistics.
+     */
+    public ConflictStats getConflictStats() {
+        return conflictStats;
+    }
+
+    /**
+     * Get the caches of the loaded entities, e.g. to report their statistics.
+     * @return The game, dictionary and corpus caches, by name.
+     */
+    public Map<String, EntityCache<?, ?>> getCaches() {
+        return caches();
+    }
+
+    /**
+     * Get the caches of the loaded entities.
+     * @return The game, dictionary and corpus caches, by name.
+     */
+    private static Map<String, EntityCache<?, ?>> caches() {
+        Map<String, EntityCache<?, ?>> caches = new LinkedHashMap<>();
+        caches.put("games", games);
+        caches.put("dictionaries", dictionaries);
+        caches.put("corpora", corpora);
+        return caches;
+    }
+
+    /**
+     * Write the statistics of the caches, the conflicts and the write-behind buffer as Prometheus metrics.
+     * @param out The writer of the metric families.
+     */
+    private static void collectMetrics(PrometheusWriter out) {
+        Map<String, EntityCache<?, ?>> caches = caches();
+        out.gauges("hangman_cache_entries", "Entries in the caches.", "cache", caches, EntityCache::getSize);
+        out.gauges("hangman_cache_entries_max", "Capacity of the caches.", "cache", caches, EntityCache::getMaxSize);
+        out.counters("hangman_cache_hits_total", "Cache lookups that found an entry.", "cache", caches,
+                     EntityCache::getHits);
+        out.counters("hangman_cache_misses_total", "Cache lookups that did not find an entry.", "cache", caches,
+                     EntityCache::getMisses);
+        out.counters("hangman_cache_evictions_total", "Entries evicted from the caches.", "cache", caches,
+                     EntityCache::getEvictions);
+        out.counters("hangman_cache_invalidations_total", "Entries invalidated in the caches.", "cache", caches,
+                     EntityCache::getInvalidations);
+        conflictStats.collectMetrics(out);
+        pendingWrites.collectMetrics(out);
+    }
+
+    /**
+     * Cache the snapshots of a game and its dictionary that have just been loaded, and its corpora.
+     * The game is not cached if its save has been invalidated since the load started.
+     * @param model The loaded game.
+     * @param stamp The invalidation stamp of the save, taken before the game was loaded.
+     */
+    private static void cache(HangmanGame model, long stamp) {
+        games.put(model.getId(), new Snapshot(model.getVersion(), model.toBytes()), stamp);
+        cache(model.getDictionary());
+    }
+
+    /**
+     * Cache the snapshot of a dictionary that has just been loaded, and its corpora.
+     * @param dictionary The loaded dictionary.
+     */
+    private static void cache(HangmanDictionary dictionary) {
+        dictionaries.put(dictionary.getId(), new Snapshot(dictionary.getVersion(), dictionary.toBytes()));
+        for (WordCorpus corpus : dictionary.getCorpora()) {
+            if (corpus.getId() != null) { corpora.put(corpus.getId(), corpus); }
+        }
+    }
+
+    /**
+     * Invalidate the cached snapshots of a game and its dictionary, e.g. after they were written.
+     * @param model The game.
+     */
+    private static void invalidate(HangmanGame model) {
+        if (model.getId() != null) { games.invalidate(model.getId()); }
+        Long dictionaryId = model.getDictionary().getId();
+        if (dictionaryId != null) { dictionaries.invalidate(dictionaryId); }
+    }
+
+    /**
+     * Replace the new word corpora of the games with stored corpora that have the same
+     * contents. Corpora that do not exist in the database yet are persisted. Every distinct
+     * new corpus is resolved in its own transaction, before the games are written.
+     * @param models The game models whose corpora will be interned.
+     */
+    private void internCorpora(Collection<HangmanGame> models) {
+        Map<String, WordCorpus> resolved = new HashMap<>();
+        for (HangmanGame model : models) {
+            model.getDictionary().internCorpora(corpus -> resolved.computeIfAbsent(corpus.getDigest(),
+                                                                                   digest -> internCorpus(corpus)));
+        }
+    }
+
+    /**
+     * Find the stored corpus with the same contents as a new corpus, or persist the new corpus.
+     * If an identical corpus is persisted concurrently by another session, the insert violates
+     * the unique digest, and the corpus of the other session is selected in a new transaction.
+     * @param corpus The new corpus.
+     * @return The stored corpus.
+     */
+    private WordCorpus internCorpus(WordCorpus corpus) {
+        try {
+            return transactional().computeInsideTransaction(em -> findByDigest(em, corpus.getDigest()).orElseGet(() -> {
+                em.persist(corpus);
+                return corpus;
+            }));
+        } catch (RuntimeException e) {
+            if (!isConstraintViolation(e)) { throw e; }
+            return transactional().computeInsideTransaction(em -> findByDigest(em, corpus.getDigest()))
+                                  .orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Find a stored corpus by the digest of its contents.
+     * @param em The entity manager of the current transaction.
+     * @param digest The digest of the corpus.
+     * @return The stored corpus, if it exists.
+     */
+    private static Optional<WordCorpus> findByDigest(EntityManager em, String digest) {
+        // getResultList() initializes the eagerly fetched words, a result stream would leave
+        // them uninitialized and the game could not take words after the transaction.
+        return em.createNamedQuery("WordCorpus.findByDigest", WordCorpus.class)
+                 .setParameter("digest", digest)
+                 .getResultList().stream().findFirst();
+    }
+
+    /**
+     * Check whether the exception was caused by a violated constraint, e.g. a duplicate unique key.
+     * @param e The exception.
+     * @return true if a constraint has been violated.
+     */
+    private static boolean isConstraintViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Import a word file into a new corpus, streaming the words into the database.
+     * If an identical corpus already exists, it is returned instead. The corpus is returned
+     * as a reference (see `WordCorpus.reference()`), so the words are not read back into
+     * memory: they are loaded when the first word is taken, like any other stored corpus.
+     * @param reader Reader of the word file, one word per line.
+     * @param progress Progress of the import, updated after every chunk.
+     * @return A reference to the imported corpus, empty if the file does not contain any words.
+     * @throws IOException Thrown if reading the word file fails.
+     */
+    public Optional<WordCorpus> importCorpus(BufferedReader reader, ImportProgress progress) throws IOException {
+        try {
+            return Optional.ofNullable(transactional().computeInsideTransaction(em -> em
+                    .unwrap(Session.class)
+                    .doReturningWork(connection -> new CorpusImporter(connection, progress).importWords(reader))));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Load the stored statistics of a player, e.g. for `StatsStore.getPlayer()`.
+     * @param playerId The ID of the player.
+     * @return The stored statistics, empty if the player has no stored statistics.
+     */
+    public Optional<StatsRecord> findStats(String playerId) {
+        return Optional.ofNullable(em.find(StatsRecord.class, playerId));
+    }
+
+    /**
+     * Load a stored word corpus, e.g. one that is referenced by a game from a passivated session.
+     * @param id Word corpus ID.
+     * @return The corpus with the specified ID.
+     */
+    public Optional<WordCorpus> findCorpus(long id) {
+        WordCorpus cached = corpora.get(id);
+        if (cached != null) { return Optional.of(cached); }
+
+        WordCorpus corpus = em.find(WordCorpus.class, id);
+        if (corpus != null) { corpora.put(id, corpus); }
+        return Optional.ofNullable(corpus);
+    }
+
+    /**
+     * Load a stored dictionary, e.g. one that is referenced by a game restored from a state token.
+     * A cached snapshot is only used if it is not older than the required version.
+     * @param id Dictionary ID.
+     * @param minVersion The oldest version of the dictionary that can be returned.
+     * @return The dictionary with the specified ID.
+     */
+    public Optional<HangmanDictionary> findDictionary(long id, long minVersion) {
+        Snapshot cached = dictionaries.get(id, snapshot -> snapshot.version >= minVersion);
+        if (cached != null) { return Optional.of(HangmanDictionary.fromBytes(cached.bytes)); }
+
+        HangmanDictionary dictionary = em.find(HangmanDictionary.class, id);
+        if (dictionary != null) { cache(dictionary); }
+        return Optional.ofNullable(dictionary);
+    }
+
+    /**
+     * Get the save of a game with the specified ID, from the cache or the database.
+     * Buffered changes of the game are written before it is loaded, unless its session is in a request.
      * @param id Game save ID.
-     * @return The saved instance of the game with the specified ID.
+     * @return A new instance of the game with the specified ID.
      */
-    public Optional<HangmanGame> get(Serializable id) {
-        return Optional.ofNullable(em.find(HangmanGame.class, id));
+    public Optional<HangmanGame> get(long id) {
+        WriteBehindBuffer.Pending pending = pendingWrites.remove(id);
+        if (pending != null) {
+            writeGuarded(List.of(pending));
+        }
+
+        Snapshot cached = games.get(id);
+        if (cached != null) { return Optional.of(HangmanGame.fromBytes(cached.bytes)); }
+
+        long stamp = games.stamp(id);
+        HangmanGame model = em.find(HangmanGame.class, id);
+        if (model != null) { cache(model, stamp); }
+        return Optional.ofNullable(model);
     }
 
     /**
-     * Get all game saves from the database.
-     * @return A list of all game saves.
+     * Get a page of game save summaries, ordered by the save ID. The summaries are
+     * projected from the game and dictionary rows, the words are not loaded.
+     * Buffered changes are written before the query.
+     * @param after The ID after which the page starts, null for the first page.
+     * @param limit The maximum number of summaries on the page.
+     * @return The page of summaries, with the cursor of the next page.
      */
-    public List<HangmanGame> getAll() {
-        CriteriaBuilder builder = em.getCriteriaBuilder();
-        CriteriaQuery<HangmanGame> criteria = builder.createQuery(HangmanGame.class);
-        criteria.from(HangmanGame.class);
-        return em.createQuery(criteria).getResultList();
+    public KeysetPage<GameSaveSummary> getSummaries(Long after, int limit) {
+        flushPending();
+        List<GameSaveSummary> summaries = em
+                .createQuery("SELECT NEW pl.kmolski.hangman.model.GameSaveSummary(g.id, g.currentWord, g.guessedLetters, "
+                           + "g.misses, g.wordsGuessed, d.wordCount) "
+                           + "FROM HangmanGame g JOIN g.dictionary d WHERE g.id > :after ORDER BY g.id",
+                             GameSaveSummary.class)
+                .setParameter("after", after == null ? Long.MIN_VALUE : after)
+                .setMaxResults(limit + 1)
+                .getResultList();
+
+        if (summaries.size() <= limit) {
+            return new KeysetPage<>(summaries, null);
+        }
+        List<GameSaveSummary> page = summaries.subList(0, limit);
+        return new KeysetPage<>(page, page.get(limit - 1).getId());
     }
 
     /**
      * Delete the save of the current game from the database.
      * @param model The game model that will be deleted.
+     * @throws SaveConflictException Thrown if the save has been modified or deleted by another session,
+     *                               which keeps it.
      */
     public void delete(HangmanGame model) {
-        executeInsideTransaction(em -> em.remove(em.contains(model) ? model : em.merge(model)));
+        pendingWrites.remove(model);
+        if (model.getId() == null) { return; }
+        try {
+            executeInsideTransaction(em -> em.remove(em.contains(model) ? model : em.merge(model)), conflict -> false);
+        } finally {
+            invalidate(model);
+        }
     }
 
     /**
-     * Execute an action inside an EntityTransaction.
+     * Execute an action inside a new transaction.
      * @param action An action that is executed inside a transaction.
      */
     public void executeInsideTransaction(Consumer<EntityManager> action) {
-        EntityTransaction tx = em.getTransaction();
-        try {
-            tx.begin();
+        transactional().computeInsideTransaction(em -> {
             action.accept(em);
-            tx.commit();
+            return null;
+        });
+    }
+
+    /**
+     * Execute an action inside a new transaction, resolving optimistic locking conflicts.
+     * If the transaction fails because of a conflict, the conflict is passed to the resolver,
+     * which decides whether the action is retried (e.g. after removing the conflicting game
+     * from the action) or abandoned. The action is attempted at most MAX_ATTEMPTS times.
+     * @param action An action that is executed inside a transaction.
+     * @param resolver Resolver of the conflicts, returns true to retry the action and false to abandon it.
+     * @throws SaveConflictException Thrown if the resolver abandons the action.
+     * @throws OptimisticLockException Thrown if the conflicts persist after all attempts.
+     */
+    public void executeInsideTransaction(Consumer<EntityManager> action, Predicate<OptimisticLockException> resolver) {
+        for (int attempt = 1; ; ++attempt) {
+            try {
+                executeInsideTransaction(action);
+                return;
+            } catch (RuntimeException e) {
+                OptimisticLockException conflict = findConflict(e);
+                if (conflict == null) { throw e; }
+
+                conflictStats.recordConflict();
+                em.clear();
+                if (!resolver.test(conflict)) {
+                    conflictStats.recordAbandoned();
+                    throw e instanceof SaveConflictException ? e : new SaveConflictException(conflict);
+                }
+                if (attempt == MAX_ATTEMPTS) {
+                    conflictStats.recordFailure();
+                    throw conflict;
+                }
+                conflictStats.recordRetry();
+            }
+        }
+    }
+
+    /**
+     * Find the optimistic locking conflict that caused the exception, e.g. a failed commit.
+     * @param e The exception.
+     * @return The conflict, or null if the exception was not caused by a conflict.
+     */
+    private static OptimisticLockException findConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockException) {
+                return (OptimisticLockException) cause;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Execute an action that returns a result inside a new container-managed transaction.
+     * The transaction is only started if the method is called through `transactional()`.
+     * @param action An action that is executed inside a transaction.
+     * @param <T> The type of the result.
+     * @return The result of the action.
+     * @throws SaveConflictException Thrown (and the transaction rolled back) if a save has been modified concurrently.
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public <T> T computeInsideTransaction(Function<EntityManager, T> action) {
+        conflictStats.recordTransaction();
+        try {
+            T result = action.apply(em);
+            // Flush before the container commits, so conflicts are reported as an application exception.
+            em.flush();
+            return result;
         } catch (RuntimeException e) {
-            tx.rollback();
-            throw e;
+            OptimisticLockException conflict = findConflict(e);
+            if (conflict == null) { throw e; }
+            throw new SaveConflictException(conflict);
         }
     }
+
+    /**
+     * Get the business object of the bean. Its method calls are intercepted by the container,
+     * which starts the transactions, unlike calls on `this`.
+     * @return The business object of the bean, or this DAO outside the container.
+     */
+    private HangmanGameDAO transactional() {
+        return context == null ? this : context.getBusinessObject(HangmanGameDAO.class);
+    }
 }
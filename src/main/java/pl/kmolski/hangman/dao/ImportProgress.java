@@ -0,0 +1,91 @@
+package pl.kmolski.hangman.dao;
+
+import java.io.Serializable;
+
+/**
+ * Progress of a streaming word import.
+ *
+ * The counters are updated by the importer after every chunk, so the object
+ * can be polled by other requests while the import is running.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+public class ImportProgress implements Serializable {
+    /**
+     * The time the import was started at, in nanoseconds.
+     */
+    private final long startNanos = System.nanoTime();
+    /**
+     * The number of lines that were read from the upload.
+     */
+    private volatile long linesRead;
+    /**
+     * The number of words that were written to the database.
+     */
+    private volatile long wordsStored;
+    /**
+     * The time the import was finished at, in nanoseconds (0 while the import is running).
+     */
+    private volatile long endNanos;
+
+    /**
+     * Record a processed chunk.
+     * @param lines The number of lines read in the chunk.
+     * @param words The number of words written in the chunk.
+     */
+    void chunkDone(int lines, int words) {
+        linesRead += lines;
+        wordsStored += words;
+    }
+
+    /**
+     * Mark the import as finished.
+     */
+    void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    /**
+     * Get the number of lines that were read from the upload.
+     * @return The line count.
+     */
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    /**
+     * Get the number of words that were written to the database.
+     * @return The word count.
+     */
+    public long getWordsStored() {
+        return wordsStored;
+    }
+
+    /**
+     * Check whether the import has finished.
+     * @return true if all words have been stored.
+     */
+    public boolean isFinished() {
+        return endNanos != 0;
+    }
+
+    /**
+     * Get the import throughput so far.
+     * @return The number of lines processed per second.
+     */
+    public double getLinesPerSecond() {
+        long elapsed = (isFinished() ? endNanos : System.nanoTime()) - startNanos;
+        return elapsed == 0 ? 0 : linesRead * 1e9 / elapsed;
+    }
+
+    /**
+     * toString() implementation for the ImportProgress class.
+     * @return String representation the ImportProgress object.
+     */
+    @Override
+    public String toString() {
+        return String.format("ImportProgress { lines=%d, words=%d, rate=%.0f lines/s, finished=%b }",
+                             linesRead, wordsStored, getLinesPerSecond(), isFinished());
+    }
+}
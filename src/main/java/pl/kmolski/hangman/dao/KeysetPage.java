@@ -0,0 +1,58 @@
+package pl.kmolski.hangman.dao;
+
+import java.util.List;
+
+/**
+ * A page of results of a keyset-paginated query.
+ *
+ * The next page is requested with the key of the last item on this page,
+ * so fetching a page does not depend on its offset.
+ *
+ * @param <T> The type of the items.
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+public class KeysetPage<T> {
+    /**
+     * The items on this page.
+     */
+    private final List<T> items;
+    /**
+     * The key after which the next page starts, null if this is the last page.
+     */
+    private final Long nextCursor;
+
+    /**
+     * Create a page of results.
+     * @param items The items on this page.
+     * @param nextCursor The key after which the next page starts, null if this is the last page.
+     */
+    public KeysetPage(List<T> items, Long nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Get the items on this page.
+     * @return The items.
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Get the cursor of the next page.
+     * @return The key of the last item, or null if this is the last page.
+     */
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Check whether there is another page after this one.
+     * @return true if there are more results.
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,167 @@
+package pl.kmolski.hangman.dao;
+
+import pl.kmolski.hangman.model.StatsRecord;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory game statistics of a player, or of all players.
+ *
+ * The counters are LongAdders, so concurrent updates do not contend on a single
+ * value. Updates mark the statistics as dirty until the next snapshot. The statistics
+ * of all players hold the totals, the statistics of a player that are kept by StatsStore
+ * hold the changes that have not been written yet.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+public class PlayerStats {
+    /**
+     * The player ID, or `StatsRecord.GLOBAL_ID`.
+     */
+    private final String playerId;
+    /**
+     * The number of games won.
+     */
+    private final LongAdder wins = new LongAdder();
+    /**
+     * The number of games lost.
+     */
+    private final LongAdder losses = new LongAdder();
+    /**
+     * The number of correct guesses.
+     */
+    private final LongAdder correctGuesses = new LongAdder();
+    /**
+     * The number of wrong guesses.
+     */
+    private final LongAdder wrongGuesses = new LongAdder();
+    /**
+     * Whether the statistics have changed since the last snapshot.
+     */
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    /**
+     * Create empty statistics.
+     * @param playerId The player ID, or `StatsRecord.GLOBAL_ID`.
+     */
+    PlayerStats(String playerId) {
+        this.playerId = playerId;
+    }
+
+    /**
+     * Add the stored statistics to the counters, without marking them as dirty.
+     * @param record The stored snapshot.
+     */
+    void restore(StatsRecord record) {
+        wins.add(record.getWins());
+        losses.add(record.getLosses());
+        correctGuesses.add(record.getCorrectGuesses());
+        wrongGuesses.add(record.getWrongGuesses());
+    }
+
+    /**
+     * Subtract the written changes from the counters, after they have been added to the stored statistics.
+     * @param record The written snapshot.
+     */
+    void subtract(StatsRecord record) {
+        wins.add(-record.getWins());
+        losses.add(-record.getLosses());
+        correctGuesses.add(-record.getCorrectGuesses());
+        wrongGuesses.add(-record.getWrongGuesses());
+    }
+
+    /**
+     * Check whether all counters are zero, e.g. when all changes have been written.
+     * @return true if the statistics are empty.
+     */
+    boolean isEmpty() {
+        return getWins() == 0 && getLosses() == 0 && getCorrectGuesses() == 0 && getWrongGuesses() == 0;
+    }
+
+    /**
+     * Record the end of a game.
+     * @param won true if the game was won.
+     */
+    void recordGame(boolean won) {
+        (won ? wins : losses).increment();
+        dirty.set(true);
+    }
+
+    /**
+     * Record a guess.
+     * @param correct true if the guess was correct.
+     */
+    void recordGuess(boolean correct) {
+        (correct ? correctGuesses : wrongGuesses).increment();
+        dirty.set(true);
+    }
+
+    /**
+     * Take a snapshot of the statistics if they have changed since the last snapshot.
+     * The dirty flag is cleared before the counters are read, so updates that race
+     * with the snapshot are included in the next one.
+     * @return The snapshot, or null if the statistics have not changed.
+     */
+    StatsRecord snapshotIfDirty() {
+        return dirty.getAndSet(false) ? snapshot() : null;
+    }
+
+    /**
+     * Mark the statistics as dirty again after a failed snapshot.
+     */
+    void markDirty() {
+        dirty.set(true);
+    }
+
+    /**
+     * Take a snapshot of the statistics.
+     * @return The current values of the counters.
+     */
+    public StatsRecord snapshot() {
+        return new StatsRecord(playerId, getWins(), getLosses(), getCorrectGuesses(), getWrongGuesses());
+    }
+
+    /**
+     * Get the number of games won.
+     * @return The win count.
+     */
+    public long getWins() {
+        return wins.sum();
+    }
+
+    /**
+     * Get the number of games lost.
+     * @return The loss count.
+     */
+    public long getLosses() {
+        return losses.sum();
+    }
+
+    /**
+     * Get the number of correct guesses.
+     * @return The correct guess count.
+     */
+    public long getCorrectGuesses() {
+        return correctGuesses.sum();
+    }
+
+    /**
+     * Get the number of wrong guesses.
+     * @return The wrong guess count.
+     */
+    public long getWrongGuesses() {
+        return wrongGuesses.sum();
+    }
+
+    /**
+     * Get the percentage of correct guesses.
+     * @return The guess accuracy in percent, 0 if there were no guesses.
+     */
+    public long getAccuracy() {
+        long correct = getCorrectGuesses();
+        long total = correct + getWrongGuesses();
+        return total == 0 ? 0 : Math.round(100.0 * correct / total);
+    }
+}
@@ -0,0 +1,52 @@
+package pl.kmolski.hangman.dao;
+
+import pl.kmolski.hangman.model.HangmanDictionary;
+import pl.kmolski.hangman.model.WordCorpus;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.ejb.*;
+
+/**
+ * Startup singleton that loads the stored word corpora and dictionaries that games
+ * only refer to.
+ *
+ * The externalized form of a game only refers to its stored corpora, and a game that
+ * is restored from a state token only refers to its stored dictionary (see HangmanGame
+ * and HangmanDictionary). If a referenced corpus is not in memory, or a game takes
+ * a word from a dictionary reference, it is loaded through HangmanGameDAO (usually
+ * from its caches).
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.2
+ */
+@Singleton
+@Startup
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class ReferenceLoader {
+    /**
+     * Injected data-access object for HangmanGame object management.
+     */
+    @EJB
+    private HangmanGameDAO gameDAO;
+
+    /**
+     * Install the loaders of the word corpora and dictionaries.
+     */
+    @PostConstruct
+    void install() {
+        WordCorpus.setLoader(id -> gameDAO.findCorpus(id).orElseThrow(
+                () -> new IllegalStateException("Word corpus " + id + " does not exist")));
+        HangmanDictionary.setLoader((id, version) -> gameDAO.findDictionary(id, version).orElseThrow(
+                () -> new IllegalStateException("Dictionary " + id + " does not exist")));
+    }
+
+    /**
+     * Remove the loaders before the application is shut down.
+     */
+    @PreDestroy
+    void uninstall() {
+        WordCorpus.setLoader(null);
+        HangmanDictionary.setLoader(null);
+    }
+}
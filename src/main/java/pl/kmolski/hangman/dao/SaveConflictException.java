@@ -0,0 +1,34 @@
+package pl.kmolski.hangman.dao;
+
+import javax.ejb.ApplicationException;
+import javax.persistence.OptimisticLockException;
+
+/**
+ * Exception thrown by the transactions of HangmanGameDAO when a save has been
+ * modified concurrently by another session.
+ *
+ * This is an application exception: the container rolls the transaction back and
+ * passes the exception to the caller unchanged, so the conflict can be resolved and
+ * the transaction retried without discarding the bean instance.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+@ApplicationException(rollback = true)
+public class SaveConflictException extends RuntimeException {
+    /**
+     * Create a new SaveConflictException for the conflict.
+     * @param conflict The conflict reported by the persistence provider.
+     */
+    public SaveConflictException(OptimisticLockException conflict) {
+        super(conflict.getMessage(), conflict);
+    }
+
+    /**
+     * Get the conflict reported by the persistence provider.
+     * @return The optimistic locking conflict.
+     */
+    public OptimisticLockException getConflict() {
+        return (OptimisticLockException) getCause();
+    }
+}
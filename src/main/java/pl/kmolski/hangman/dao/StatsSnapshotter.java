@@ -0,0 +1,111 @@
+package pl.kmolski.hangman.dao;
+
+import pl.kmolski.hangman.HangmanApplication;
+import pl.kmolski.hangman.model.StatsRecord;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.*;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * Startup singleton that persists the statistics of StatsStore.
+ *
+ * The stored statistics of all players are loaded into the store on startup, the
+ * statistics of the players are read on demand. Statistics that have changed are written
+ * on the interval from `HangmanApplication.getStatsSnapshotInterval()` and once more when
+ * the application is shut down: the totals of all players are merged, and the changes of
+ * the players are added to their stored statistics with a single UPDATE each (or inserted
+ * for new players), so the stored statistics of the players never have to be loaded.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+@Singleton
+@Startup
+public class StatsSnapshotter {
+    /**
+     * The entity manager managed by the server persistence context.
+     */
+    @PersistenceContext(unitName = "hangman")
+    private EntityManager em;
+
+    /**
+     * The container timer service.
+     */
+    @Resource
+    private TimerService timerService;
+
+    /**
+     * Load the stored statistics of all players and start the snapshot timer.
+     */
+    @PostConstruct
+    void start() {
+        StatsRecord global = em.find(StatsRecord.class, StatsRecord.GLOBAL_ID);
+        if (global != null) {
+            StatsStore.getInstance().restoreGlobal(global);
+        }
+
+        long interval = HangmanApplication.getStatsSnapshotInterval().toMillis();
+        timerService.createIntervalTimer(interval, interval, new TimerConfig(null, false));
+    }
+
+    /**
+     * Write the changed statistics on every timer tick.
+     */
+    @Timeout
+    void snapshotOnInterval() {
+        snapshot();
+    }
+
+    /**
+     * Write the changed statistics before the application is shut down.
+     */
+    @PreDestroy
+    void snapshotOnShutdown() {
+        snapshot();
+    }
+
+    /**
+     * Write the statistics that have changed since the last snapshot, in the transaction
+     * of the calling method. The written changes of the players are then evicted from the
+     * store. If writing fails, the statistics are written with the next snapshot.
+     */
+    private void snapshot() {
+        List<StatsRecord> snapshots = StatsStore.getInstance().snapshotDirty();
+        try {
+            snapshots.forEach(this::write);
+            em.flush();
+        } catch (RuntimeException e) {
+            StatsStore.getInstance().restoreDirty(snapshots);
+            throw e;
+        }
+        StatsStore.getInstance().markWritten(snapshots);
+    }
+
+    /**
+     * Write a snapshot: replace the totals of all players, or add the changes of a player
+     * to the stored statistics, inserting them if the player has none yet.
+     * @param snapshot The snapshot.
+     */
+    private void write(StatsRecord snapshot) {
+        if (snapshot.getPlayerId().equals(StatsRecord.GLOBAL_ID)) {
+            em.merge(snapshot);
+            return;
+        }
+
+        int updated = em.createNamedQuery("StatsRecord.addCounts")
+                        .setParameter("wins", snapshot.getWins())
+                        .setParameter("losses", snapshot.getLosses())
+                        .setParameter("correctGuesses", snapshot.getCorrectGuesses())
+                        .setParameter("wrongGuesses", snapshot.getWrongGuesses())
+                        .setParameter("playerId", snapshot.getPlayerId())
+                        .executeUpdate();
+        if (updated == 0) {
+            em.persist(snapshot);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package pl.kmolski.hangman.dao;
+
+import pl.kmolski.hangman.metrics.Metrics;
+import pl.kmolski.hangman.model.StatsRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Server-side store of the global and per-player game statistics.
+ *
+ * The statistics are updated in memory only, so recording a guess costs no I/O.
+ * The totals of all players are kept in memory: StatsSnapshotter loads them on
+ * startup and periodically writes a snapshot if they have changed. Only the players
+ * that have been active since the last snapshot are kept in memory, with their changes
+ * that have not been written yet. The snapshots add the changes to the stored statistics
+ * of the players, and the players whose changes have all been written are evicted, so
+ * the store does not grow with the number of players. The statistics of a player are
+ * read from the database on demand, together with the unwritten changes.
+ * The ends of the games are also counted in the application Metrics.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.3
+ */
+public class StatsStore {
+    /**
+     * The statistics store of the application.
+     */
+    private static final StatsStore instance = new StatsStore();
+
+    /**
+     * The statistics of all players.
+     */
+    private final PlayerStats global = new PlayerStats(StatsRecord.GLOBAL_ID);
+    /**
+     * The unwritten changes of the statistics of the active players, keyed by the player ID.
+     */
+    private final Map<String, PlayerStats> players = new ConcurrentHashMap<>();
+
+    /**
+     * Get the statistics store of the application.
+     * @return The unique StatsStore object.
+     */
+    public static StatsStore getInstance() {
+        return instance;
+    }
+
+    /**
+     * Record the end of a game.
+     * @param playerId The ID of the player.
+     * @param won true if the game was won.
+     */
+    public void recordGame(String playerId, boolean won) {
+        global.recordGame(won);
+        Metrics.getInstance().recordGameEnded(won);
+        // Recorded inside compute(), so the statistics cannot be evicted before the update.
+        players.compute(playerId, (id, stats) -> {
+            PlayerStats updated = stats != null ? stats : new PlayerStats(id);
+            updated.recordGame(won);
+            return updated;
+        });
+    }
+
+    /**
+     * Record a guess.
+     * @param playerId The ID of the player.
+     * @param correct true if the guess was correct.
+     */
+    public void recordGuess(String playerId, boolean correct) {
+        global.recordGuess(correct);
+        players.compute(playerId, (id, stats) -> {
+            PlayerStats updated = stats != null ? stats : new PlayerStats(id);
+            updated.recordGuess(correct);
+            return updated;
+        });
+    }
+
+    /**
+     * Get the statistics of all players.
+     * @return The global statistics.
+     */
+    public PlayerStats getGlobal() {
+        return global;
+    }
+
+    /**
+     * Get the statistics of a player: the stored statistics and the changes that have not been written yet.
+     * @param playerId The ID of the player, null if the player is not known.
+     * @param loader Function that reads the stored statistics of a player, e.g. `HangmanGameDAO::findStats`.
+     * @return A copy of the statistics of the player, empty if the player has not played yet.
+     */
+    public PlayerStats getPlayer(String playerId, Function<String, Optional<StatsRecord>> loader) {
+        var stats = new PlayerStats(playerId);
+        if (playerId == null) { return stats; }
+
+        loader.apply(playerId).ifPresent(stats::restore);
+        PlayerStats pending = players.get(playerId);
+        if (pending != null) {
+            stats.restore(pending.snapshot());
+        }
+        return stats;
+    }
+
+    /**
+     * Get the number of players whose statistics are kept in memory.
+     * @return The number of players with unwritten changes.
+     */
+    public int getPlayerCount() {
+        return players.size();
+    }
+
+    /**
+     * Add the stored statistics of all players to the in-memory counters.
+     * @param record The stored snapshot of the statistics of all players.
+     */
+    void restoreGlobal(StatsRecord record) {
+        global.restore(record);
+    }
+
+    /**
+     * Take snapshots of the statistics that have changed since the last snapshot: the totals
+     * of all players, and the unwritten changes of the players.
+     * @return The snapshots.
+     */
+    List<StatsRecord> snapshotDirty() {
+        List<StatsRecord> snapshots = new ArrayList<>();
+        StatsRecord globalSnapshot = global.snapshotIfDirty();
+        if (globalSnapshot != null) {
+            snapshots.add(globalSnapshot);
+        }
+        for (PlayerStats stats : players.values()) {
+            StatsRecord snapshot = stats.snapshotIfDirty();
+            if (snapshot != null) {
+                snapshots.add(snapshot);
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Subtract the written changes of the players, and evict the players without unwritten changes.
+     * @param snapshots The snapshots that have been written.
+     */
+    void markWritten(List<StatsRecord> snapshots) {
+        for (StatsRecord snapshot : snapshots) {
+            if (snapshot.getPlayerId().equals(StatsRecord.GLOBAL_ID)) { continue; }
+            players.computeIfPresent(snapshot.getPlayerId(), (id, stats) -> {
+                stats.subtract(snapshot);
+                return stats.isEmpty() ? null : stats;
+            });
+        }
+    }
+
+    /**
+     * Mark the statistics of the snapshots as dirty again after they could not be written.
+     * @param snapshots The snapshots that were not written.
+     */
+    void restoreDirty(List<StatsRecord> snapshots) {
+        for (StatsRecord snapshot : snapshots) {
+            if (snapshot.getPlayerId().equals(StatsRecord.GLOBAL_ID)) {
+                global.markDirty();
+            } else {
+                PlayerStats stats = players.get(snapshot.getPlayerId());
+                if (stats != null) { stats.markDirty(); }
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package pl.kmolski.hangman.dao;
+
+import pl.kmolski.hangman.metrics.PrometheusWriter;
+import pl.kmolski.hangman.model.HangmanGame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Buffer of game saves that have not been written to the database yet.
+ *
+ * The buffer holds references to the games stored in the HTTP sessions, which remain
+ * the authoritative game state. The games are not thread-safe, so every game is buffered
+ * with the lock of its session (see GameLocks), which has to be held while the game is
+ * written by another thread. Repeated updates of the same game are coalesced into
+ * a single entry. The buffer also collects flush latency and batch size statistics.
+ * Games that have not been saved yet (without an ID) are never buffered.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.4
+ */
+public class WriteBehindBuffer {
+    /**
+     * A game with unwritten changes and the lock that guards it.
+     */
+    static final class Pending {
+        /**
+         * The game.
+         */
+        private final HangmanGame model;
+        /**
+         * The lock that guards the game, null if the game is only written by its owner.
+         */
+        private final Lock guard;
+
+        /**
+         * Create a buffer entry.
+         * @param model The game.
+         * @param guard The lock that guards the game, null if the game is only written by its owner.
+         */
+        Pending(HangmanGame model, Lock guard) {
+            this.model = model;
+            this.guard = guard;
+        }
+
+        /**
+         * Get the game.
+         * @return The game with unwritten changes.
+         */
+        HangmanGame getModel() {
+            return model;
+        }
+
+        /**
+         * Get the lock that guards the game.
+         * @return The lock, null if the game is only written by its owner.
+         */
+        Lock getGuard() {
+            return guard;
+        }
+    }
+
+    /**
+     * The games that have been modified since the last flush, keyed by their ID.
+     */
+    private final Map<Long, Pending> dirtyGames = new ConcurrentHashMap<>();
+
+    /**
+     * The number of flushed batches.
+     */
+    private final AtomicLong flushCount = new AtomicLong();
+    /**
+     * The total number of games written by the flushes.
+     */
+    private final AtomicLong flushedGames = new AtomicLong();
+    /**
+     * The size of the largest flushed batch.
+     */
+    private final AtomicLong maxBatchSize = new AtomicLong();
+    /**
+     * The total time spent flushing, in nanoseconds.
+     */
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    /**
+     * The longest flush, in nanoseconds.
+     */
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    /**
+     * Mark the game as modified. If another instance of the same save (loaded in another
+     * session) is already buffered, it is displaced and has to be written by the caller.
+     * @param pending The modified game and its lock.
+     * @return The displaced instance of the save, or null.
+     */
+    Pending markDirty(Pending pending) {
+        Pending displaced = dirtyGames.put(pending.model.getId(), pending);
+        return displaced == null || displaced.model == pending.model ? null : displaced;
+    }
+
+    /**
+     * Mark the game as modified again after it could not be written (e.g. its lock was held
+     * or the flush failed), unless it was modified in the meantime. Games that are only
+     * written by their owner are not buffered again.
+     * @param pending The game that could not be written and its lock.
+     */
+    void restore(Pending pending) {
+        if (pending.guard != null && pending.model.getId() != null) {
+            dirtyGames.putIfAbsent(pending.model.getId(), pending);
+        }
+    }
+
+    /**
+     * Remove the game from the buffer, e.g. because it is about to be written or deleted.
+     * Other instances of the same save are not removed.
+     * @param model The game.
+     * @return true if the game had unwritten changes.
+     */
+    boolean remove(HangmanGame model) {
+        if (model.getId() == null) { return false; }
+        var removed = new boolean[1];
+        dirtyGames.computeIfPresent(model.getId(), (id, buffered) -> {
+            removed[0] = buffered.model == model;
+            return removed[0] ? null : buffered;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Remove the game with the specified ID from the buffer.
+     * @param id The game ID.
+     * @return The game with unwritten changes and its lock, or null if the game is not buffered.
+     */
+    Pending remove(Object id) {
+        return dirtyGames.remove(id);
+    }
+
+    /**
+     * Remove all buffered games.
+     * @return The games that have unwritten changes and their locks.
+     */
+    List<Pending> drain() {
+        List<Pending> batch = new ArrayList<>(dirtyGames.size());
+        for (Long id : dirtyGames.keySet()) {
+            Pending pending = dirtyGames.remove(id);
+            if (pending != null) { batch.add(pending); }
+        }
+        return batch;
+    }
+
+    /**
+     * Record the statistics of a completed flush.
+     * @param batchSize The number of written games.
+     * @param nanos The duration of the flush.
+     */
+    void recordFlush(int batchSize, long nanos) {
+        flushCount.incrementAndGet();
+        flushedGames.addAndGet(batchSize);
+        maxBatchSize.accumulateAndGet(batchSize, Math::max);
+        totalFlushNanos.addAndGet(nanos);
+        maxFlushNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Get the number of games with unwritten changes.
+     * @return The number of buffered games.
+     */
+    public int getPendingCount() {
+        return dirtyGames.size();
+    }
+
+    /**
+     * Get the number of flushed batches.
+     * @return The flush count.
+     */
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    /**
+     * Get the average number of games written by a flush.
+     * @return The average batch size.
+     */
+    public double getAverageBatchSize() {
+        long count = flushCount.get();
+        return count == 0 ? 0 : (double) flushedGames.get() / count;
+    }
+
+    /**
+     * Get the size of the largest flushed batch.
+     * @return The maximum batch size.
+     */
+    public long getMaxBatchSize() {
+        return maxBatchSize.get();
+    }
+
+    /**
+     * Get the average flush latency.
+     * @return The average flush duration, in milliseconds.
+     */
+    public double getAverageFlushMillis() {
+        long count = flushCount.get();
+        return count == 0 ? 0 : totalFlushNanos.get() / 1e6 / count;
+    }
+
+    /**
+     * Get the maximum flush latency.
+     * @return The longest flush duration, in milliseconds.
+     */
+    public double getMaxFlushMillis() {
+        return maxFlushNanos.get() / 1e6;
+    }
+
+    /**
+     * Write the statistics of the buffer as Prometheus metrics.
+     * @param out The writer of the metric families.
+     */
+    void collectMetrics(PrometheusWriter out) {
+        out.gauge("hangman_write_behind_pending", "Games with unwritten changes.", getPendingCount());
+        out.counter("hangman_write_behind_flushes_total", "Flushed batches.", getFlushCount());
+        out.counter("hangman_write_behind_flushed_games_total", "Games written by the flushes.", flushedGames.get());
+        out.gauge("hangman_write_behind_batch_size_max", "Size of the largest flushed batch.", getMaxBatchSize());
+        out.counter("hangman_write_behind_flush_seconds_total", "Time spent flushing.",
+                    totalFlushNanos.get() / PrometheusWriter.NANOS_PER_SECOND);
+        out.gauge("hangman_write_behind_flush_seconds_max", "Longest flush.",
+                  maxFlushNanos.get() / PrometheusWriter.NANOS_PER_SECOND);
+    }
+}
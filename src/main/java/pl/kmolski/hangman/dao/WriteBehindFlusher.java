@@ -0,0 +1,64 @@
+package pl.kmolski.hangman.dao;
+
+import pl.kmolski.hangman.HangmanApplication;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.*;
+
+/**
+ * Startup singleton that flushes the write-behind buffer of HangmanGameDAO.
+ *
+ * The buffer is flushed on the interval from `HangmanApplication.getFlushInterval()`
+ * and once more when the application is shut down. The flusher does not run in a
+ * transaction, HangmanGameDAO starts a new transaction for every batch. Every game is
+ * written while holding the lock of its session; games of sessions that are in a request
+ * are written on the next tick.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.2
+ */
+@Singleton
+@Startup
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class WriteBehindFlusher {
+    /**
+     * Injected data-access object for HangmanGame object management.
+     */
+    @EJB
+    private HangmanGameDAO gameDAO;
+
+    /**
+     * The container timer service.
+     */
+    @Resource
+    private TimerService timerService;
+
+    /**
+     * Start the flush timer, unless every update is written immediately.
+     */
+    @PostConstruct
+    void startTimer() {
+        if (HangmanApplication.getDurability() != Durability.EVERY_GUESS) {
+            long interval = HangmanApplication.getFlushInterval().toMillis();
+            timerService.createIntervalTimer(interval, interval, new TimerConfig(null, false));
+        }
+    }
+
+    /**
+     * Flush the buffered games on every timer tick.
+     */
+    @Timeout
+    void flushOnInterval() {
+        gameDAO.flushPending();
+    }
+
+    /**
+     * Flush the buffered games before the application is shut down.
+     */
+    @PreDestroy
+    void flushOnShutdown() {
+        gameDAO.flushPending();
+    }
+}
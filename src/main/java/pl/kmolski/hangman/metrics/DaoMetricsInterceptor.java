@@ -0,0 +1,33 @@
+package pl.kmolski.hangman.metrics;
+
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.InvocationContext;
+
+/**
+ * EJB interceptor that records the latency of every business method call of
+ * HangmanGameDAO in Metrics, by method name.
+ *
+ * Only calls through the business object are intercepted, e.g. a buffered `update()`
+ * is timed as a whole, and the transactions it writes are timed separately as
+ * `computeInsideTransaction`.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+public class DaoMetricsInterceptor {
+    /**
+     * Time the intercepted call.
+     * @param context The invocation context.
+     * @return The result of the call.
+     * @throws Exception Rethrown from the call.
+     */
+    @AroundInvoke
+    public Object time(InvocationContext context) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return context.proceed();
+        } finally {
+            Metrics.getInstance().getDaoLatency(context.getMethod().getName()).record(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package pl.kmolski.hangman.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent latency histogram with a bounded relative error, in the style of HdrHistogram.
+ *
+ * Values below 16 ns are counted exactly. Every larger power of two is split into 16
+ * linear sub-buckets, so a value is counted in a bucket whose width is at most 1/16 of
+ * the value (a relative error of 6.25%). All positive `long` values fit into 960 buckets,
+ * so recording costs a few bit operations and an atomic increment, and never allocates.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+public class LatencyHistogram {
+    /**
+     * The number of bits of the sub-bucket index.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+    /**
+     * The number of sub-buckets of every power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * The number of buckets that cover all positive `long` values.
+     */
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /**
+     * The number of recorded values in every bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    /**
+     * The number of recorded values.
+     */
+    private final LongAdder count = new LongAdder();
+    /**
+     * The sum of the recorded values, in nanoseconds.
+     */
+    private final LongAdder sum = new LongAdder();
+    /**
+     * The largest recorded value, in nanoseconds.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a latency.
+     * @param nanos The latency in nanoseconds, negative values are recorded as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Get the index of the bucket that counts the value.
+     * @param value The non-negative value.
+     * @return The bucket index.
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) { return (int) value; }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Get the largest value that is counted in the bucket.
+     * @param index The bucket index.
+     * @return The upper bound (inclusive) of the bucket.
+     */
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) { return index; }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        // For the last bucket the shift overflows to Long.MIN_VALUE, so the bound is Long.MAX_VALUE.
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Get the number of recorded values.
+     * @return The count.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Get the sum of the recorded values.
+     * @return The sum, in nanoseconds.
+     */
+    public long getSumNanos() {
+        return sum.sum();
+    }
+
+    /**
+     * Get the largest recorded value.
+     * @return The maximum, in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * Get the cumulative counts of the recorded values at the bounds, e.g. for the buckets of a
+     * Prometheus histogram. A value is counted at a bound if its whole bucket is below the bound,
+     * so a value that is less than 1/16 below a bound may only be counted at the next bound.
+     * The counts are taken from a single pass over the buckets, so they are consistent with each other.
+     * @param bounds The bounds in ascending order, in nanoseconds.
+     * @return The number of values that are not above every bound, followed by the number of all values.
+     */
+    public long[] getCumulativeCounts(long[] bounds) {
+        long[] cumulative = new long[bounds.length + 1];
+        long total = 0;
+        int bound = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            while (bound < bounds.length && highestValueOf(i) > bounds[bound]) {
+                cumulative[bound++] = total;
+            }
+            total += counts.get(i);
+        }
+        while (bound < bounds.length) {
+            cumulative[bound++] = total;
+        }
+        cumulative[bounds.length] = total;
+        return cumulative;
+    }
+
+    /**
+     * Get the value below which the specified fraction of the recorded values falls.
+     * Values recorded concurrently may or may not be taken into account.
+     * @param quantile The quantile, between 0 and 1.
+     * @return The upper bound of the bucket of the quantile (at most the maximum), in nanoseconds,
+     *         0 if no values have been recorded.
+     */
+    public long getValueAtQuantile(double quantile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) { return 0; }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+}
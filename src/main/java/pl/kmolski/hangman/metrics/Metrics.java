@@ -0,0 +1,187 @@
+package pl.kmolski.hangman.metrics;
+
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of the application metrics.
+ *
+ * The latency of every HTTP endpoint is recorded by MetricsFilter, and the latency of every
+ * HangmanGameDAO operation by DaoMetricsInterceptor, each in its own LatencyHistogram. The
+ * controllers count the games that are started, won and lost, and the skipped rounds.
+ * Components that keep their own statistics (the caches, conflicts and write-behind buffer
+ * of HangmanGameDAO, the RequestExecutor and the TemplateRenderer) register a Collector,
+ * which writes the current statistics on every scrape.
+ *
+ * The metrics are written in the Prometheus text format by MetricsServlet: latencies as
+ * histograms (cumulative `_bucket` counts, sum and count, in seconds), so the quantiles
+ * can be aggregated across nodes and computed over any time window, with a `_max` gauge
+ * of the largest latency since startup (see PrometheusWriter).
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.2
+ */
+public class Metrics {
+    /**
+     * The metrics of the application.
+     */
+    private static final Metrics instance = new Metrics();
+
+    /**
+     * Source of metrics that are kept by another component, written on every scrape.
+     */
+    @FunctionalInterface
+    public interface Collector {
+        /**
+         * Write the current metrics of the component.
+         * @param out The writer of the metric families.
+         */
+        void collect(PrometheusWriter out);
+    }
+
+    /**
+     * The latencies of the HTTP requests, keyed by the URL pattern of the endpoint.
+     */
+    private final Map<String, LatencyHistogram> requests = new ConcurrentHashMap<>();
+    /**
+     * The latencies of the DAO operations, keyed by the name of the operation.
+     */
+    private final Map<String, LatencyHistogram> daoOperations = new ConcurrentHashMap<>();
+    /**
+     * The number of games that have been started.
+     */
+    private final LongAdder gamesStarted = new LongAdder();
+    /**
+     * The number of games that have been won.
+     */
+    private final LongAdder gamesWon = new LongAdder();
+    /**
+     * The number of games that have been lost.
+     */
+    private final LongAdder gamesLost = new LongAdder();
+    /**
+     * The number of rounds whose word has been skipped.
+     */
+    private final LongAdder roundsSkipped = new LongAdder();
+    /**
+     * The registered collectors, keyed and written in the order of their names.
+     */
+    private final Map<String, Collector> collectors = new ConcurrentSkipListMap<>();
+
+    /**
+     * Create an empty registry, the application uses `getInstance()`.
+     */
+    Metrics() {}
+
+    /**
+     * Get the metrics of the application.
+     * @return The unique Metrics object.
+     */
+    public static Metrics getInstance() {
+        return instance;
+    }
+
+    /**
+     * Get the latency histogram of an HTTP endpoint.
+     * @param endpoint The URL pattern of the endpoint.
+     * @return The histogram, created on first use.
+     */
+    public LatencyHistogram getRequestLatency(String endpoint) {
+        return requests.computeIfAbsent(endpoint, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Get the latency histogram of a DAO operation.
+     * @param operation The name of the operation.
+     * @return The histogram, created on first use.
+     */
+    public LatencyHistogram getDaoLatency(String operation) {
+        return daoOperations.computeIfAbsent(operation, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Register the collector of a component. A collector that is registered under the
+     * same name replaces the previous one, e.g. after the component has been recreated.
+     * @param name The name of the component.
+     * @param collector The collector of its metrics.
+     */
+    public void register(String name, Collector collector) {
+        collectors.put(name, collector);
+    }
+
+    /**
+     * Record a started game.
+     */
+    public void recordGameStarted() {
+        gamesStarted.increment();
+    }
+
+    /**
+     * Record the end of a game.
+     * @param won true if the game was won.
+     */
+    public void recordGameEnded(boolean won) {
+        (won ? gamesWon : gamesLost).increment();
+    }
+
+    /**
+     * Record a skipped round.
+     */
+    public void recordRoundSkipped() {
+        roundsSkipped.increment();
+    }
+
+    /**
+     * Get the number of games that have been started.
+     * @return The started game count.
+     */
+    public long getGamesStarted() {
+        return gamesStarted.sum();
+    }
+
+    /**
+     * Get the number of games that have been won.
+     * @return The won game count.
+     */
+    public long getGamesWon() {
+        return gamesWon.sum();
+    }
+
+    /**
+     * Get the number of games that have been lost.
+     * @return The lost game count.
+     */
+    public long getGamesLost() {
+        return gamesLost.sum();
+    }
+
+    /**
+     * Get the number of rounds whose word has been skipped.
+     * @return The skipped round count.
+     */
+    public long getRoundsSkipped() {
+        return roundsSkipped.sum();
+    }
+
+    /**
+     * Write all metrics in the Prometheus text format (version 0.0.4), including the metrics
+     * of the registered collectors.
+     * @param out The output.
+     */
+    public void writePrometheus(PrintWriter out) {
+        var writer = new PrometheusWriter(out);
+        writer.counter("hangman_games_started_total", "Games that have been started.", getGamesStarted());
+        writer.counter("hangman_games_won_total", "Games that have been won.", getGamesWon());
+        writer.counter("hangman_games_lost_total", "Games that have been lost.", getGamesLost());
+        writer.counter("hangman_rounds_skipped_total", "Rounds whose word has been skipped.", getRoundsSkipped());
+
+        writer.histograms("hangman_http_request_seconds", "Latency of the HTTP requests.", "endpoint", requests);
+        writer.histograms("hangman_dao_operation_seconds", "Latency of the HangmanGameDAO operations.",
+                          "operation", daoOperations);
+
+        collectors.values().forEach(collector -> collector.collect(writer));
+    }
+}
@@ -0,0 +1,152 @@
+package pl.kmolski.hangman.metrics;
+
+import javax.servlet.*;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.IOException;
+
+/**
+ * Filter that records the latency of every HTTP request in Metrics, by endpoint.
+ *
+ * The endpoint is the URL pattern of the servlet that serves the request, so the number
+ * of endpoints is bounded (static pages and unknown paths are all served by "/"). Most
+ * servlets hand their requests over to the RequestExecutor, so the filter supports async
+ * requests: if the servlet starts async processing, the latency is recorded when the
+ * async request completes, not when the filter chain returns.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+@WebFilter(filterName = "Metrics", urlPatterns = "/*", asyncSupported = true)
+public class MetricsFilter implements Filter {
+    /**
+     * Time the request and pass it along the filter chain.
+     * @param request The request.
+     * @param response The response.
+     * @param chain The filter chain.
+     * @throws IOException May be thrown by the next filter or the servlet.
+     * @throws ServletException May be thrown by the next filter or the servlet.
+     */
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        var timed = new TimedRequest((HttpServletRequest) request, start);
+        try {
+            chain.doFilter(timed, response);
+        } finally {
+            if (!timed.asyncTimed) {
+                timed.latency.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Get the endpoint of the request.
+     * @param request The request.
+     * @return The URL pattern of the servlet that serves the request.
+     */
+    private static String endpointOf(HttpServletRequest request) {
+        String pattern = request.getHttpServletMapping().getPattern();
+        return pattern == null || pattern.isEmpty() ? "/" : pattern;
+    }
+
+    /**
+     * Request wrapper that records the latency of the request on completion, if the
+     * servlet starts async processing.
+     */
+    private static class TimedRequest extends HttpServletRequestWrapper implements AsyncListener {
+        /**
+         * The latency histogram of the endpoint.
+         */
+        private final LatencyHistogram latency;
+        /**
+         * The time at which the request entered the filter, from `System.nanoTime()`.
+         */
+        private final long start;
+        /**
+         * Whether the latency is recorded when the async request completes.
+         */
+        private boolean asyncTimed;
+
+        /**
+         * Wrap a request.
+         * @param request The request.
+         * @param start The time at which the request entered the filter.
+         */
+        TimedRequest(HttpServletRequest request, long start) {
+            super(request);
+            this.latency = Metrics.getInstance().getRequestLatency(endpointOf(request));
+            this.start = start;
+        }
+
+        /**
+         * Start async processing, with the latency recorded on completion.
+         * @return The async context.
+         */
+        @Override
+        public AsyncContext startAsync() {
+            return timeAsync(super.startAsync());
+        }
+
+        /**
+         * Start async processing, with the latency recorded on completion.
+         * @param request The request of the async context.
+         * @param response The response of the async context.
+         * @return The async context.
+         */
+        @Override
+        public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+            return timeAsync(super.startAsync(request, response));
+        }
+
+        /**
+         * Register the wrapper as a listener of the async context, once.
+         * @param context The async context.
+         * @return The async context.
+         */
+        private AsyncContext timeAsync(AsyncContext context) {
+            if (!asyncTimed) {
+                context.addListener(this);
+                asyncTimed = true;
+            }
+            return context;
+        }
+
+        /**
+         * Record the latency of the completed async request.
+         * @param event The async event.
+         */
+        @Override
+        public void onComplete(AsyncEvent event) {
+            latency.record(System.nanoTime() - start);
+        }
+
+        /**
+         * Nothing to do on timeout, `onComplete()` follows.
+         * @param event The async event.
+         */
+        @Override
+        public void onTimeout(AsyncEvent event) {}
+
+        /**
+         * Nothing to do on error, `onComplete()` follows.
+         * @param event The async event.
+         */
+        @Override
+        public void onError(AsyncEvent event) {}
+
+        /**
+         * Nothing to do when async processing is restarted, the listener stays registered.
+         * @param event The async event.
+         */
+        @Override
+        public void onStartAsync(AsyncEvent event) {}
+    }
+}
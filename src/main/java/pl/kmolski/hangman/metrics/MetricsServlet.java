@@ -0,0 +1,33 @@
+package pl.kmolski.hangman.metrics;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Servlet that exposes the application metrics to Prometheus.
+ *
+ * It is located under "/metrics".
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+@WebServlet(name = "Metrics", urlPatterns = "/metrics")
+public class MetricsServlet extends HttpServlet {
+    /**
+     * Send the metrics in the Prometheus text format.
+     * @param request The HTTP request.
+     * @param response The response (Prometheus text format 0.0.4).
+     * @throws IOException May be thrown if creating the PrintWriter fails.
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType("text/plain; version=0.0.4; charset=utf-8");
+        PrintWriter out = response.getWriter();
+        Metrics.getInstance().writePrometheus(out);
+        out.flush();
+    }
+}
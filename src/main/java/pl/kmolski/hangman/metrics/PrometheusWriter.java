@@ -0,0 +1,181 @@
+package pl.kmolski.hangman.metrics;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Writer of metric families in the Prometheus text format (version 0.0.4).
+ *
+ * Every family is written with its HELP and TYPE lines followed by its samples. The samples
+ * of a labelled family are written in the order of the label values, so the output is stable.
+ * Times are written in seconds.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+public final class PrometheusWriter {
+    /**
+     * The number of nanoseconds in a second.
+     */
+    public static final double NANOS_PER_SECOND = 1e9;
+    /**
+     * The upper bounds of the buckets of the latency histograms, in seconds.
+     */
+    private static final double[] BUCKETS = {0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    /**
+     * The upper bounds of the buckets of the latency histograms, in nanoseconds.
+     */
+    private static final long[] BUCKET_NANOS =
+            Arrays.stream(BUCKETS).mapToLong(bound -> Math.round(bound * NANOS_PER_SECOND)).toArray();
+
+    /**
+     * The output.
+     */
+    private final PrintWriter out;
+
+    /**
+     * Create a writer, the metrics are written by `Metrics.writePrometheus()`.
+     * @param out The output.
+     */
+    PrometheusWriter(PrintWriter out) {
+        this.out = out;
+    }
+
+    /**
+     * Write a counter without labels.
+     * @param name The name of the counter, ending with `_total`.
+     * @param help The description of the counter.
+     * @param value The value of the counter.
+     */
+    public void counter(String name, String help, double value) {
+        header(name, "counter", help);
+        sample(name, "", value);
+    }
+
+    /**
+     * Write a gauge without labels.
+     * @param name The name of the gauge.
+     * @param help The description of the gauge.
+     * @param value The value of the gauge.
+     */
+    public void gauge(String name, String help, double value) {
+        header(name, "gauge", help);
+        sample(name, "", value);
+    }
+
+    /**
+     * Write a labelled counter, with one sample for every value.
+     * @param name The name of the counter, ending with `_total`.
+     * @param help The description of the counter.
+     * @param labelName The name of the label that holds the keys of the values.
+     * @param values The objects that hold the values, keyed by the label value.
+     * @param value Function that gets the value of the counter from an object.
+     * @param <T> The type of the objects.
+     */
+    public <T> void counters(String name, String help, String labelName, Map<String, T> values,
+                             ToDoubleFunction<? super T> value) {
+        header(name, "counter", help);
+        new TreeMap<>(values).forEach((key, object) -> sample(name, label(labelName, key), value.applyAsDouble(object)));
+    }
+
+    /**
+     * Write a labelled gauge, with one sample for every value.
+     * @param name The name of the gauge.
+     * @param help The description of the gauge.
+     * @param labelName The name of the label that holds the keys of the values.
+     * @param values The objects that hold the values, keyed by the label value.
+     * @param value Function that gets the value of the gauge from an object.
+     * @param <T> The type of the objects.
+     */
+    public <T> void gauges(String name, String help, String labelName, Map<String, T> values,
+                           ToDoubleFunction<? super T> value) {
+        header(name, "gauge", help);
+        new TreeMap<>(values).forEach((key, object) -> sample(name, label(labelName, key), value.applyAsDouble(object)));
+    }
+
+    /**
+     * Write a labelled summary without quantiles, i.e. a sum and a count for every value.
+     * @param name The name of the summary.
+     * @param help The description of the summary.
+     * @param labelName The name of the label that holds the keys of the values.
+     * @param values The objects that hold the values, keyed by the label value.
+     * @param sum Function that gets the sum of the observations from an object.
+     * @param count Function that gets the number of the observations from an object.
+     * @param <T> The type of the objects.
+     */
+    public <T> void summaries(String name, String help, String labelName, Map<String, T> values,
+                              ToDoubleFunction<? super T> sum, ToDoubleFunction<? super T> count) {
+        header(name, "summary", help);
+        new TreeMap<>(values).forEach((key, object) -> {
+            String labels = label(labelName, key);
+            sample(name + "_sum", labels, sum.applyAsDouble(object));
+            sample(name + "_count", labels, count.applyAsDouble(object));
+        });
+    }
+
+    /**
+     * Write latency histograms as a Prometheus histogram (cumulative `_bucket` counts at the
+     * BUCKETS bounds, sum and count) and a `_max` gauge of the largest latencies since startup.
+     * The counts at the bounds have the relative error of LatencyHistogram.
+     * @param name The name of the histogram.
+     * @param help The description of the histogram.
+     * @param labelName The name of the label that holds the keys of the histograms.
+     * @param histograms The histograms.
+     */
+    public void histograms(String name, String help, String labelName, Map<String, LatencyHistogram> histograms) {
+        var sorted = new TreeMap<>(histograms);
+        header(name, "histogram", help);
+        sorted.forEach((key, histogram) -> {
+            String labels = label(labelName, key);
+            long[] counts = histogram.getCumulativeCounts(BUCKET_NANOS);
+            for (int i = 0; i < BUCKETS.length; ++i) {
+                sample(name + "_bucket", labels + ",le=\"" + BUCKETS[i] + "\"", counts[i]);
+            }
+            sample(name + "_bucket", labels + ",le=\"+Inf\"", counts[BUCKETS.length]);
+            sample(name + "_sum", labels, histogram.getSumNanos() / NANOS_PER_SECOND);
+            sample(name + "_count", labels, counts[BUCKETS.length]);
+        });
+
+        header(name + "_max", "gauge", "Maximum of " + name + " since startup.");
+        sorted.forEach((key, histogram) -> sample(name + "_max", label(labelName, key),
+                                                  histogram.getMaxNanos() / NANOS_PER_SECOND));
+    }
+
+    /**
+     * Write the HELP and TYPE lines of a metric family.
+     * @param name The name of the family.
+     * @param type The type of the family.
+     * @param help The description of the family.
+     */
+    private void header(String name, String type, String help) {
+        out.print("# HELP " + name + " " + help + "\n");
+        out.print("# TYPE " + name + " " + type + "\n");
+    }
+
+    /**
+     * Format a label, escaping its value.
+     * @param name The name of the label.
+     * @param value The value of the label.
+     * @return The label, e.g. `endpoint="/Home"`.
+     */
+    private static String label(String name, String value) {
+        String escaped = value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        return name + "=\"" + escaped + "\"";
+    }
+
+    /**
+     * Write a sample.
+     * @param name The name of the metric.
+     * @param labels The labels of the sample, empty if it has none.
+     * @param value The value of the sample.
+     */
+    private void sample(String name, String labels, double value) {
+        out.print(labels.isEmpty() ? name : name + "{" + labels + "}");
+        out.print(' ');
+        out.print(value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value));
+        out.print('\n');
+    }
+}
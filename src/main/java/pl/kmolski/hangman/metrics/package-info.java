@@ -0,0 +1,9 @@
+/**
+ * Request, persistence and game metrics of the hangman application, exposed in the
+ * Prometheus text format.
+ *
+ * @since 5.0
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+package pl.kmolski.hangman.metrics;
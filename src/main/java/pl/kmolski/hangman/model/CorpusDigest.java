@@ -0,0 +1,53 @@
+package pl.kmolski.hangman.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Incremental SHA-256 digest of a list of words.
+ *
+ * The digest identifies the contents of a WordCorpus. It can be computed
+ * word by word, so large word lists do not have to be kept in memory.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+public class CorpusDigest {
+    /**
+     * The underlying SHA-256 message digest.
+     */
+    private final MessageDigest sha256;
+
+    /**
+     * Create a digest of an empty word list.
+     */
+    public CorpusDigest() {
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * Append a word to the digested list.
+     * @param word The next word of the list.
+     */
+    public void add(String word) {
+        sha256.update(word.getBytes(StandardCharsets.UTF_8));
+        sha256.update((byte) '\n');
+    }
+
+    /**
+     * Finish the digest computation.
+     * @return Hex-encoded SHA-256 digest of the newline-separated words.
+     */
+    public String toHex() {
+        var hex = new StringBuilder(64);
+        for (byte b : sha256.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,269 @@
+package pl.kmolski.hangman.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Lazily shuffled index of dictionary words.
+ *
+ * This class draws word indices uniformly at random and without replacement, using
+ * an incremental Fisher-Yates shuffle. The indices that have been drawn form a prefix
+ * of a virtual permutation of `[0, size)`, and the draw cursor points at the first free
+ * slot. Only the slots that no longer hold their own index are stored, so the state
+ * grows by at most one entry per draw and the word list itself is never modified.
+ * Words that are added later are appended to the end of the permutation.
+ *
+ * A seeded draw order picks its slots with `RandomSource.seeded()`, so the permutation
+ * is a function of the seed and of the number of words at every draw. It is stored as
+ * just the seed, the cursor and the sizes of the index range; the displaced slots are
+ * replayed when it is decoded.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.2
+ */
+public class DrawOrder implements Serializable {
+    /**
+     * The first bytes of an encoded seeded draw order.
+     */
+    private static final byte[] SEEDED_MARKER = {(byte) 0x80, 0x00};
+    /**
+     * The number of indices that have been drawn.
+     */
+    private int drawn;
+    /**
+     * Slots of the virtual permutation (at or after the cursor) that hold a different index.
+     */
+    private final Map<Integer, Integer> displaced = new HashMap<>();
+    /**
+     * The seed of a seeded draw order, null if the slots are picked by the caller's random source.
+     */
+    private Long seed;
+    /**
+     * The cursor positions at which the size of the index range of a seeded draw order changed.
+     */
+    private final List<Integer> sizeChanges = new ArrayList<>();
+    /**
+     * The sizes of the index range from each of the `sizeChanges` on.
+     */
+    private final List<Integer> sizes = new ArrayList<>();
+
+    /**
+     * Create an empty draw order.
+     */
+    public DrawOrder() {}
+
+    /**
+     * Create a partial draw order that only knows how many indices have been drawn,
+     * e.g. for a dictionary reference (see `HangmanDictionary.reference()`).
+     * @param drawn The number of indices that have been drawn.
+     */
+    DrawOrder(int drawn) {
+        this.drawn = drawn;
+    }
+
+    /**
+     * Create an empty draw order whose slots are picked reproducibly from the seed.
+     * @param seed The seed.
+     * @return The seeded draw order.
+     */
+    public static DrawOrder seeded(long seed) {
+        var order = new DrawOrder();
+        order.seed = seed;
+        return order;
+    }
+
+    /**
+     * Get the seed of the draw order.
+     * @return The seed, or null if the draw order is not seeded.
+     */
+    public Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Get the number of indices that have been drawn.
+     * @return The position of the draw cursor.
+     */
+    public int getDrawn() {
+        return drawn;
+    }
+
+    /**
+     * Check whether all indices have been drawn.
+     * @param size The number of words in the dictionary.
+     * @return true if there are no more indices to draw.
+     */
+    public boolean isExhausted(int size) {
+        return drawn >= size;
+    }
+
+    /**
+     * Draw a random index that has not been drawn before.
+     * @param size The number of words in the dictionary.
+     * @param random Source of the random slots, a seeded draw order uses its own source instead.
+     * @return A word index, or -1 if all indices have been drawn.
+     */
+    public int next(int size, RandomSource random) {
+        if (isExhausted(size)) {
+            return -1;
+        }
+
+        if (seed != null) {
+            if (sizes.isEmpty() || sizes.get(sizes.size() - 1) != size) {
+                sizeChanges.add(drawn);
+                sizes.add(size);
+            }
+            random = RandomSource.seeded(seed);
+        }
+
+        int slot = drawn + random.nextInt(drawn, size - drawn);
+        int picked = displaced.getOrDefault(slot, slot);
+        // The cursor slot is never read again, move its index into the picked slot.
+        int atCursor = Objects.requireNonNullElse(displaced.remove(drawn), drawn);
+        if (slot != drawn) {
+            displaced.put(slot, atCursor);
+        }
+
+        ++drawn;
+        return picked;
+    }
+
+    /**
+     * Encode the draw order as a sequence of unsigned varints:
+     * the cursor, the number of displaced slots and the (slot, index) pairs.
+     * A seeded draw order starts with the bytes `0x80 0x00` (a varint that is never written
+     * for the cursor), followed by the 8-byte seed, the cursor, the number of size changes
+     * and the (cursor, size) pairs.
+     * @return The encoded draw order.
+     */
+    public byte[] toBytes() {
+        if (seed != null) {
+            var out = new ByteArrayOutputStream(12 + 6 * sizes.size());
+            out.writeBytes(SEEDED_MARKER);
+            out.writeBytes(ByteBuffer.allocate(Long.BYTES).putLong(seed).array());
+            writeVarint(out, drawn);
+            writeVarint(out, sizes.size());
+            for (int i = 0; i < sizes.size(); ++i) {
+                writeVarint(out, sizeChanges.get(i));
+                writeVarint(out, sizes.get(i));
+            }
+            return out.toByteArray();
+        }
+
+        var out = new ByteArrayOutputStream(2 + 6 * displaced.size());
+        writeVarint(out, drawn);
+        writeVarint(out, displaced.size());
+        for (var entry : displaced.entrySet()) {
+            writeVarint(out, entry.getKey());
+            writeVarint(out, entry.getValue());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a draw order that was encoded with `toBytes()`.
+     * @param bytes The encoded draw order, null is treated as an empty draw order.
+     * @return The decoded draw order.
+     */
+    public static DrawOrder fromBytes(byte[] bytes) {
+        var order = new DrawOrder();
+        if (bytes == null || bytes.length == 0) {
+            return order;
+        }
+
+        var in = ByteBuffer.wrap(bytes);
+        if (bytes.length > SEEDED_MARKER.length && bytes[0] == SEEDED_MARKER[0] && bytes[1] == SEEDED_MARKER[1]) {
+            in.position(SEEDED_MARKER.length);
+            return replay(in.getLong(), in);
+        }
+
+        order.drawn = readVarint(in);
+        int count = readVarint(in);
+        for (int i = 0; i < count; ++i) {
+            order.displaced.put(readVarint(in), readVarint(in));
+        }
+        return order;
+    }
+
+    /**
+     * Rebuild a seeded draw order by repeating its draws.
+     * @param seed The seed.
+     * @param in The input buffer, positioned at the cursor.
+     * @return The decoded draw order.
+     */
+    private static DrawOrder replay(long seed, ByteBuffer in) {
+        var order = seeded(seed);
+        int drawn = readVarint(in);
+        int count = readVarint(in);
+        int[] changes = new int[count + 1];
+        int[] changedSizes = new int[count];
+        for (int i = 0; i < count; ++i) {
+            changes[i] = readVarint(in);
+            changedSizes[i] = readVarint(in);
+        }
+        changes[count] = drawn;
+
+        for (int i = 0; i < count; ++i) {
+            while (order.drawn < changes[i + 1]) {
+                order.next(changedSizes[i], null);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Write an unsigned LEB128 varint.
+     * @param out The output stream.
+     * @param value The value to write.
+     */
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Read an unsigned LEB128 varint.
+     * @param in The input buffer.
+     * @return The value that was read.
+     */
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) { return value; }
+        }
+    }
+
+    /**
+     * equals() implementation for the DrawOrder class.
+     * @param o The other object.
+     * @return true if the objects are equal.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DrawOrder order = (DrawOrder) o;
+        return drawn == order.drawn && displaced.equals(order.displaced) && Objects.equals(seed, order.seed)
+               && sizeChanges.equals(order.sizeChanges) && sizes.equals(order.sizes);
+    }
+
+    /**
+     * hashCode() implementation for the DrawOrder class.
+     * @return Hash code of the DrawOrder object.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(drawn, displaced, seed);
+    }
+}
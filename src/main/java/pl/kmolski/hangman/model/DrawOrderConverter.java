@@ -0,0 +1,33 @@
+package pl.kmolski.hangman.model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * JPA converter that stores a DrawOrder in a single binary column.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+@Converter
+public class DrawOrderConverter implements AttributeConverter<DrawOrder, byte[]> {
+    /**
+     * Encode the draw order for the database.
+     * @param order The draw order.
+     * @return The encoded draw order.
+     */
+    @Override
+    public byte[] convertToDatabaseColumn(DrawOrder order) {
+        return order == null ? null : order.toBytes();
+    }
+
+    /**
+     * Decode the draw order from the database.
+     * @param bytes The encoded draw order.
+     * @return The decoded draw order.
+     */
+    @Override
+    public DrawOrder convertToEntityAttribute(byte[] bytes) {
+        return DrawOrder.fromBytes(bytes);
+    }
+}
@@ -0,0 +1,95 @@
+package pl.kmolski.hangman.model;
+
+/**
+ * Read-only summary of a game save, used for listing the saves.
+ *
+ * Summaries are projected directly from the `game_saves` and `dictionary_saves`
+ * tables, so listing them does not load the dictionaries' words.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+public class GameSaveSummary {
+    /**
+     * The identifier of the game save.
+     */
+    private final Long id;
+    /**
+     * The word that is currently being guessed.
+     */
+    private final String currentWord;
+    /**
+     * Letters that have been tried so far, separated by spaces.
+     */
+    private final String guessedLetters;
+    /**
+     * Incorrect guess count.
+     */
+    private final int misses;
+    /**
+     * Number of words that were guessed correctly.
+     */
+    private final int wordsGuessed;
+    /**
+     * The number of words inside the dictionary.
+     */
+    private final int wordCount;
+
+    /**
+     * Create a summary from the stored columns of a game save.
+     * @param id The identifier of the game save.
+     * @param currentWord The word that is currently being guessed.
+     * @param guessedLetters Letters that have been tried so far.
+     * @param misses Incorrect guess count.
+     * @param wordsGuessed Number of words that were guessed correctly.
+     * @param wordCount The number of words inside the dictionary.
+     */
+    public GameSaveSummary(Long id, String currentWord, String guessedLetters, int misses, int wordsGuessed, int wordCount) {
+        this.id = id;
+        this.currentWord = currentWord;
+        this.guessedLetters = guessedLetters;
+        this.misses = misses;
+        this.wordsGuessed = wordsGuessed;
+        this.wordCount = wordCount;
+    }
+
+    /**
+     * Get the identifier of the game save.
+     * @return The HangmanGame identifier.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Return the word that is being guessed, with letters that have not been tried masked out.
+     * @return The masked current word.
+     */
+    public String getMaskedWord() {
+        return currentWord == null ? "" : new HangmanRound(currentWord, guessedLetters).getMaskedWord();
+    }
+
+    /**
+     * Get the incorrect guess count.
+     * @return The number of incorrect guesses.
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Get the number of words that have been guessed correctly.
+     * @return The correct guess count.
+     */
+    public int getWordsGuessed() {
+        return wordsGuessed;
+    }
+
+    /**
+     * Get the number of words left in the dictionary.
+     * @return The remaining words count.
+     */
+    public int getWordsRemaining() {
+        return wordCount - wordsGuessed;
+    }
+}
@@ -0,0 +1,80 @@
+package pl.kmolski.hangman.model;
+
+import java.text.BreakIterator;
+import java.text.Normalizer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A set of the letters that have been guessed in a round of hangman.
+ *
+ * Letters are stored as lowercase, NFC-normalized grapheme clusters, so a letter
+ * typed with a combining accent is the same guess as its precomposed form.
+ * Membership checks and insertion are O(1), and the guesses are never used
+ * to build regular expressions.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+public class GuessSet {
+    /**
+     * The normalized letters that have been guessed so far.
+     */
+    private final Set<String> letters = new HashSet<>();
+
+    /**
+     * Validate the guess and convert it to the form that is stored in the set.
+     * @param guess Guessed character (has to be a single letter).
+     * @return The lowercase, NFC-normalized guess.
+     * @throws InvalidGuessException Thrown if the guess is not a single non-whitespace letter.
+     */
+    public static String normalize(String guess) throws InvalidGuessException {
+        if (guess == null || guess.isEmpty()) {
+            throw new InvalidGuessException("empty or null guess");
+        }
+
+        String letter = Normalizer.normalize(guess.toLowerCase(), Normalizer.Form.NFC);
+        BreakIterator it = BreakIterator.getCharacterInstance();
+        it.setText(letter);
+        if (it.next() != it.last() || Character.isWhitespace(letter.codePointAt(0))) {
+            throw new InvalidGuessException(letter);
+        }
+
+        return letter;
+    }
+
+    /**
+     * Add a normalized letter to the set.
+     * @param letter The letter returned by `normalize()`.
+     * @return true if the letter has not been guessed before.
+     */
+    public boolean add(String letter) {
+        return letters.add(letter);
+    }
+
+    /**
+     * Check whether the letter has already been guessed.
+     * @param letter The normalized letter.
+     * @return true if the letter is in the set.
+     */
+    public boolean contains(String letter) {
+        return letters.contains(letter);
+    }
+
+    /**
+     * Get the number of guessed letters.
+     * @return The size of the set.
+     */
+    public int size() {
+        return letters.size();
+    }
+
+    /**
+     * Get all guessed letters, separated by spaces.
+     * @return The guessed letters in ascending order.
+     */
+    public String getSortedLetters() {
+        return letters.stream().sorted().collect(Collectors.joining(" "));
+    }
+}
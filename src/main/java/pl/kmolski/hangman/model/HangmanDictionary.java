@@ -1,32 +1,66 @@
 package pl.kmolski.hangman.model;
 
 import com.sun.istack.NotNull;
-import org.hibernate.annotations.Fetch;
-import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.*;
+import java.io.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.function.UnaryOperator;
 
 /**
  * Dictionary implementation for hangman.
  *
  * This class is a container for words and supports the following operations:
  * adding new words, taking a random word, checking if the dictionary is empty.
+ * The words are kept in shared WordCorpus instances, the dictionary itself only
+ * stores references to them and the order in which the words are taken.
+ * The same split is used in the externalized form of the game (see HangmanGame).
+ *
+ * A dictionary can also be a reference to a stored dictionary that only knows its
+ * word count and how many words have been taken, e.g. when the game state is restored
+ * from a token. The corpora and the draw order are loaded when a word is taken.
+ *
+ * The words are drawn with a pluggable RandomSource, the per-thread generator by default.
+ * A seeded dictionary draws its words in an order that is reproducible from the seed,
+ * which is stored with the draw order.
  *
  * @author Krzysztof Molski
- * @version 1.0.6
+ * @version 1.0.17
  */
 @Entity
 @Table(name = "dictionary_saves")
+@NamedQuery(name = "HangmanDictionary.updateDrawOrder",
+            query = "UPDATE HangmanDictionary d SET d.drawOrder = :drawOrder, d.version = d.version + 1 "
+                  + "WHERE d.id = :id AND d.version = :version")
 public class HangmanDictionary {
     /**
      * The default set of words for the dictionary.
      */
     public static final List<String> DEFAULT_WORDS = List.of("koło", "drzwi", "drzewo", "powóz", "pole", "słońce");
 
+    /**
+     * Loader of the stored dictionaries of references.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        /**
+         * Load a stored dictionary.
+         * @param id The identifier of the dictionary.
+         * @param version The version known by the reference, the loaded dictionary must not be older.
+         * @return The stored dictionary.
+         */
+        HangmanDictionary load(long id, long version);
+    }
+
+    /**
+     * Loads the stored dictionaries of references, set by ReferenceLoader in the container.
+     */
+    private static volatile Loader loader;
+
     /**
      * The identifier of the HangmanDictionary in the database.
      */
@@ -36,44 +70,352 @@ public class HangmanDictionary {
     @NotNull
     private Long id;
     /**
-     * An ArrayList that contains the dictionary's words.
+     * The version of the stored dictionary, incremented on every write.
+     */
+    @Version
+    private long version;
+    /**
+     * The corpora that contain the dictionary's words, in the order they were added.
+     * Words are never removed from the corpora, the ones that have already been
+     * taken are tracked by `drawOrder`.
+     */
+    @ManyToMany(fetch = FetchType.EAGER)
+    @JoinTable(name = "dictionary_corpora",
+               joinColumns = @JoinColumn(name = "dict_id"),
+               inverseJoinColumns = @JoinColumn(name = "corpus_id"))
+    @OrderColumn(name = "corpus_index")
+    @NotNull
+    private List<WordCorpus> corpora = new ArrayList<>();
+    /**
+     * The shuffled order in which the words are taken from the dictionary.
      */
-    @ElementCollection(fetch = FetchType.EAGER)
-    @Fetch(FetchMode.SUBSELECT)
+    @Lob
+    @Convert(converter = DrawOrderConverter.class)
     @NotNull
-    private final List<String> words = new ArrayList<>();
+    private DrawOrder drawOrder = new DrawOrder();
+    /**
+     * Index of the first word of each corpus, rebuilt lazily after loading the dictionary.
+     */
+    @Transient
+    private int[] corpusOffsets;
     /**
-     * Random number generator that is used to generate array indices.
+     * Source of the random draws of an unseeded dictionary.
      */
     @Transient
-    private final Random randomGenerator = new Random();
+    private RandomSource randomSource = RandomSource.threadLocal();
     /**
      * The number of words inside the dictionary.
      */
     @NotNull
     private int wordCount = 0;
+    /**
+     * Whether corpora have been added since the dictionary was last written to the database.
+     */
+    @Transient
+    private boolean corporaChanged = false;
+    /**
+     * Whether words have been taken since the dictionary was last written to the database.
+     */
+    @Transient
+    private boolean drawOrderChanged = false;
+    /**
+     * Whether this is a reference whose corpora and draw order have not been loaded yet.
+     */
+    @Transient
+    private boolean unresolved = false;
+
+    /**
+     * Create a reference to a stored dictionary. Its corpora and draw order are loaded
+     * when they are needed, the word count and the number of words taken are known upfront.
+     * @param id The identifier of the stored dictionary.
+     * @param version The version of the stored dictionary.
+     * @param wordCount The number of words inside the dictionary.
+     * @param drawn The number of words that have been taken.
+     * @return The dictionary reference.
+     */
+    public static HangmanDictionary reference(long id, long version, int wordCount, int drawn) {
+        var dictionary = new HangmanDictionary();
+        dictionary.id = id;
+        dictionary.version = version;
+        dictionary.wordCount = wordCount;
+        dictionary.drawOrder = new DrawOrder(drawn);
+        dictionary.unresolved = true;
+        return dictionary;
+    }
+
+    /**
+     * Set the function that loads the stored dictionaries of references.
+     * @param dictionaryLoader The loader, or null to remove it.
+     */
+    public static void setLoader(Loader dictionaryLoader) {
+        loader = dictionaryLoader;
+    }
+
+    /**
+     * Load the corpora and the draw order of a reference from the stored dictionary.
+     * The stored state is authoritative, so it replaces the state known by the reference.
+     */
+    private void resolve() {
+        if (!unresolved) { return; }
+        var dictionaryLoader = loader;
+        if (dictionaryLoader == null) {
+            throw new IllegalStateException("Dictionary " + id + " is not loaded and there is no dictionary loader");
+        }
+
+        HangmanDictionary stored = dictionaryLoader.load(id, version);
+        // The loaded collection belongs to the loaded instance.
+        corpora = new ArrayList<>(stored.corpora);
+        corpusOffsets = null;
+        drawOrder = stored.drawOrder;
+        wordCount = stored.wordCount;
+        version = stored.version;
+        unresolved = false;
+    }
+
+    /**
+     * Get the identifier of this HangmanDictionary instance.
+     * @return The HangmanDictionary identifier.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Get the version of the stored dictionary.
+     * @return The HangmanDictionary version.
+     */
+    public long getVersion() {
+        return version;
+    }
 
     /**
-     * Pick a random word (the selected word is removed from the dictionary).
+     * Set the version of the stored dictionary after a targeted update.
+     * @param version The new version of the dictionary.
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Write the externalized form of the dictionary: its state, the encoded draw order
+     * and references to the corpora.
+     * @param out The output.
+     * @throws IOException Thrown if writing fails.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        resolve();
+        Varints.writeId(out, id);
+        Varints.writeLong(out, version);
+        Varints.writeInt(out, wordCount);
+        out.writeByte((corporaChanged ? 1 : 0) | (drawOrderChanged ? 2 : 0));
+
+        byte[] order = drawOrder.toBytes();
+        Varints.writeInt(out, order.length);
+        out.write(order);
+
+        Varints.writeInt(out, corpora.size());
+        for (WordCorpus corpus : corpora) {
+            corpus.writeReference(out);
+        }
+    }
+
+    /**
+     * Read a dictionary that was written with `writeTo()`.
+     * @param in The input.
+     * @return The dictionary.
+     * @throws IOException Thrown if reading fails.
+     */
+    static HangmanDictionary readFrom(DataInput in) throws IOException {
+        var dictionary = new HangmanDictionary();
+        dictionary.id = Varints.readId(in);
+        dictionary.version = Varints.readLong(in);
+        dictionary.wordCount = Varints.readInt(in);
+        int flags = in.readByte();
+        dictionary.corporaChanged = (flags & 1) != 0;
+        dictionary.drawOrderChanged = (flags & 2) != 0;
+
+        byte[] order = new byte[Varints.readInt(in)];
+        in.readFully(order);
+        dictionary.drawOrder = DrawOrder.fromBytes(order);
+
+        int count = Varints.readInt(in);
+        for (int i = 0; i < count; ++i) {
+            dictionary.corpora.add(WordCorpus.readReference(in));
+        }
+        return dictionary;
+    }
+
+    /**
+     * Take a snapshot of the dictionary in its externalized form.
+     * @return The snapshot.
+     */
+    public byte[] toBytes() {
+        var bytes = new ByteArrayOutputStream(64);
+        try (var out = new DataOutputStream(bytes)) {
+            writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Create a new dictionary from a snapshot that was taken with `toBytes()`.
+     * @param bytes The snapshot.
+     * @return The dictionary.
+     */
+    public static HangmanDictionary fromBytes(byte[] bytes) {
+        try (var in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            return readFrom(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get the corpora that contain the words of the dictionary.
+     * @return Unmodifiable list of the corpora, in the order they were added.
+     */
+    public List<WordCorpus> getCorpora() {
+        resolve();
+        return Collections.unmodifiableList(corpora);
+    }
+
+    /**
+     * Pick a random word (the selected word will not be picked again).
      * @return A random word from the dictionary.
      */
     public String takeWord() {
-        if (words.isEmpty()) {
-            return null;
-        } else {
-            int randomIndex = randomGenerator.nextInt(words.size());
-            return words.remove(randomIndex);
+        resolve();
+        int index = drawOrder.next(wordCount, randomSource);
+        drawOrderChanged |= index >= 0;
+        return index < 0 ? null : getWord(index);
+    }
+
+    /**
+     * Get the word with the specified index, counting across all corpora.
+     * @param index The index of the word.
+     * @return The word.
+     */
+    private String getWord(int index) {
+        if (corpusOffsets == null) {
+            corpusOffsets = new int[corpora.size()];
+            for (int i = 1; i < corpora.size(); ++i) {
+                corpusOffsets[i] = corpusOffsets[i - 1] + corpora.get(i - 1).size();
+            }
         }
+
+        // Corpora are never empty, so the offsets are strictly increasing.
+        int corpus = Arrays.binarySearch(corpusOffsets, index);
+        if (corpus < 0) { corpus = -corpus - 2; }
+        return corpora.get(corpus).get(index - corpusOffsets[corpus]);
     }
 
     /**
-     * Add new words to the dictionary. Duplicates are not removed.
+     * Add new words to the dictionary. The words are normalized and duplicates are removed
+     * (see `WordCorpus`).
      * @param words A collection of words to be added.
      */
     public void addWords(Collection<String> words) {
-        if (words == null) { return; }
-        this.words.addAll(words);
-        this.wordCount += words.size();
+        if (words == null || words.isEmpty()) { return; }
+        addCorpus(new WordCorpus(words));
+    }
+
+    /**
+     * Add all words of an existing corpus to the dictionary.
+     * @param corpus The corpus to be added.
+     */
+    public void addCorpus(WordCorpus corpus) {
+        if (corpus == null || corpus.size() == 0) { return; }
+        resolve();
+        corpora.add(corpus);
+        corpusOffsets = null;
+        corporaChanged = true;
+        this.wordCount += corpus.size();
+    }
+
+    /**
+     * Replace every corpus that has not been stored yet with the result of the resolver,
+     * e.g. an identical corpus that already exists in the database.
+     * @param resolver Function that returns the stored counterpart of a new corpus.
+     */
+    public void internCorpora(UnaryOperator<WordCorpus> resolver) {
+        for (int i = 0; i < corpora.size(); ++i) {
+            if (corpora.get(i).getId() == null) {
+                corpora.set(i, resolver.apply(corpora.get(i)));
+            }
+        }
+    }
+
+    /**
+     * Get the shuffled order in which the words are taken.
+     * @return The DrawOrder of the dictionary.
+     */
+    public DrawOrder getDrawOrder() {
+        resolve();
+        return drawOrder;
+    }
+
+    /**
+     * Set the source of the random draws, e.g. a generator with a fixed seed in tests.
+     * It is not used by a seeded dictionary.
+     * @param randomSource The random source.
+     */
+    public void setRandomSource(RandomSource randomSource) {
+        this.randomSource = randomSource;
+    }
+
+    /**
+     * Seed the draw order, so the words are taken in an order that is reproducible from the seed.
+     * @param seed The seed.
+     * @throws IllegalStateException Thrown if words have already been taken.
+     */
+    public void setSeed(long seed) {
+        if (getDrawOrder().getDrawn() > 0) {
+            throw new IllegalStateException("The draw order cannot be seeded after words have been taken");
+        }
+        drawOrder = DrawOrder.seeded(seed);
+        drawOrderChanged = true;
+    }
+
+    /**
+     * Get the seed of the draw order.
+     * @return The seed, or null if the dictionary is not seeded.
+     */
+    public Long getSeed() {
+        return getDrawOrder().getSeed();
+    }
+
+    /**
+     * Get the number of words that have been taken, without loading a dictionary reference.
+     * @return The number of words taken from the dictionary.
+     */
+    public int getDrawn() {
+        return drawOrder.getDrawn();
+    }
+
+    /**
+     * Check whether corpora have been added since the last call to `markWritten()`.
+     * @return true if the list of corpora has to be written to the database.
+     */
+    public boolean hasChangedCorpora() {
+        return corporaChanged;
+    }
+
+    /**
+     * Check whether words have been taken since the last call to `markWritten()`.
+     * @return true if the draw order has to be written to the database.
+     */
+    public boolean hasChangedDrawOrder() {
+        return drawOrderChanged;
+    }
+
+    /**
+     * Mark the current state of the dictionary as written to the database.
+     */
+    public void markWritten() {
+        corporaChanged = false;
+        drawOrderChanged = false;
     }
 
     /**
@@ -81,7 +423,7 @@ public class HangmanDictionary {
      * @return true if the dictionary is empty.
      */
     public boolean isEmpty() {
-        return words.isEmpty();
+        return drawOrder.isExhausted(wordCount);
     }
 
     /**
@@ -4,24 +4,34 @@ import com.sun.istack.NotNull;
 import pl.kmolski.hangman.HangmanGameModel;
 
 import javax.persistence.*;
-import java.io.Serializable;
-import java.text.BreakIterator;
+import java.io.*;
 import java.util.Collection;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 /**
  * Model implementation for hangman.
  *
  * This class implements most of the game's logic - starting a new round,
  * guessing letters, managing the dictionary and win/lose conditions.
+ * The same save can be loaded into many sessions, so its rows are versioned
+ * and concurrent writes are detected with optimistic locking.
+ *
+ * Games are stored in the HTTP session, so they have a compact externalized form
+ * for session passivation and replication: the fields are written as varints and
+ * the dictionary refers to its stored corpora instead of containing their words.
+ * The same form is used for the immutable snapshots of `toBytes()` and `fromBytes()`.
+ * The state of a saved game can also be restored from its parts with `restore()`.
  *
  * @author Krzysztof Molski
- * @version 1.0.8
+ * @version 1.0.18
  */
 @Entity
 @Table(name = "game_saves")
-public class HangmanGame implements HangmanGameModel, Serializable {
+@NamedQuery(name = "HangmanGame.updateState",
+            query = "UPDATE HangmanGame g SET g.currentWord = :currentWord, g.guessedLetters = :guessedLetters, "
+                  + "g.misses = :misses, g.wordsGuessed = :wordsGuessed, g.version = g.version + 1 "
+                  + "WHERE g.id = :id AND g.version = :version")
+public class HangmanGame implements HangmanGameModel, Externalizable {
     /**
      * The identifier of the HangmanGame instance in the database.
      */
@@ -38,24 +48,51 @@ public class HangmanGame implements HangmanGameModel, Serializable {
         return id;
     }
 
+    /**
+     * The version of the save, incremented on every write.
+     */
+    @Version
+    private long version;
+
+    /**
+     * Get the version of the save that this game was loaded from or last written to.
+     * @return The HangmanGame version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Set the version of the save after a targeted update, which bypasses the version
+     * management of the entity (see HangmanGameDAO).
+     * @param version The new version of the save.
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     /**
      * The maximum number of incorrect guesses.
      */
     private static final int MAX_MISSES = 6;
+    /**
+     * The version of the externalized form, written before the fields.
+     */
+    private static final int EXTERNAL_FORMAT = 1;
 
     /**
      * The dictionary from which words will be taken.
      */
     @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
-    @JoinColumn(name = "id", referencedColumnName = "dict_id")
-    private final HangmanDictionary dictionary;
+    @JoinColumn(name = "dict_id", referencedColumnName = "dict_id")
+    private HangmanDictionary dictionary;
     /**
      * The word that is currently being guessed.
      */
     @NotNull
     private String currentWord;
     /**
-     * Letters that have been tried so far.
+     * Letters that have been tried so far, separated by spaces.
      */
     @NotNull
     private String guessedLetters;
@@ -69,6 +106,12 @@ public class HangmanGame implements HangmanGameModel, Serializable {
      */
     @NotNull
     private int wordsGuessed = 0;
+    /**
+     * Masking engine for the current round, rebuilt lazily after loading the game.
+     * It also memoizes the masked word and the guessed letters between guesses.
+     */
+    @Transient
+    private transient HangmanRound round;
 
     /**
      * The zero-argument constructor required for the JPA Entity annotation.
@@ -83,6 +126,37 @@ public class HangmanGame implements HangmanGameModel, Serializable {
         this.dictionary = dictionary;
     }
 
+    /**
+     * Restore a saved game in progress from its state, e.g. from a state token.
+     * @param id The identifier of the save.
+     * @param version The version of the save.
+     * @param dictionary The dictionary of the game, usually a `HangmanDictionary.reference()`.
+     * @param currentWord The word that is currently being guessed.
+     * @param guessHistory The guessed letters in the form of `getGuessHistory()`.
+     * @param misses The incorrect guess count.
+     * @param wordsGuessed The number of words that were guessed correctly.
+     * @return The restored game.
+     */
+    public static HangmanGame restore(long id, long version, HangmanDictionary dictionary, String currentWord,
+                                      String guessHistory, int misses, int wordsGuessed) {
+        var model = new HangmanGame(dictionary);
+        model.id = id;
+        model.version = version;
+        model.currentWord = currentWord;
+        model.guessedLetters = guessHistory;
+        model.misses = misses;
+        model.wordsGuessed = wordsGuessed;
+        return model;
+    }
+
+    /**
+     * Get the dictionary from which words are taken.
+     * @return The HangmanDictionary of this game.
+     */
+    public HangmanDictionary getDictionary() {
+        return dictionary;
+    }
+
     /**
      * Add new words to the dictionary. Duplicates are not removed.
      * @param words Collection of words to be added.
@@ -100,6 +174,18 @@ public class HangmanGame implements HangmanGameModel, Serializable {
         currentWord = dictionary.takeWord().replaceAll("\\s+", " ");
         guessedLetters = " ";
         misses = 0;
+        round = new HangmanRound(currentWord, guessedLetters);
+    }
+
+    /**
+     * Get the masking engine for the current round, creating it if necessary.
+     * @return The HangmanRound instance for the current word.
+     */
+    private HangmanRound getRound() {
+        if (round == null) {
+            round = new HangmanRound(currentWord, guessedLetters);
+        }
+        return round;
     }
 
     /**
@@ -109,16 +195,7 @@ public class HangmanGame implements HangmanGameModel, Serializable {
      */
     @Override
     public String getMaskedWord() {
-        String word;
-
-        if (guessedLetters.length() == 0) {
-            word = "_".repeat(currentWord.length());
-        } else {
-            word = currentWord.replaceAll("([^" + guessedLetters + "])", "_");
-        }
-
-        return word.chars().mapToObj(Character::toString)
-                           .collect(Collectors.joining(" "));
+        return getRound().getMaskedWord();
     }
 
     /**
@@ -136,8 +213,7 @@ public class HangmanGame implements HangmanGameModel, Serializable {
      */
     @Override
     public boolean isRoundOver() {
-        return currentWord == null || currentWord.replaceAll("([" + guessedLetters + "])", "")
-                                                 .isEmpty();
+        return currentWord == null || getRound().isOver();
     }
 
     /**
@@ -153,26 +229,20 @@ public class HangmanGame implements HangmanGameModel, Serializable {
      * Guess a letter and check if the guess was correct. The guess has to be a single letter.
      * @param guess Guessed character (has to be a single letter).
      * @return true if the guess was correct.
-     * @throws InvalidGuessException Thrown if the guess is not a single letter.
+     * @throws InvalidGuessException Thrown if the guess is not a single non-whitespace letter.
      */
     @Override
     public boolean tryLetter(String guess) throws InvalidGuessException {
-        if (guess == null || guess.isEmpty()) {
-            throw new InvalidGuessException("empty or null guess");
-        }
+        String letter = GuessSet.normalize(guess);
+        boolean isGuessInWord = getRound().contains(letter);
 
-        String lowercaseGuess = guess.toLowerCase();
-        BreakIterator it = BreakIterator.getCharacterInstance();
-        it.setText(lowercaseGuess);
-        if (it.next() != it.last()) {
-            throw new InvalidGuessException(lowercaseGuess);
+        // Repeated guesses are not recorded again and do not count as another miss.
+        if (getRound().tryLetter(letter)) {
+            guessedLetters += letter + " ";
+            if (!isGuessInWord) { ++misses; }
+            if (isRoundOver()) { ++wordsGuessed; }
         }
 
-        guessedLetters += lowercaseGuess;
-        boolean isGuessInWord = currentWord.contains(lowercaseGuess);
-        if (!isGuessInWord) { ++misses; }
-
-        if (isRoundOver()) { ++wordsGuessed; }
         return isGuessInWord;
     }
 
@@ -191,9 +261,16 @@ public class HangmanGame implements HangmanGameModel, Serializable {
      */
     @Override
     public String getGuessedLetters() {
-        return guessedLetters.replaceAll("\\s", "")
-                             .chars().distinct().sorted().mapToObj(Character::toString)
-                             .collect(Collectors.joining(" "));
+        return getRound().getSortedLetters();
+    }
+
+    /**
+     * Get the letters that have been tried so far in the order they were guessed,
+     * in the space-separated form that is stored in the database.
+     * @return The guess history of the current round.
+     */
+    public String getGuessHistory() {
+        return guessedLetters;
     }
 
     /**
@@ -223,6 +300,92 @@ public class HangmanGame implements HangmanGameModel, Serializable {
         return dictionary.getWordCount() - wordsGuessed;
     }
 
+    /**
+     * Write the externalized form of the game.
+     * @param out The output.
+     * @throws IOException Thrown if writing fails.
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        writeTo(out);
+    }
+
+    /**
+     * Read the externalized form of the game, written by `writeExternal()`.
+     * @param in The input.
+     * @throws IOException Thrown if reading fails or the data was written in an unknown format.
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        readFrom(in);
+    }
+
+    /**
+     * Take a snapshot of the game in its externalized form.
+     * @return The snapshot.
+     */
+    public byte[] toBytes() {
+        var bytes = new ByteArrayOutputStream(128);
+        try (var out = new DataOutputStream(bytes)) {
+            writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Create a new game from a snapshot that was taken with `toBytes()`.
+     * @param bytes The snapshot.
+     * @return The game.
+     */
+    public static HangmanGame fromBytes(byte[] bytes) {
+        var model = new HangmanGame();
+        try (var in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            model.readFrom(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return model;
+    }
+
+    /**
+     * Write the externalized form of the game.
+     * @param out The output.
+     * @throws IOException Thrown if writing fails.
+     */
+    private void writeTo(DataOutput out) throws IOException {
+        out.writeByte(EXTERNAL_FORMAT);
+        Varints.writeId(out, id);
+        Varints.writeLong(out, version);
+        Varints.writeString(out, currentWord);
+        Varints.writeString(out, guessedLetters);
+        Varints.writeInt(out, misses);
+        Varints.writeInt(out, wordsGuessed);
+        dictionary.writeTo(out);
+    }
+
+    /**
+     * Read the externalized form of the game, written by `writeTo()`.
+     * @param in The input.
+     * @throws IOException Thrown if reading fails or the data was written in an unknown format.
+     */
+    private void readFrom(DataInput in) throws IOException {
+        int format = in.readByte();
+        if (format != EXTERNAL_FORMAT) {
+            throw new InvalidObjectException("Unknown HangmanGame format " + format);
+        }
+
+        id = Varints.readId(in);
+        version = Varints.readLong(in);
+        currentWord = Varints.readString(in);
+        guessedLetters = Varints.readString(in);
+        misses = Varints.readInt(in);
+        wordsGuessed = Varints.readInt(in);
+        dictionary = HangmanDictionary.readFrom(in);
+        round = null;
+    }
+
     /**
      * equals() implementation for the HangmanGame class.
      * @param o The other object.
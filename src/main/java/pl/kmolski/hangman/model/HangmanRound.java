@@ -0,0 +1,163 @@
+package pl.kmolski.hangman.model;
+
+import java.text.BreakIterator;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Per-round masking engine for hangman.
+ *
+ * This class keeps track of the letters that have been guessed in the current round
+ * and the number of unique letters of the current word that are still hidden.
+ * Both values are updated incrementally on every guess, so masking the word and
+ * checking the round-over condition does not require any regular expressions.
+ * Letters are grapheme clusters, normalized in the same way as in GuessSet.
+ * The masked word and the sorted guessed letters are memoized, and only rebuilt
+ * after a new letter is guessed, so repeated renders of the same state are free.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.2
+ */
+final class HangmanRound {
+    /**
+     * Letters of the word that is being guessed, whitespace is stored as null.
+     */
+    private final String[] word;
+    /**
+     * Unique letters that occur in the word.
+     */
+    private final Set<String> wordLetters = new HashSet<>();
+    /**
+     * Letters that have been guessed so far.
+     */
+    private final GuessSet guesses = new GuessSet();
+    /**
+     * Number of unique letters of the word that have not been guessed yet.
+     */
+    private int remainingLetters;
+    /**
+     * The memoized masked word, null if it has to be rebuilt.
+     */
+    private String maskedWord;
+    /**
+     * The memoized sorted guessed letters, null if they have to be rebuilt.
+     */
+    private String sortedLetters;
+
+    /**
+     * Create a new round for the specified word, with some letters already guessed.
+     * @param word The word that is being guessed.
+     * @param guessedLetters Space-separated letters that have been tried so far.
+     */
+    HangmanRound(String word, String guessedLetters) {
+        String normalizedWord = Normalizer.normalize(word, Normalizer.Form.NFC);
+        List<String> letters = new ArrayList<>(normalizedWord.length());
+        BreakIterator it = BreakIterator.getCharacterInstance();
+        it.setText(normalizedWord);
+
+        int start = it.first();
+        for (int end = it.next(); end != BreakIterator.DONE; start = end, end = it.next()) {
+            String letter = normalizedWord.substring(start, end);
+            if (Character.isWhitespace(letter.codePointAt(0))) {
+                letters.add(null);
+            } else {
+                letters.add(letter);
+                wordLetters.add(letter);
+            }
+        }
+
+        this.word = letters.toArray(new String[0]);
+        remainingLetters = wordLetters.size();
+        for (String letter : guessedLetters.split(" ")) {
+            if (!letter.isEmpty()) { tryLetter(letter); }
+        }
+    }
+
+    /**
+     * Mark the letter as guessed, updating the remaining letter count.
+     * @param letter The normalized letter.
+     * @return true if the letter has not been guessed before.
+     */
+    boolean tryLetter(String letter) {
+        if (!guesses.add(letter)) {
+            return false;
+        }
+
+        if (wordLetters.contains(letter)) {
+            --remainingLetters;
+            maskedWord = null;
+        }
+        sortedLetters = null;
+        return true;
+    }
+
+    /**
+     * Check whether the word contains the letter.
+     * @param letter The normalized letter.
+     * @return true if the letter occurs in the word.
+     */
+    boolean contains(String letter) {
+        return wordLetters.contains(letter);
+    }
+
+    /**
+     * Check whether all letters of the word have been guessed.
+     * @return true if the word has been guessed correctly.
+     */
+    boolean isOver() {
+        return remainingLetters == 0;
+    }
+
+    /**
+     * Get the letters that have been guessed so far.
+     * @return The guess set of this round.
+     */
+    GuessSet getGuesses() {
+        return guesses;
+    }
+
+    /**
+     * Get the letters that have been guessed so far, in ascending order.
+     * @return The memoized result of `GuessSet.getSortedLetters()`.
+     */
+    String getSortedLetters() {
+        if (sortedLetters == null) {
+            sortedLetters = guesses.getSortedLetters();
+        }
+        return sortedLetters;
+    }
+
+    /**
+     * Return the word with letters that have not been guessed replaced
+     * with `_` characters. The letters are separated by spaces.
+     * @return The memoized masked word.
+     */
+    String getMaskedWord() {
+        if (maskedWord == null) {
+            maskedWord = buildMaskedWord();
+        }
+        return maskedWord;
+    }
+
+    /**
+     * Build the masked word for the current guesses.
+     * @return The masked word.
+     */
+    private String buildMaskedWord() {
+        var builder = new StringBuilder(2 * word.length);
+        for (int i = 0; i < word.length; ++i) {
+            if (i > 0) { builder.append(' '); }
+            if (word[i] == null) {
+                builder.append(' ');
+            } else if (guesses.contains(word[i])) {
+                builder.append(word[i]);
+            } else {
+                builder.append('_');
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,209 @@
+package pl.kmolski.hangman.model;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memory-mapped, read-only word index for very large dictionaries.
+ *
+ * A word file is compiled once into a binary index that consists of a header,
+ * an array of word offsets and a blob of UTF-8 encoded words:
+ *
+ *   int magic, int count, byte[64] digest, int[count + 1] offsets, byte[] words
+ *
+ * Opening an index maps the file instead of parsing it, and `get()` decodes only
+ * the requested word. Indices are cached by path, so all dictionaries that use
+ * the same file share a single mapping.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+public class MappedWordIndex {
+    /**
+     * Magic number at the start of every index file ("HWI1").
+     */
+    private static final int MAGIC = 0x48574931;
+    /**
+     * Size of the header: magic, word count and the hex-encoded corpus digest.
+     */
+    private static final int HEADER_SIZE = 4 + 4 + 64;
+
+    /**
+     * Indices that have already been opened, keyed by their absolute path.
+     */
+    private static final Map<Path, MappedWordIndex> OPEN_INDICES = new ConcurrentHashMap<>();
+
+    /**
+     * The path of the index file.
+     */
+    private final Path path;
+    /**
+     * The number of words in the index.
+     */
+    private final int count;
+    /**
+     * Digest of the words, computed in the same way as for WordCorpus.
+     */
+    private final String digest;
+    /**
+     * Offsets of the words in the blob, `count + 1` entries.
+     */
+    private final IntBuffer offsets;
+    /**
+     * The UTF-8 encoded words.
+     */
+    private final ByteBuffer words;
+
+    /**
+     * Create an index backed by the mapped file.
+     * @param path The path of the index file.
+     * @param buffer The mapping of the whole file.
+     * @throws IOException Thrown if the file is not a word index.
+     */
+    private MappedWordIndex(Path path, MappedByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(path + " is not a word index");
+        }
+
+        this.path = path;
+        this.count = buffer.getInt(4);
+        byte[] digestBytes = new byte[64];
+        buffer.position(8);
+        buffer.get(digestBytes);
+        this.digest = new String(digestBytes, StandardCharsets.US_ASCII);
+
+        int wordsStart = HEADER_SIZE + 4 * (count + 1);
+        this.offsets = buffer.position(HEADER_SIZE).limit(wordsStart).slice().asIntBuffer();
+        this.words = buffer.limit(buffer.capacity()).position(wordsStart).slice();
+    }
+
+    /**
+     * Open (map) a compiled index file, reusing the mapping if it is already open.
+     * @param path The path of the index file.
+     * @return The opened index.
+     * @throws UncheckedIOException Thrown if the file cannot be mapped or is not a word index.
+     */
+    public static MappedWordIndex open(Path path) {
+        return OPEN_INDICES.computeIfAbsent(path.toAbsolutePath(), absolutePath -> {
+            try (var channel = FileChannel.open(absolutePath, StandardOpenOption.READ)) {
+                return new MappedWordIndex(absolutePath, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Compile a word file (one word per line) into an index. The words are normalized
+     * with `WordCorpus.normalizeWord()`, empty lines are skipped. The file is processed
+     * in a streaming fashion, only the offsets array is kept in memory.
+     * @param reader Reader of the word file.
+     * @param indexFile The path of the index file that will be written.
+     * @throws IOException Thrown if reading the words or writing the index fails.
+     */
+    public static void compile(BufferedReader reader, Path indexFile) throws IOException {
+        Path blobFile = Files.createTempFile(indexFile.toAbsolutePath().getParent(), "words", ".blob");
+        try {
+            var digest = new CorpusDigest();
+            int[] wordOffsets = new int[1024];
+            int count = 0;
+
+            try (var blob = new BufferedOutputStream(Files.newOutputStream(blobFile))) {
+                int offset = 0;
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    String word = WordCorpus.normalizeWord(line);
+                    if (word.isEmpty()) { continue; }
+
+                    byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+                    blob.write(bytes);
+                    digest.add(word);
+                    if (count + 1 == wordOffsets.length) {
+                        wordOffsets = Arrays.copyOf(wordOffsets, 2 * wordOffsets.length);
+                    }
+                    wordOffsets[count++] = offset;
+                    offset = Math.addExact(offset, bytes.length);
+                }
+                wordOffsets[count] = offset;
+            }
+
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(count);
+                out.write(digest.toHex().getBytes(StandardCharsets.US_ASCII));
+                for (int i = 0; i <= count; ++i) {
+                    out.writeInt(wordOffsets[i]);
+                }
+                Files.copy(blobFile, out);
+            }
+        } finally {
+            Files.deleteIfExists(blobFile);
+        }
+    }
+
+    /**
+     * Get the path of the index file.
+     * @return The absolute path of the index.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Get the digest of the indexed words.
+     * @return Hex-encoded SHA-256 digest, equal to the digest of a WordCorpus with the same words.
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    /**
+     * Get the number of words in the index.
+     * @return The word count.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Decode the word at the specified position.
+     * @param index The position of the word.
+     * @return The word.
+     */
+    public String get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for length " + count);
+        }
+
+        int start = offsets.get(index);
+        byte[] bytes = new byte[offsets.get(index + 1) - start];
+        words.duplicate().position(start).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compile a word file into an index from the command line.
+     * @param args The word file and the index file paths.
+     * @throws IOException Thrown if reading the words or writing the index fails.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: MappedWordIndex <word file> <index file>");
+            System.exit(1);
+        }
+
+        try (var reader = Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            compile(reader, Path.of(args[1]));
+        }
+        System.out.println("Compiled " + open(Path.of(args[1])).size() + " words into " + args[1]);
+    }
+}
@@ -0,0 +1,66 @@
+package pl.kmolski.hangman.model;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Source of the random slots picked by a DrawOrder.
+ *
+ * A source receives the number of the draw with the bound, so a source can be either
+ * stateful (e.g. the per-thread generator of `threadLocal()`, which does not contend
+ * like a shared `java.util.Random`) or a pure function of the draw number. The latter is
+ * used by `seeded()`, which makes the draw order of a game reproducible from its seed,
+ * no matter which instance of the dictionary or which thread takes the words.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+@FunctionalInterface
+public interface RandomSource {
+    /**
+     * Pick a random number.
+     * @param draw The number of the draw, counted from 0.
+     * @param bound The upper bound (exclusive), must be positive.
+     * @return A random number in `[0, bound)`.
+     */
+    int nextInt(int draw, int bound);
+
+    /**
+     * Get the default source, which uses the random number generator of the current thread.
+     * @return The thread-local random source.
+     */
+    static RandomSource threadLocal() {
+        return (draw, bound) -> ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    /**
+     * Get a source that uses the provided random number generator, e.g. a seeded one in tests.
+     * @param random The random number generator.
+     * @return The random source.
+     */
+    static RandomSource of(Random random) {
+        return (draw, bound) -> random.nextInt(bound);
+    }
+
+    /**
+     * Get a reproducible source, whose numbers only depend on the seed, the draw and the bound.
+     * Every draw is hashed with the SplitMix64 finalizer and scaled into the bound by
+     * multiplication, so the numbers are uniform up to a negligible bias of `bound / 2^32`.
+     * @param seed The seed.
+     * @return The seeded random source.
+     */
+    static RandomSource seeded(long seed) {
+        return (draw, bound) -> (int) (((mix(seed + (draw + 1L) * 0x9E3779B97F4A7C15L) >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * Hash a value with the SplitMix64 finalizer.
+     * @param z The value.
+     * @return The hashed value.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,109 @@
+package pl.kmolski.hangman.model;
+
+import com.sun.istack.NotNull;
+
+import javax.persistence.*;
+
+/**
+ * Stored snapshot of the game statistics of a player, or of all players.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+@Entity
+@Table(name = "player_stats")
+@NamedQuery(name = "StatsRecord.addCounts",
+            query = "UPDATE StatsRecord s SET s.wins = s.wins + :wins, s.losses = s.losses + :losses, "
+                  + "s.correctGuesses = s.correctGuesses + :correctGuesses, "
+                  + "s.wrongGuesses = s.wrongGuesses + :wrongGuesses WHERE s.playerId = :playerId")
+public class StatsRecord {
+    /**
+     * The player ID of the statistics of all players.
+     */
+    public static final String GLOBAL_ID = "global";
+
+    /**
+     * The player ID.
+     */
+    @Id
+    @Column(name = "player_id", length = 36)
+    @NotNull
+    private String playerId;
+    /**
+     * The number of games won.
+     */
+    private long wins;
+    /**
+     * The number of games lost.
+     */
+    private long losses;
+    /**
+     * The number of correct guesses.
+     */
+    private long correctGuesses;
+    /**
+     * The number of wrong guesses.
+     */
+    private long wrongGuesses;
+
+    /**
+     * The zero-argument constructor required for the JPA Entity annotation.
+     */
+    protected StatsRecord() {}
+
+    /**
+     * Create a snapshot of the statistics.
+     * @param playerId The player ID, or GLOBAL_ID.
+     * @param wins The number of games won.
+     * @param losses The number of games lost.
+     * @param correctGuesses The number of correct guesses.
+     * @param wrongGuesses The number of wrong guesses.
+     */
+    public StatsRecord(String playerId, long wins, long losses, long correctGuesses, long wrongGuesses) {
+        this.playerId = playerId;
+        this.wins = wins;
+        this.losses = losses;
+        this.correctGuesses = correctGuesses;
+        this.wrongGuesses = wrongGuesses;
+    }
+
+    /**
+     * Get the player ID.
+     * @return The player ID, or GLOBAL_ID.
+     */
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    /**
+     * Get the number of games won.
+     * @return The win count.
+     */
+    public long getWins() {
+        return wins;
+    }
+
+    /**
+     * Get the number of games lost.
+     * @return The loss count.
+     */
+    public long getLosses() {
+        return losses;
+    }
+
+    /**
+     * Get the number of correct guesses.
+     * @return The correct guess count.
+     */
+    public long getCorrectGuesses() {
+        return correctGuesses;
+    }
+
+    /**
+     * Get the number of wrong guesses.
+     * @return The wrong guess count.
+     */
+    public long getWrongGuesses() {
+        return wrongGuesses;
+    }
+}
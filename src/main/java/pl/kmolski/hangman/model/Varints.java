@@ -0,0 +1,111 @@
+package pl.kmolski.hangman.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Unsigned LEB128 varints for the compact forms of the game state (the externalized
+ * game and the state tokens of the controllers), in the same encoding as the stored
+ * draw order (see DrawOrder).
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+public final class Varints {
+    /**
+     * This is a utility class - it should not be instantiated.
+     */
+    private Varints() {}
+
+    /**
+     * Write an unsigned varint.
+     * @param out The output.
+     * @param value The value to write.
+     * @throws IOException Thrown if writing fails.
+     */
+    public static void writeLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Read an unsigned varint.
+     * @param in The input.
+     * @return The value that was read.
+     * @throws IOException Thrown if reading fails.
+     */
+    public static long readLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) { return value; }
+        }
+    }
+
+    /**
+     * Write an unsigned int varint.
+     * @param out The output.
+     * @param value The value to write.
+     * @throws IOException Thrown if writing fails.
+     */
+    public static void writeInt(DataOutput out, int value) throws IOException {
+        writeLong(out, value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Read an unsigned int varint.
+     * @param in The input.
+     * @return The value that was read.
+     * @throws IOException Thrown if reading fails.
+     */
+    public static int readInt(DataInput in) throws IOException {
+        return (int) readLong(in);
+    }
+
+    /**
+     * Write an identifier that may be null, as `id + 1` or 0.
+     * @param out The output.
+     * @param id The identifier.
+     * @throws IOException Thrown if writing fails.
+     */
+    public static void writeId(DataOutput out, Long id) throws IOException {
+        writeLong(out, id == null ? 0 : id + 1);
+    }
+
+    /**
+     * Read an identifier that was written with `writeId()`.
+     * @param in The input.
+     * @return The identifier, null if it was not set.
+     * @throws IOException Thrown if reading fails.
+     */
+    public static Long readId(DataInput in) throws IOException {
+        long value = readLong(in);
+        return value == 0 ? null : value - 1;
+    }
+
+    /**
+     * Write a string that may be null.
+     * @param out The output.
+     * @param value The string.
+     * @throws IOException Thrown if writing fails.
+     */
+    public static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) { out.writeUTF(value); }
+    }
+
+    /**
+     * Read a string that was written with `writeString()`.
+     * @param in The input.
+     * @return The string, possibly null.
+     * @throws IOException Thrown if reading fails.
+     */
+    public static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,352 @@
+package pl.kmolski.hangman.model;
+
+import com.sun.istack.NotNull;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+
+/**
+ * An immutable list of words that can be shared between dictionaries.
+ *
+ * Corpora are identified by the SHA-256 digest of their contents, so the same list
+ * of words (e.g. `DEFAULT_WORDS`) is stored in the database only once and every
+ * dictionary that uses it references the same row. The words of very large
+ * corpora are not stored in the database, but in a MappedWordIndex file.
+ *
+ * The words of a corpus are normalized with `normalizeWord()` and distinct, in the order
+ * of their first occurrence, whether the corpus is created from a collection of words or
+ * imported from a word file, so the same list of words always has the same digest.
+ *
+ * In the externalized form of a game, stored corpora are written as references
+ * (identifier and size). A reference is read back as the loaded instance of the
+ * corpus if it is still in memory, otherwise the words are loaded on first use.
+ * Imported corpora are returned as references in the same way (see `reference()`).
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.5
+ */
+@Entity
+@Immutable
+@Table(name = "word_corpora")
+@NamedQuery(name = "WordCorpus.findByDigest", query = "SELECT c FROM WordCorpus c WHERE c.digest = :digest")
+public class WordCorpus {
+    /**
+     * Tag of a corpus that is written as a reference to its database row.
+     */
+    private static final int STORED = 0;
+    /**
+     * Tag of a corpus that is written as the path of its index file.
+     */
+    private static final int INDEXED = 1;
+    /**
+     * Tag of a corpus that has not been stored yet and is written with its words.
+     */
+    private static final int INLINE = 2;
+
+    /**
+     * Corpora that have been loaded or stored, keyed by their identifier. The corpora
+     * are weakly referenced, so a corpus is only found while a dictionary uses it.
+     */
+    private static final Map<Long, WeakReference<WordCorpus>> LOADED = new ConcurrentHashMap<>();
+    /**
+     * Loads a stored corpus by its identifier, set by ReferenceLoader in the container.
+     */
+    private static volatile LongFunction<WordCorpus> loader;
+
+    /**
+     * The identifier of the WordCorpus in the database.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "corpus_id")
+    private Long id;
+    /**
+     * Hex-encoded SHA-256 digest of the words.
+     */
+    @Column(unique = true, length = 64)
+    @NotNull
+    private String digest;
+    /**
+     * The words of the corpus.
+     */
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "corpus_words", joinColumns = @JoinColumn(name = "corpus_id"),
+                     indexes = @Index(name = "corpus_words_word", columnList = "corpus_id, word"))
+    @Fetch(FetchMode.SUBSELECT)
+    @OrderColumn(name = "word_index")
+    @Column(name = "word")
+    @NotNull
+    private List<String> words = new ArrayList<>();
+    /**
+     * Path of the index file that contains the words, null if the words are stored in the database.
+     */
+    @Column(name = "index_file")
+    private String indexFile;
+    /**
+     * The mapped index file, opened lazily after loading the corpus.
+     */
+    @Transient
+    private MappedWordIndex index;
+    /**
+     * The size of a corpus that was read as a reference, -1 if this is not a reference.
+     */
+    @Transient
+    private int referenceSize = -1;
+    /**
+     * The loaded corpus that a reference points to.
+     */
+    @Transient
+    private WordCorpus target;
+
+    /**
+     * The zero-argument constructor required for the JPA Entity annotation.
+     */
+    protected WordCorpus() {}
+
+    /**
+     * Create a new corpus backed by a compiled word index.
+     * @param index The mapped word index.
+     */
+    public WordCorpus(MappedWordIndex index) {
+        this.index = index;
+        this.indexFile = index.getPath().toString();
+        this.digest = index.getDigest();
+    }
+
+    /**
+     * Create a new corpus that contains the provided words. The words are normalized,
+     * empty words and duplicates are skipped.
+     * @param words The words of the corpus.
+     */
+    public WordCorpus(Collection<String> words) {
+        var distinct = new LinkedHashSet<String>();
+        for (String word : words) {
+            String normalized = normalizeWord(word);
+            if (!normalized.isEmpty()) { distinct.add(normalized); }
+        }
+        this.words = new ArrayList<>(distinct);
+        this.digest = digestOf(this.words);
+    }
+
+    /**
+     * Create a reference to a stored corpus, e.g. one that has just been imported. The words
+     * are loaded (with the loader set by `setLoader()`) when the first word is taken.
+     * @param id The identifier of the stored corpus.
+     * @param size The number of words in the corpus.
+     * @return The loaded instance of the corpus if it is still in memory, otherwise a reference.
+     */
+    public static WordCorpus reference(long id, int size) {
+        WordCorpus loaded = findLoaded(id);
+        if (loaded != null) { return loaded; }
+
+        var reference = new WordCorpus();
+        reference.id = id;
+        reference.referenceSize = size;
+        return reference;
+    }
+
+    /**
+     * Set the function that loads stored corpora which are no longer in memory.
+     * @param corpusLoader The loader, or null to remove it.
+     */
+    public static void setLoader(LongFunction<WordCorpus> corpusLoader) {
+        loader = corpusLoader;
+    }
+
+    /**
+     * Set the identifier of the corpus like after it has been stored, without a database.
+     * Used by the tests and benchmarks, the identifier is otherwise generated by JPA.
+     * @param id The identifier of the corpus.
+     */
+    void markStored(long id) {
+        this.id = id;
+    }
+
+    /**
+     * Remember the corpus after it has been loaded or stored, so references to it
+     * can be resolved without loading it again.
+     */
+    @PostLoad
+    @PostPersist
+    void register() {
+        LOADED.put(id, new WeakReference<>(this));
+    }
+
+    /**
+     * Find a corpus that has been loaded or stored and is still in memory.
+     * @param id The identifier of the corpus.
+     * @return The corpus, null if it is not in memory.
+     */
+    private static WordCorpus findLoaded(long id) {
+        var reference = LOADED.get(id);
+        WordCorpus corpus = reference == null ? null : reference.get();
+        if (reference != null && corpus == null) {
+            LOADED.remove(id, reference);
+        }
+        return corpus;
+    }
+
+    /**
+     * Get the corpus that the words are read from: the target of a reference, loading it
+     * if necessary, or this corpus.
+     * @return The corpus that contains the words.
+     */
+    private WordCorpus resolve() {
+        if (referenceSize < 0) { return this; }
+        if (target == null) {
+            target = findLoaded(id);
+        }
+        if (target == null) {
+            var corpusLoader = loader;
+            if (corpusLoader == null) {
+                throw new IllegalStateException("Word corpus " + id + " is not loaded and there is no corpus loader");
+            }
+            target = corpusLoader.apply(id);
+        }
+        return target;
+    }
+
+    /**
+     * Write the externalized form of the corpus: stored corpora are written as references,
+     * index-backed corpora as the path of the index and other corpora with their words.
+     * @param out The output.
+     * @throws IOException Thrown if writing fails.
+     */
+    void writeReference(DataOutput out) throws IOException {
+        if (referenceSize >= 0 || (id != null && indexFile == null)) {
+            out.writeByte(STORED);
+            Varints.writeLong(out, id);
+            Varints.writeInt(out, size());
+        } else if (indexFile != null) {
+            out.writeByte(INDEXED);
+            Varints.writeId(out, id);
+            out.writeUTF(indexFile);
+        } else {
+            out.writeByte(INLINE);
+            Varints.writeInt(out, words.size());
+            for (String word : words) {
+                out.writeUTF(word);
+            }
+        }
+    }
+
+    /**
+     * Read a corpus that was written with `writeReference()`.
+     * @param in The input.
+     * @return The corpus, the loaded instance if a stored corpus is still in memory.
+     * @throws IOException Thrown if reading fails or the data is not a corpus.
+     */
+    static WordCorpus readReference(DataInput in) throws IOException {
+        int tag = in.readByte();
+        switch (tag) {
+            case STORED: {
+                long id = Varints.readLong(in);
+                return reference(id, Varints.readInt(in));
+            }
+            case INDEXED: {
+                Long id = Varints.readId(in);
+                String indexFile = in.readUTF();
+                WordCorpus loaded = id == null ? null : findLoaded(id);
+                if (loaded != null) { return loaded; }
+
+                var corpus = new WordCorpus(MappedWordIndex.open(Path.of(indexFile)));
+                corpus.id = id;
+                return corpus;
+            }
+            case INLINE: {
+                int count = Varints.readInt(in);
+                var words = new ArrayList<String>(count);
+                for (int i = 0; i < count; ++i) {
+                    words.add(in.readUTF());
+                }
+                return new WordCorpus(words);
+            }
+            default:
+                throw new InvalidObjectException("Unknown word corpus tag " + tag);
+        }
+    }
+
+    /**
+     * Compute the digest of a list of words.
+     * @param words The words.
+     * @return Hex-encoded SHA-256 digest of the newline-separated words.
+     */
+    public static String digestOf(List<String> words) {
+        var digest = new CorpusDigest();
+        words.forEach(digest::add);
+        return digest.toHex();
+    }
+
+    /**
+     * Normalize a word before it is stored: trim it, collapse inner whitespace,
+     * convert it to lowercase and compose its letters (NFC).
+     * @param word The raw word.
+     * @return The normalized word, empty if the word contains only whitespace.
+     */
+    public static String normalizeWord(String word) {
+        String collapsed = word.strip().replaceAll("\\s+", " ");
+        return Normalizer.normalize(collapsed.toLowerCase(), Normalizer.Form.NFC);
+    }
+
+    /**
+     * Get the identifier of this WordCorpus instance.
+     * @return The WordCorpus identifier, null if the corpus has not been stored yet.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Get the digest of the words.
+     * @return Hex-encoded SHA-256 digest.
+     */
+    public String getDigest() {
+        return referenceSize < 0 ? digest : resolve().getDigest();
+    }
+
+    /**
+     * Get the number of words in the corpus.
+     * @return The word count.
+     */
+    public int size() {
+        if (referenceSize >= 0) { return referenceSize; }
+        return indexFile == null ? words.size() : getIndex().size();
+    }
+
+    /**
+     * Get the word at the specified position.
+     * @param index The position of the word.
+     * @return The word.
+     */
+    public String get(int index) {
+        if (referenceSize >= 0) { return resolve().get(index); }
+        return indexFile == null ? words.get(index) : getIndex().get(index);
+    }
+
+    /**
+     * Get the word index that contains the words, opening it if necessary.
+     * @return The mapped word index.
+     */
+    private MappedWordIndex getIndex() {
+        if (index == null) {
+            index = MappedWordIndex.open(Path.of(indexFile));
+        }
+        return index;
+    }
+}
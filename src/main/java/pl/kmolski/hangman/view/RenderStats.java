@@ -0,0 +1,91 @@
+package pl.kmolski.hangman.view;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Render time statistics of a single template.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+public class RenderStats {
+    /**
+     * The number of renders.
+     */
+    private final LongAdder renderCount = new LongAdder();
+    /**
+     * The total time spent in `TemplateEngine.process()`, in nanoseconds.
+     */
+    private final LongAdder totalNanos = new LongAdder();
+    /**
+     * The longest render, in nanoseconds.
+     */
+    private final AtomicLong maxNanos = new AtomicLong();
+    /**
+     * The total number of characters rendered.
+     */
+    private final LongAdder totalChars = new LongAdder();
+
+    /**
+     * Record a completed render.
+     * @param nanos The time spent rendering, in nanoseconds.
+     * @param chars The length of the rendered page.
+     */
+    void record(long nanos, int chars) {
+        renderCount.increment();
+        totalNanos.add(nanos);
+        totalChars.add(chars);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Get the number of renders.
+     * @return The render count.
+     */
+    public long getRenderCount() {
+        return renderCount.sum();
+    }
+
+    /**
+     * Get the total time spent rendering.
+     * @return The total render time, in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * Get the mean render time.
+     * @return The mean render time in nanoseconds, 0 if the template has not been rendered.
+     */
+    public long getMeanNanos() {
+        long count = getRenderCount();
+        return count == 0 ? 0 : getTotalNanos() / count;
+    }
+
+    /**
+     * Get the longest render time.
+     * @return The maximum render time, in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Get the total length of the rendered pages.
+     * @return The number of characters rendered.
+     */
+    public long getTotalChars() {
+        return totalChars.sum();
+    }
+
+    /**
+     * Get the mean length of the rendered pages.
+     * @return The mean page length in characters, 0 if the template has not been rendered.
+     */
+    public long getMeanChars() {
+        long count = getRenderCount();
+        return count == 0 ? 0 : totalChars.sum() / count;
+    }
+}
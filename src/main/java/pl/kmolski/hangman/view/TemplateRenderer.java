@@ -0,0 +1,156 @@
+package pl.kmolski.hangman.view;
+
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.cache.StandardCacheManager;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import pl.kmolski.hangman.metrics.PrometheusWriter;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders Thymeleaf templates into HTTP responses.
+ *
+ * Pages are rendered into a buffer that is reused between requests, and copied to the
+ * response in a single write. The buffers are kept in a small shared pool rather than
+ * per thread, because request threads may be virtual threads that are never reused:
+ * a render takes a buffer from the pool (or allocates one if the pool is empty) and
+ * returns it afterwards, unless the pool is full or the buffer grew too large. Rendering is therefore not interleaved
+ * with network I/O, and the time spent in `TemplateEngine.process()` is recorded
+ * separately for every template.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.2
+ */
+public class TemplateRenderer {
+    /**
+     * Initial capacity of the render buffers, in characters.
+     */
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+    /**
+     * Buffers that grew larger than this are not kept for the next render.
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 256 * 1024;
+    /**
+     * The maximum number of parsed templates kept in the cache.
+     */
+    private static final int TEMPLATE_CACHE_SIZE = 32;
+    /**
+     * The maximum number of idle buffers kept in the pool.
+     */
+    private static final int MAX_POOLED_BUFFERS = 2 * Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The template engine.
+     */
+    private final TemplateEngine templateEngine;
+    /**
+     * The idle render buffers, shared by all request threads.
+     */
+    private final BlockingQueue<CharArrayWriter> buffers = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+    /**
+     * Render time statistics, keyed by the template name.
+     */
+    private final Map<String, RenderStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Create a renderer for the template engine.
+     * @param templateEngine The configured template engine.
+     */
+    public TemplateRenderer(TemplateEngine templateEngine) {
+        this.templateEngine = templateEngine;
+    }
+
+    /**
+     * Create a renderer of the HTML templates on the classpath. Parsed templates are cached,
+     * the shared fragments (e.g. the page header) are cached together with the template
+     * that defines them, so the fragment cache is left disabled.
+     * @param prefix The classpath location of the templates.
+     * @param cacheTtlMs The time after which cached templates are reloaded, null to cache them indefinitely.
+     * @return The renderer.
+     */
+    public static TemplateRenderer forTemplates(String prefix, Long cacheTtlMs) {
+        var templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setTemplateMode(TemplateMode.HTML);
+        templateResolver.setPrefix(prefix);
+        templateResolver.setSuffix(".html");
+        templateResolver.setCharacterEncoding("UTF-8");
+        templateResolver.setCacheable(true);
+        templateResolver.setCacheTTLMs(cacheTtlMs);
+
+        var cacheManager = new StandardCacheManager();
+        cacheManager.setTemplateCacheInitialSize(TEMPLATE_CACHE_SIZE / 2);
+        cacheManager.setTemplateCacheMaxSize(TEMPLATE_CACHE_SIZE);
+
+        var templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.setCacheManager(cacheManager);
+        return new TemplateRenderer(templateEngine);
+    }
+
+    /**
+     * Get the template engine.
+     * @return The TemplateEngine used by the renderer.
+     */
+    public TemplateEngine getTemplateEngine() {
+        return templateEngine;
+    }
+
+    /**
+     * Render the template and send it as an HTML response.
+     * @param template The name of the template.
+     * @param context The context with the template variables.
+     * @param response The HTTP response.
+     * @throws IOException May be thrown if writing the response fails.
+     */
+    public void render(String template, IContext context, HttpServletResponse response) throws IOException {
+        CharArrayWriter buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new CharArrayWriter(INITIAL_BUFFER_SIZE);
+        }
+
+        long start = System.nanoTime();
+        try {
+            templateEngine.process(template, context, buffer);
+            stats.computeIfAbsent(template, name -> new RenderStats()).record(System.nanoTime() - start, buffer.size());
+
+            response.setContentType("text/html;charset=UTF-8");
+            buffer.writeTo(response.getWriter());
+        } finally {
+            if (buffer.size() <= MAX_RETAINED_BUFFER_SIZE) {
+                buffer.reset();
+                buffers.offer(buffer);
+            }
+        }
+    }
+
+    /**
+     * Get the render time statistics of all templates that have been rendered.
+     * @return Unmodifiable view of the statistics, keyed by the template name.
+     */
+    public Map<String, RenderStats> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * Write the render time statistics of the templates as Prometheus metrics.
+     * @param out The writer of the metric families.
+     */
+    public void collectMetrics(PrometheusWriter out) {
+        out.summaries("hangman_template_render_seconds", "Time spent rendering the templates.", "template", stats,
+                      templateStats -> templateStats.getTotalNanos() / PrometheusWriter.NANOS_PER_SECOND,
+                      RenderStats::getRenderCount);
+        out.gauges("hangman_template_render_seconds_max", "Longest render of the templates.", "template", stats,
+                   templateStats -> templateStats.getMaxNanos() / PrometheusWriter.NANOS_PER_SECOND);
+        out.counters("hangman_template_render_chars_total", "Characters rendered from the templates.", "template", stats,
+                     RenderStats::getTotalChars);
+    }
+}
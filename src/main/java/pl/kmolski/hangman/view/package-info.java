@@ -0,0 +1,8 @@
+/**
+ * Template rendering for the hangman game.
+ *
+ * @since 5.0
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+package pl.kmolski.hangman.view;
@@ -0,0 +1,118 @@
+package pl.kmolski.hangman.controller;
+
+import org.junit.jupiter.api.Test;
+import pl.kmolski.hangman.model.HangmanDictionary;
+import pl.kmolski.hangman.model.HangmanGame;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the GameTokens class.
+ *
+ * This class contains unit tests for the following operations: encoding and decoding
+ * the state of a game, and rejecting tokens that are forged, tampered with or expired.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+public class GameTokensTest {
+    /**
+     * The secret of the tokens.
+     */
+    private static final byte[] SECRET = "test secret".getBytes(StandardCharsets.UTF_8);
+    /**
+     * The time at which the tokens are issued.
+     */
+    private static final Instant NOW = Instant.parse("2021-01-01T12:00:00Z");
+
+    /**
+     * Create a codec whose clock is fixed at the specified time.
+     * @param secret The secret of the tokens.
+     * @param now The current time.
+     * @return The codec.
+     */
+    private static GameTokens tokens(byte[] secret, Instant now) {
+        return new GameTokens(secret, Duration.ofHours(1), Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    /**
+     * Create a saved game in the middle of a round.
+     * @return The game.
+     */
+    private static HangmanGame savedGame() {
+        return HangmanGame.restore(42, 7, HangmanDictionary.reference(17, 3, 6, 2),
+                                   "słońce", " o z ", 1, 1);
+    }
+
+    /**
+     * Verify that the decoded game has the state of the encoded game, and that the
+     * token does not reveal the current word.
+     */
+    @Test
+    void testRoundTrip() {
+        HangmanGame model = savedGame();
+        String token = tokens(SECRET, NOW).encode(model);
+        assertTrue(token.length() < 128, "The token is not compact!");
+        assertFalse(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).contains("słońce"),
+                    "The token reveals the current word!");
+
+        HangmanGame decoded = tokens(SECRET, NOW.plusSeconds(60)).decode(token).orElseThrow();
+        assertEquals(model.getId(), decoded.getId(), "The save ID was not restored!");
+        assertEquals(model.getVersion(), decoded.getVersion(), "The save version was not restored!");
+        assertEquals(model.getCurrentWord(), decoded.getCurrentWord(), "The current word was not restored!");
+        assertEquals(model.getMaskedWord(), decoded.getMaskedWord(), "The masked word was not restored!");
+        assertEquals(model.getMisses(), decoded.getMisses(), "The miss count was not restored!");
+        assertEquals(model.getWordsRemaining(), decoded.getWordsRemaining(), "The remaining words were not restored!");
+        assertEquals(17L, decoded.getDictionary().getId(), "The dictionary reference was not restored!");
+        assertEquals(2, decoded.getDictionary().getDrawn(), "The number of words taken was not restored!");
+        assertFalse(decoded.isGameOver(), "The restored game is over!");
+    }
+
+    /**
+     * Verify that tokens which are signed with another secret or modified are rejected.
+     */
+    @Test
+    void testRejectForgedTokens() {
+        String token = tokens(SECRET, NOW).encode(savedGame());
+        assertTrue(tokens("other secret".getBytes(StandardCharsets.UTF_8), NOW).decode(token).isEmpty(),
+                   "A token signed with another secret was accepted!");
+
+        byte[] bytes = Base64.getUrlDecoder().decode(token);
+        bytes[20] ^= 1;
+        assertTrue(tokens(SECRET, NOW).decode(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes)).isEmpty(),
+                   "A modified token was accepted!");
+        assertTrue(tokens(SECRET, NOW).decode("not a token").isEmpty(), "A malformed token was accepted!");
+        assertTrue(tokens(SECRET, NOW).decode("").isEmpty(), "An empty token was accepted!");
+    }
+
+    /**
+     * Verify that tokens are rejected after their maximum age.
+     */
+    @Test
+    void testRejectExpiredTokens() {
+        String token = tokens(SECRET, NOW).encode(savedGame());
+        assertTrue(tokens(SECRET, NOW.plus(Duration.ofMinutes(59))).decode(token).isPresent(),
+                   "A token was rejected before its maximum age!");
+        assertTrue(tokens(SECRET, NOW.plus(Duration.ofMinutes(61))).decode(token).isEmpty(),
+                   "An expired token was accepted!");
+    }
+
+    /**
+     * Verify that games without a save cannot be stored in a token.
+     */
+    @Test
+    void testRejectUnsavedGames() {
+        var model = new HangmanGame();
+        model.addWords(HangmanDictionary.DEFAULT_WORDS);
+        model.nextRound();
+        assertThrows(IllegalStateException.class, () -> tokens(SECRET, NOW).encode(model),
+                     "An unsaved game was stored in a token!");
+    }
+}
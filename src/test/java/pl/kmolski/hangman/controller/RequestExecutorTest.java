@@ -0,0 +1,325 @@
+package pl.kmolski.hangman.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the RequestExecutor class.
+ *
+ * This class contains unit tests for the following operations: calling the handler synchronously
+ * when async mode is disabled or unsupported, falling back from virtual to platform threads,
+ * rejecting the requests over the in-flight limit, answering the requests that fail or time out,
+ * and discarding the writes of a handler after its request has timed out.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+public class RequestExecutorTest {
+    /**
+     * The maximum time to wait for a handler, in seconds.
+     */
+    private static final long WAIT_SECONDS = 10;
+
+    /**
+     * The executor under test.
+     */
+    private RequestExecutor executor;
+
+    /**
+     * Stand-in for the container side of a request: the response and the async context.
+     */
+    private static class Exchange {
+        /**
+         * The status code sent to the client.
+         */
+        private volatile int status = HttpServletResponse.SC_OK;
+        /**
+         * The headers sent to the client.
+         */
+        private final Map<String, String> headers = new HashMap<>();
+        /**
+         * The body sent to the client.
+         */
+        private final StringWriter body = new StringWriter();
+        /**
+         * The listeners registered on the async context.
+         */
+        private final List<AsyncListener> listeners = new ArrayList<>();
+        /**
+         * Released when the request is completed.
+         */
+        private final CountDownLatch completed = new CountDownLatch(1);
+        /**
+         * The number of times that the request was completed.
+         */
+        private volatile int completions = 0;
+        /**
+         * Whether the request supports async mode.
+         */
+        private final boolean asyncSupported;
+
+        /**
+         * Create the stand-in of a request.
+         * @param asyncSupported Whether the request supports async mode.
+         */
+        Exchange(boolean asyncSupported) {
+            this.asyncSupported = asyncSupported;
+        }
+
+        /**
+         * Create the HTTP request.
+         * @return The request stand-in.
+         */
+        HttpServletRequest request() {
+            var context = proxy(AsyncContext.class, (name, args) -> {
+                if (name.equals("addListener")) { listeners.add((AsyncListener) args[0]); }
+                if (name.equals("complete")) {
+                    completions++;
+                    completed.countDown();
+                }
+                return null;
+            });
+            var servletContext = proxy(ServletContext.class, (name, args) -> null);
+            return proxy(HttpServletRequest.class, (name, args) -> {
+                switch (name) {
+                    case "isAsyncSupported": return asyncSupported;
+                    case "startAsync": return context;
+                    case "getServletContext": return servletContext;
+                    case "getRequestURI": return "/test";
+                    default: return null;
+                }
+            });
+        }
+
+        /**
+         * Create the HTTP response.
+         * @return The response stand-in.
+         */
+        HttpServletResponse response() {
+            var writer = new PrintWriter(body, true);
+            return proxy(HttpServletResponse.class, (name, args) -> {
+                switch (name) {
+                    case "sendError":
+                    case "setStatus": status = (int) args[0]; return null;
+                    case "setHeader": headers.put((String) args[0], (String) args[1]); return null;
+                    case "getWriter": return writer;
+                    case "reset":
+                        headers.clear();
+                        status = HttpServletResponse.SC_OK;
+                        return null;
+                    default: return null;
+                }
+            });
+        }
+
+        /**
+         * Wait until the request is completed.
+         */
+        void awaitCompletion() throws InterruptedException {
+            assertTrue(completed.await(WAIT_SECONDS, TimeUnit.SECONDS), "The request was not completed!");
+        }
+
+        /**
+         * Signal a timeout to the listeners of the request, like the container does.
+         */
+        void timeout() throws IOException {
+            for (var listener : listeners) {
+                listener.onTimeout(null);
+            }
+        }
+    }
+
+    /**
+     * Handler for the methods of a proxied servlet API interface.
+     */
+    @FunctionalInterface
+    private interface MethodHandler {
+        /**
+         * Handle a method call.
+         * @param name The method name.
+         * @param args The method arguments.
+         * @return The result of the call.
+         */
+        Object invoke(String name, Object[] args);
+    }
+
+    /**
+     * Create a proxy instance of the interface.
+     * @param type The interface class.
+     * @param handler The method handler.
+     * @param <T> The interface type.
+     * @return The proxy instance.
+     */
+    private static <T> T proxy(Class<T> type, MethodHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Object result = handler.invoke(method.getName(), args);
+            if (result == null && method.getReturnType() == boolean.class) { return false; }
+            if (result == null && method.getReturnType() == int.class) { return 0; }
+            if (result == null && method.getReturnType() == long.class) { return 0L; }
+            return result;
+        }));
+    }
+
+    /**
+     * Stop the executor after every test.
+     */
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Verify that the handler is called on the calling thread if async mode is disabled or unsupported.
+     */
+    @Test
+    void testSynchronousFallback() throws Exception {
+        var caller = Thread.currentThread();
+        for (var mode : List.of(RequestExecutor.Mode.OFF, RequestExecutor.Mode.PLATFORM)) {
+            executor = new RequestExecutor(mode, 1, 1, 1000);
+            var exchange = new Exchange(false);
+            var handlerThread = new Thread[1];
+            executor.execute(exchange.request(), exchange.response(), (request, response) -> {
+                handlerThread[0] = Thread.currentThread();
+                response.getWriter().print("done");
+            });
+
+            assertSame(caller, handlerThread[0], "The handler was not called synchronously!");
+            assertEquals("done", exchange.body.toString(), "The response was not written!");
+            assertTrue(exchange.listeners.isEmpty(), "The request was started in async mode!");
+            assertEquals(0, executor.getAccepted(), "A synchronous request was counted as accepted!");
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Verify that the virtual thread mode falls back to platform threads if they are unsupported.
+     */
+    @Test
+    void testVirtualThreadFallback() throws Exception {
+        executor = new RequestExecutor(RequestExecutor.Mode.VIRTUAL, 1, 1, 1000);
+        var expected = Runtime.version().feature() >= 21 ? RequestExecutor.Mode.VIRTUAL : RequestExecutor.Mode.PLATFORM;
+        assertEquals(expected, executor.getMode(), "The executor did not fall back to platform threads!");
+
+        var exchange = new Exchange(true);
+        executor.execute(exchange.request(), exchange.response(), (request, response) -> response.getWriter().print("done"));
+        exchange.awaitCompletion();
+        assertEquals("done", exchange.body.toString(), "The response was not written!");
+        assertEquals(1, executor.getAccepted(), "The request was not accepted!");
+        assertEquals(0, executor.getInFlight(), "The request is still in flight!");
+    }
+
+    /**
+     * Verify that the requests over the in-flight limit are rejected with HTTP 503.
+     */
+    @Test
+    void testRejection() throws Exception {
+        executor = new RequestExecutor(RequestExecutor.Mode.PLATFORM, 1, 1, 1000);
+        var release = new CountDownLatch(1);
+        var first = new Exchange(true);
+        executor.execute(first.request(), first.response(), (request, response) -> await(release));
+
+        var second = new Exchange(true);
+        executor.execute(second.request(), second.response(), (request, response) -> fail("The request was not rejected!"));
+        assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, second.status, "The status is not 503!");
+        assertEquals("1", second.headers.get("Retry-After"), "The Retry-After header was not sent!");
+        assertEquals(1, executor.getRejected(), "The rejected request was not counted!");
+
+        release.countDown();
+        first.awaitCompletion();
+        assertEquals(HttpServletResponse.SC_OK, first.status, "The accepted request did not succeed!");
+        assertEquals(1, executor.getAccepted(), "The accepted request was not counted!");
+    }
+
+    /**
+     * Verify that a request that fails with an exception is answered with HTTP 500.
+     */
+    @Test
+    void testFailure() throws Exception {
+        executor = new RequestExecutor(RequestExecutor.Mode.PLATFORM, 1, 1, 1000);
+        var exchange = new Exchange(true);
+        executor.execute(exchange.request(), exchange.response(), (request, response) -> {
+            throw new IllegalStateException("Handler failure");
+        });
+
+        exchange.awaitCompletion();
+        assertEquals(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, exchange.status, "The status is not 500!");
+        assertEquals(1, executor.getFailed(), "The failed request was not counted!");
+        assertEquals(0, executor.getInFlight(), "The failed request is still in flight!");
+    }
+
+    /**
+     * Verify that a timed out request is answered with HTTP 503, and that nothing
+     * that its handler sends afterwards reaches the response.
+     */
+    @Test
+    void testTimeout() throws Exception {
+        executor = new RequestExecutor(RequestExecutor.Mode.PLATFORM, 1, 1, 1000);
+        var release = new CountDownLatch(1);
+        var finished = new CountDownLatch(1);
+        var exchange = new Exchange(true);
+        executor.execute(exchange.request(), exchange.response(), (request, response) -> {
+            try {
+                await(release);
+                response.setStatus(HttpServletResponse.SC_CREATED);
+                response.setHeader("X-Late", "true");
+                response.getWriter().print("late");
+                response.getWriter().flush();
+            } finally {
+                finished.countDown();
+            }
+        });
+        assertEquals(1, exchange.listeners.size(), "The timeout listener was not registered!");
+
+        exchange.timeout();
+        exchange.awaitCompletion();
+        assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, exchange.status, "The status is not 503!");
+        assertEquals("1", exchange.headers.get("Retry-After"), "The Retry-After header was not sent!");
+        assertEquals(1, executor.getTimedOut(), "The timed out request was not counted!");
+
+        release.countDown();
+        assertTrue(finished.await(WAIT_SECONDS, TimeUnit.SECONDS), "The handler did not finish!");
+        // The permit is released after the handler returns, so wait until the request leaves the executor.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(WAIT_SECONDS);
+        while (executor.getInFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+
+        assertEquals(0, executor.getInFlight(), "The timed out request is still in flight!");
+        assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, exchange.status, "The late status was sent!");
+        assertFalse(exchange.headers.containsKey("X-Late"), "The late header was sent!");
+        assertEquals("", exchange.body.toString(), "The late body was written!");
+        assertEquals(1, exchange.completions, "The request was completed twice!");
+    }
+
+    /**
+     * Wait for the latch, as a handler that blocks on I/O.
+     * @param latch The latch.
+     */
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(WAIT_SECONDS, TimeUnit.SECONDS), "The handler was not released!");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package pl.kmolski.hangman.dao;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the EntityCache class.
+ *
+ * This class contains unit tests for the following operations: evicting the least
+ * recently used entries, invalidating entries, rejecting unusable entries and values
+ * loaded before an invalidation, disabling the cache, and the hit and miss statistics.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+public class EntityCacheTest {
+    /**
+     * Verify that the least recently used entry is evicted when the cache is full.
+     */
+    @Test
+    void testLeastRecentlyUsedEviction() {
+        var cache = new EntityCache<Integer, String>(2);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        assertEquals("one", cache.get(1), "A cached entry was not found!");
+
+        cache.put(3, "three");
+        assertEquals(2, cache.getSize(), "The cache has grown beyond its maximum size!");
+        assertEquals(1, cache.getEvictions(), "The eviction was not counted!");
+        assertNull(cache.get(2), "The least recently used entry was not evicted!");
+        assertEquals("one", cache.get(1), "A recently used entry was evicted!");
+        assertEquals("three", cache.get(3), "The newest entry was evicted!");
+    }
+
+    /**
+     * Verify that invalidated and unusable entries are removed and counted.
+     */
+    @Test
+    void testInvalidation() {
+        var cache = new EntityCache<Integer, String>(4);
+        cache.put(1, "one");
+        cache.put(2, "two");
+
+        cache.invalidate(1);
+        cache.invalidate(3);
+        assertNull(cache.get(1), "An invalidated entry was found!");
+        assertNull(cache.get(2, value -> false), "An unusable entry was returned!");
+        assertEquals(0, cache.getSize(), "The unusable entry was not removed!");
+        assertEquals(2, cache.getInvalidations(), "The invalidations were not counted correctly!");
+    }
+
+    /**
+     * Verify that a value loaded before its key was invalidated (e.g. by a concurrent write)
+     * is not cached, and that a value loaded afterwards is.
+     */
+    @Test
+    void testStampedPut() {
+        var cache = new EntityCache<Integer, String>(4);
+        long stamp = cache.stamp(1);
+        cache.invalidate(1);
+        assertFalse(cache.put(1, "outdated", stamp), "A value loaded before the invalidation was cached!");
+        assertNull(cache.get(1), "An outdated value was found!");
+
+        assertTrue(cache.put(1, "current", cache.stamp(1)), "A value loaded after the invalidation was not cached!");
+        assertEquals("current", cache.get(1), "The current value was not found!");
+        assertTrue(cache.put(2, "two", cache.stamp(2)), "A value of another key was not cached!");
+    }
+
+    /**
+     * Verify the hit and miss statistics.
+     */
+    @Test
+    void testStatistics() {
+        var cache = new EntityCache<Integer, String>(4);
+        assertEquals(0.0, cache.getHitRate(), "The hit rate without lookups is not 0!");
+
+        cache.put(1, "one");
+        cache.get(1);
+        cache.get(1);
+        cache.get(1);
+        cache.get(2);
+        assertEquals(3, cache.getHits(), "The hits were not counted correctly!");
+        assertEquals(1, cache.getMisses(), "The misses were not counted correctly!");
+        assertEquals(0.75, cache.getHitRate(), 1e-9, "The hit rate is not correct!");
+    }
+
+    /**
+     * Verify that a cache with a maximum size of 0 holds no entries.
+     */
+    @Test
+    void testDisabledCache() {
+        var cache = new EntityCache<Integer, String>(0);
+        cache.put(1, "one");
+        assertNull(cache.get(1), "A disabled cache returned an entry!");
+        assertEquals(0, cache.getSize(), "A disabled cache holds entries!");
+        assertThrows(IllegalArgumentException.class, () -> new EntityCache<Integer, String>(-1),
+                     "A cache with a negative size was created!");
+    }
+}
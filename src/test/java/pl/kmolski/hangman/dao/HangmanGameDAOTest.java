@@ -0,0 +1,624 @@
+package pl.kmolski.hangman.dao;
+
+import org.junit.jupiter.api.*;
+import pl.kmolski.hangman.HangmanApplication;
+import pl.kmolski.hangman.model.HangmanDictionary;
+import pl.kmolski.hangman.model.HangmanGame;
+import pl.kmolski.hangman.model.InvalidGuessException;
+import pl.kmolski.hangman.model.WordCorpus;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.io.ByteArrayInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the HangmanGameDAO class, against an embedded H2 database.
+ *
+ * This class contains integration tests for the following operations: saving, updating,
+ * loading and deleting games, batched saves and updates, rollback of failed transactions
+ * rejection of concurrent writes and of replayed older states, write-behind flushes of
+ * games guarded by a lock and of games with buffered changes only, session serialization
+ * of saved games and games restored with a dictionary reference, the read-through caches of the loaded saves,
+ * concurrent saves and imports of the same new corpus, and streaming imports of word files.
+ * The commit throughput is measured by CommitThroughputBenchmark.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.11
+ */
+public class HangmanGameDAOTest {
+    /**
+     * The factory of the "hangman-test" persistence unit.
+     */
+    private static EntityManagerFactory emf;
+    /**
+     * The entity manager of the current test.
+     */
+    private EntityManager em;
+    /**
+     * The DAO that is used during testing.
+     */
+    private HangmanGameDAO dao;
+    /**
+     * The lock that guards the games of the test, like the lock of a session.
+     */
+    private final Lock guard = new ReentrantLock();
+
+    /**
+     * Create the in-memory database.
+     */
+    @BeforeAll
+    static void setUpDatabase() {
+        emf = Persistence.createEntityManagerFactory("hangman-test");
+    }
+
+    /**
+     * Drop the in-memory database.
+     */
+    @AfterAll
+    static void tearDownDatabase() {
+        emf.close();
+    }
+
+    /**
+     * Sets up a DAO with a new entity manager before each test.
+     */
+    @BeforeEach
+    void setUp() {
+        em = emf.createEntityManager();
+        dao = new LocalTransactionGameDAO(em);
+    }
+
+    /**
+     * Close the entity manager after each test.
+     */
+    @AfterEach
+    void tearDown() {
+        em.close();
+    }
+
+    /**
+     * Create a new game with the default words, in the first round.
+     * @return The game.
+     */
+    private static HangmanGame newGame() {
+        var model = new HangmanGame();
+        model.addWords(HangmanDictionary.DEFAULT_WORDS);
+        model.nextRound();
+        return model;
+    }
+
+    /**
+     * Load a game save, detached like in the container.
+     * @param id The game save ID.
+     * @return The loaded game.
+     */
+    private HangmanGame load(long id) {
+        HangmanGame model = dao.get(id).orElseThrow();
+        em.clear();
+        return model;
+    }
+
+    /**
+     * Update a game with the INTERVAL durability level, so the update is buffered.
+     * @param model The updated game.
+     */
+    private void updateBuffered(HangmanGame model) {
+        String durability = System.setProperty(HangmanApplication.DURABILITY_PROPERTY, Durability.INTERVAL.name());
+        try {
+            dao.update(model, guard);
+        } finally {
+            if (durability == null) {
+                System.clearProperty(HangmanApplication.DURABILITY_PROPERTY);
+            } else {
+                System.setProperty(HangmanApplication.DURABILITY_PROPERTY, durability);
+            }
+        }
+    }
+
+    /**
+     * Verify that a saved and updated game is loaded with the same state.
+     * @throws InvalidGuessException Never thrown, the guesses are valid.
+     */
+    @Test
+    void testSaveAndUpdate() throws InvalidGuessException {
+        HangmanGame model = newGame();
+        dao.save(model);
+        assertNotNull(model.getId(), "The saved game has no identifier!");
+
+        model.tryLetter("o");
+        dao.update(model, guard);
+        model.nextRound();
+        dao.commitRound(model, guard);
+
+        HangmanGame loaded = load(model.getId());
+        assertEquals(model.getCurrentWord(), loaded.getCurrentWord(), "The current word was not written!");
+        assertEquals(model.getGuessHistory(), loaded.getGuessHistory(), "The guessed letters were not written!");
+        assertEquals(model.getWordsRemaining(), loaded.getWordsRemaining(), "The dictionary was not written!");
+        assertEquals(model.getDictionary().getDrawOrder(), loaded.getDictionary().getDrawOrder(),
+                     "The draw order was not written!");
+        assertEquals(model.getVersion(), loaded.getVersion(), "The version of the game is out of date!");
+        assertDoesNotThrow(model::nextRound, "The saved game cannot take words outside a transaction!");
+        assertDoesNotThrow(loaded::nextRound, "The loaded game cannot take words outside a transaction!");
+    }
+
+    /**
+     * Verify that `saveAll()` and `flushAll()` write all games in a single transaction.
+     * @throws InvalidGuessException Never thrown, the guesses are valid.
+     */
+    @Test
+    void testBatches() throws InvalidGuessException {
+        var models = List.of(newGame(), newGame(), newGame());
+        long transactions = dao.getConflictStats().getTransactions();
+        dao.saveAll(models);
+        // The shared corpus of the games is interned in its own transaction, before the games are saved.
+        assertEquals(transactions + 2, dao.getConflictStats().getTransactions(), "The games were not saved in one transaction!");
+
+        for (HangmanGame model : models) {
+            model.tryLetter("e");
+        }
+        dao.flushAll(models);
+        assertEquals(transactions + 3, dao.getConflictStats().getTransactions(), "The games were not written in one transaction!");
+
+        for (HangmanGame model : models) {
+            assertEquals(model.getGuessHistory(), load(model.getId()).getGuessHistory(), "A game of the batch was not written!");
+        }
+    }
+
+    /**
+     * Verify that a failed transaction is rolled back.
+     */
+    @Test
+    void testRollback() {
+        HangmanGame model = newGame();
+        assertThrows(IllegalStateException.class, () -> dao.executeInsideTransaction(em -> {
+            em.persist(model);
+            em.flush();
+            throw new IllegalStateException("failure after the write");
+        }), "The failure of the action was not propagated!");
+        assertTrue(model.getId() == null || dao.get(model.getId()).isEmpty(), "The failed transaction was not rolled back!");
+    }
+
+    /**
+     * Verify that when the same save is written by two sessions, the write of the second
+     * one is rejected with a conflict, without creating another save, and the rest of its
+     * batch is still written.
+     * @throws InvalidGuessException Never thrown, the guesses are valid.
+     */
+    @Test
+    void testConcurrentWrites() throws InvalidGuessException {
+        HangmanGame first = newGame();
+        HangmanGame other = newGame();
+        dao.saveAll(List.of(first, other));
+        long id = first.getId();
+        HangmanGame second = load(id);
+        long rejected = dao.getConflictStats().getRejected();
+        long saves = dao.getSummaries(null, 1000).getItems().size();
+
+        first.tryLetter("a");
+        dao.update(first, guard);
+        second.tryLetter("b");
+        other.tryLetter("c");
+        assertThrows(SaveConflictException.class, () -> dao.flushAll(List.of(second, other)),
+                     "The stale write was not reported!");
+
+        assertEquals(rejected + 1, dao.getConflictStats().getRejected(), "The stale write was not rejected!");
+        assertEquals(id, second.getId(), "The stale game was detached from its save!");
+        assertEquals(saves, dao.getSummaries(null, 1000).getItems().size(), "The stale game was written as a new save!");
+        assertEquals(first.getGuessHistory(), load(id).getGuessHistory(), "The first session's progress was overwritten!");
+        assertEquals(other.getGuessHistory(), load(other.getId()).getGuessHistory(), "The rest of the batch was not written!");
+        assertThrows(SaveConflictException.class, () -> dao.update(second, guard), "The stale game can still be written!");
+    }
+
+    /**
+     * Verify that an older state of a game (e.g. from a replayed state token) cannot overwrite
+     * or delete its save, so a guess cannot be undone by restoring the state before it.
+     * @throws InvalidGuessException Never thrown, the guesses are valid.
+     */
+    @Test
+    void testReplayedState() throws InvalidGuessException {
+        HangmanGame model = newGame();
+        dao.save(model);
+        HangmanDictionary dictionary = model.getDictionary();
+        HangmanGame replayed = HangmanGame.restore(model.getId(), model.getVersion(), dictionary,
+                model.getCurrentWord(), model.getGuessHistory(), model.getMisses(), model.getWordsGuessed());
+
+        model.tryLetter("q");
+        dao.update(model, guard);
+        replayed.tryLetter("o");
+        assertThrows(SaveConflictException.class, () -> dao.update(replayed, guard), "The replayed state overwrote the save!");
+        assertThrows(SaveConflictException.class, () -> dao.delete(replayed), "The replayed state deleted the save!");
+
+        HangmanGame stored = load(model.getId());
+        assertEquals(model.getGuessHistory(), stored.getGuessHistory(), "The stored state was not kept!");
+        assertEquals(model.getVersion(), stored.getVersion(), "The version of the save has changed!");
+    }
+
+    /**
+     * Verify that a buffered game is not written by a flush while its lock is held by another
+     * thread (a request of its session), and that it is written by the next flush.
+     * @throws Exception Thrown if the locking thread is interrupted.
+     */
+    @Test
+    void testGuardedFlush() throws Exception {
+        HangmanGame model = newGame();
+        dao.save(model);
+        long version = model.getVersion();
+        WriteBehindBuffer buffer = dao.getWriteBehindStats();
+
+        model.tryLetter("e");
+        updateBuffered(model);
+        assertEquals(1, buffer.getPendingCount(), "The update was not buffered!");
+
+        var locked = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var request = new Thread(() -> {
+            guard.lock();
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                guard.unlock();
+            }
+        });
+        request.start();
+        try {
+            locked.await();
+            dao.flushPending();
+            assertEquals(version, model.getVersion(), "A game was written while its lock was held!");
+            assertEquals(1, buffer.getPendingCount(), "The locked game was removed from the buffer!");
+        } finally {
+            release.countDown();
+            request.join();
+        }
+
+        dao.flushPending();
+        assertEquals(0, buffer.getPendingCount(), "The game was not flushed after its lock was released!");
+        assertEquals(model.getGuessHistory(), load(model.getId()).getGuessHistory(), "The buffered guess was not written!");
+    }
+
+    /**
+     * Verify that `flushIfPending()` writes a game only if it has buffered changes, so the version
+     * of the save is not incremented for the other sessions that have loaded it.
+     * @throws InvalidGuessException Never thrown, the guesses are valid.
+     */
+    @Test
+    void testFlushIfPending() throws InvalidGuessException {
+        HangmanGame model = newGame();
+        dao.save(model);
+        HangmanGame other = load(model.getId());
+        long version = model.getVersion();
+
+        assertFalse(dao.flushIfPending(model), "A game without buffered changes was written!");
+        assertEquals(version, load(model.getId()).getVersion(), "The version of the save has changed!");
+
+        model.tryLetter("i");
+        updateBuffered(model);
+        assertTrue(dao.flushIfPending(model), "The buffered changes were not written!");
+        assertEquals(model.getGuessHistory(), load(model.getId()).getGuessHistory(), "The buffered guess was not written!");
+        assertFalse(dao.flushIfPending(model), "The written changes are still buffered!");
+        assertFalse(dao.flushIfPending(other), "The game of another session was written!");
+    }
+
+    /**
+     * Verify that a session cannot delete a save that has been modified by another session.
+     * @throws InvalidGuessException Never thrown, the guesses are valid.
+     */
+    @Test
+    void testStaleDelete() throws InvalidGuessException {
+        HangmanGame owner = newGame();
+        dao.save(owner);
+        HangmanGame stale = load(owner.getId());
+
+        owner.tryLetter("k");
+        dao.update(owner, guard);
+        assertThrows(SaveConflictException.class, () -> dao.delete(stale), "The stale delete was not reported!");
+        assertTrue(dao.get(owner.getId()).isPresent(), "A stale session deleted the save!");
+
+        dao.delete(owner);
+        assertTrue(dao.get(owner.getId()).isEmpty(), "The save was not deleted by its owner!");
+    }
+
+    /**
+     * Verify that a saved game keeps its save and version when it is serialized with
+     * a reference to its stored corpus, and that the restored game can still be written.
+     * @throws Exception Thrown if the game cannot be serialized.
+     */
+    @Test
+    void testSessionSerialization() throws Exception {
+        HangmanGame model = newGame();
+        dao.save(model);
+
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(bytes)) {
+            out.writeObject(model);
+        }
+        HangmanGame restored;
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            restored = (HangmanGame) in.readObject();
+        }
+
+        assertEquals(model.getId(), restored.getId(), "The save of the game was not restored!");
+        assertEquals(model.getVersion(), restored.getVersion(), "The version of the save was not restored!");
+        restored.nextRound();
+        restored.tryLetter("a");
+        dao.update(restored, guard);
+        assertEquals(restored.getGuessHistory(), load(model.getId()).getGuessHistory(), "The restored game was not written!");
+        assertEquals(restored.getDictionary().getDrawOrder(), load(model.getId()).getDictionary().getDrawOrder(),
+                     "The draw order of the restored game was not written!");
+    }
+
+    /**
+     * Verify that a game restored from its state with a dictionary reference can be played
+     * and written, and that its dictionary is loaded only when it takes the next word.
+     * @throws InvalidGuessException Never thrown, the guesses are valid.
+     */
+    @Test
+    void testDictionaryReference() throws InvalidGuessException {
+        HangmanGame model = newGame();
+        dao.save(model);
+        HangmanDictionary dictionary = model.getDictionary();
+
+        var loads = new ArrayList<Long>();
+        HangmanDictionary.setLoader((id, version) -> {
+            loads.add(id);
+            HangmanDictionary stored = dao.findDictionary(id, version).orElseThrow();
+            em.clear();
+            return stored;
+        });
+        try {
+            HangmanGame restored = HangmanGame.restore(model.getId(), model.getVersion(),
+                    HangmanDictionary.reference(dictionary.getId(), dictionary.getVersion(),
+                                                dictionary.getWordCount(), dictionary.getDrawn()),
+                    model.getCurrentWord(), model.getGuessHistory(), model.getMisses(), model.getWordsGuessed());
+
+            restored.tryLetter("o");
+            dao.update(restored, guard);
+            assertTrue(loads.isEmpty(), "The dictionary was loaded for a guess!");
+
+            restored.nextRound();
+            dao.commitRound(restored, guard);
+            assertEquals(List.of(dictionary.getId()), loads, "The dictionary was not loaded exactly once!");
+            assertNotEquals(model.getCurrentWord(), restored.getCurrentWord(), "A word was taken twice!");
+
+            HangmanGame loaded = load(model.getId());
+            assertEquals(restored.getCurrentWord(), loaded.getCurrentWord(), "The restored game was not written!");
+            assertEquals(restored.getDictionary().getDrawOrder(), loaded.getDictionary().getDrawOrder(),
+                         "The draw order of the restored game was not written!");
+        } finally {
+            HangmanDictionary.setLoader(null);
+        }
+    }
+
+    /**
+     * Verify that loaded saves are served from the cache as new instances, and that the cached
+     * snapshots are invalidated when the save is written or deleted, or its dictionary is outdated.
+     * @throws InvalidGuessException Never thrown, the guesses are valid.
+     */
+    @Test
+    void testReadThroughCache() throws InvalidGuessException {
+        EntityCache<?, ?> games = dao.getCaches().get("games");
+        HangmanGame model = newGame();
+        dao.save(model);
+
+        long misses = games.getMisses();
+        HangmanGame first = load(model.getId());
+        assertEquals(misses + 1, games.getMisses(), "The first load was not a cache miss!");
+        long hits = games.getHits();
+        HangmanGame second = load(model.getId());
+        assertEquals(hits + 1, games.getHits(), "The second load was not a cache hit!");
+        assertNotSame(first, second, "A cached game was shared by two loads!");
+        assertEquals(first.getCurrentWord(), second.getCurrentWord(), "The cached game has another word!");
+        assertEquals(first.getVersion(), second.getVersion(), "The cached game has another version!");
+
+        second.tryLetter("a");
+        second.nextRound();
+        dao.commitRound(second, guard);
+        HangmanGame updated = load(model.getId());
+        assertEquals(second.getCurrentWord(), updated.getCurrentWord(), "An outdated game was loaded from the cache!");
+        assertEquals(second.getVersion(), updated.getVersion(), "An outdated version was loaded from the cache!");
+
+        HangmanDictionary dictionary = updated.getDictionary();
+        assertTrue(dao.findDictionary(dictionary.getId(), dictionary.getVersion() + 1).isPresent(),
+                   "The dictionary was not loaded from the database!");
+        em.clear();
+        EntityCache<?, ?> dictionaries = dao.getCaches().get("dictionaries");
+        hits = dictionaries.getHits();
+        assertEquals(dictionary.getVersion(), dao.findDictionary(dictionary.getId(), 0).orElseThrow().getVersion(),
+                     "The cached dictionary has another version!");
+        assertEquals(hits + 1, dictionaries.getHits(), "The dictionary was not loaded from the cache!");
+
+        dao.delete(updated);
+        assertTrue(dao.get(model.getId()).isEmpty(), "A deleted game was loaded from the cache!");
+    }
+
+    /**
+     * Verify that a word file is imported into a corpus that is returned as a reference without
+     * loading its words, that an identical file is resolved to the same corpus, and that the
+     * words of the imported corpus are loaded once a game takes a word.
+     * @throws IOException Never thrown, the files are read from memory.
+     */
+    @Test
+    void testImportCorpus() throws IOException {
+        String file = "Jabłko\n  gruszka \n\nśliwka\n";
+        var progress = new ImportProgress();
+        WordCorpus corpus = dao.importCorpus(new BufferedReader(new StringReader(file)), progress).orElseThrow();
+        assertNotNull(corpus.getId(), "The imported corpus has no identifier!");
+        assertEquals(3, corpus.size(), "The imported corpus has the wrong size!");
+        assertTrue(progress.isFinished(), "The import was not finished!");
+        assertEquals(3, progress.getWordsStored(), "The stored words were not counted!");
+
+        long corpusCount = em.createQuery("SELECT COUNT(c) FROM WordCorpus c", Long.class).getSingleResult();
+        WordCorpus duplicate = dao.importCorpus(new BufferedReader(new StringReader(file)), new ImportProgress())
+                                  .orElseThrow();
+        assertEquals(corpus.getId(), duplicate.getId(), "A duplicate file was not resolved to the stored corpus!");
+        assertEquals(corpusCount, em.createQuery("SELECT COUNT(c) FROM WordCorpus c", Long.class).getSingleResult(),
+                     "The corpus of a duplicate file was kept!");
+        assertTrue(dao.importCorpus(new BufferedReader(new StringReader(" \n\n")), new ImportProgress()).isEmpty(),
+                   "A corpus was imported from an empty file!");
+
+        var loads = new ArrayList<Long>();
+        WordCorpus.setLoader(id -> {
+            loads.add(id);
+            WordCorpus stored = dao.findCorpus(id).orElseThrow();
+            em.clear();
+            return stored;
+        });
+        try {
+            var model = new HangmanGame();
+            model.getDictionary().addCorpus(corpus);
+            dao.save(model);
+            assertTrue(loads.isEmpty(), "The words were loaded to save the game!");
+            model.nextRound();
+            assertEquals(List.of(corpus.getId()), loads, "The words were not loaded exactly once!");
+            assertTrue(List.of("jabłko", "gruszka", "śliwka").contains(model.getCurrentWord()),
+                       "The game took a word that is not in the file!");
+            dao.commitRound(model, guard);
+            assertEquals(model.getCurrentWord(), load(model.getId()).getCurrentWord(), "The game was not saved!");
+        } finally {
+            WordCorpus.setLoader(null);
+        }
+    }
+
+    /**
+     * Verify that the words of an imported file are normalized and deduplicated across the
+     * chunks of the import, like the words of a corpus created from a collection, so both
+     * have the same size and digest.
+     * @throws IOException Never thrown, the file is read from memory.
+     */
+    @Test
+    void testImportDeduplication() throws IOException {
+        var lines = new ArrayList<String>();
+        for (int i = 0; i <= CorpusImporter.CHUNK_SIZE; ++i) {
+            lines.add("Słowo" + i);
+        }
+        lines.add(" słowo0 ");
+        lines.add("SŁOWO" + CorpusImporter.CHUNK_SIZE);
+        var expected = new WordCorpus(lines);
+
+        WordCorpus corpus = dao.importCorpus(new BufferedReader(new StringReader(String.join("\n", lines))),
+                                             new ImportProgress()).orElseThrow();
+        assertEquals(CorpusImporter.CHUNK_SIZE + 1, corpus.size(), "Duplicates across the chunks were stored!");
+        assertEquals(expected.getDigest(),
+                     em.createQuery("SELECT c.digest FROM WordCorpus c WHERE c.id = :id", String.class)
+                       .setParameter("id", corpus.getId()).getSingleResult(),
+                     "The imported corpus and the corpus of the same words have different digests!");
+    }
+
+    /**
+     * Run the same task on several threads at once, each with its own DAO and entity manager,
+     * like concurrent requests.
+     * @param threads The number of threads.
+     * @param task The task, which gets the DAO of its thread.
+     * @param <T> The type of the result.
+     * @return The results of the tasks.
+     * @throws Exception Thrown if a task fails.
+     */
+    private static <T> List<T> runConcurrently(int threads, DaoTask<T> task) throws Exception {
+        var barrier = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            var futures = new ArrayList<Future<T>>();
+            for (int i = 0; i < threads; ++i) {
+                futures.add(executor.submit((Callable<T>) () -> {
+                    EntityManager threadEm = emf.createEntityManager();
+                    try {
+                        barrier.await();
+                        return task.run(new LocalTransactionGameDAO(threadEm));
+                    } finally {
+                        threadEm.close();
+                    }
+                }));
+            }
+            var results = new ArrayList<T>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Task that is run concurrently by `runConcurrently()`.
+     * @param <T> The type of the result.
+     */
+    @FunctionalInterface
+    private interface DaoTask<T> {
+        /**
+         * Run the task.
+         * @param dao The DAO of the thread.
+         * @return The result of the task.
+         * @throws Exception Thrown if the task fails.
+         */
+        T run(HangmanGameDAO dao) throws Exception;
+    }
+
+    /**
+     * Count the stored corpora with the digest.
+     * @param digest The digest of the corpus.
+     * @return The number of stored corpora.
+     */
+    private long countCorpora(String digest) {
+        return em.createQuery("SELECT COUNT(c) FROM WordCorpus c WHERE c.digest = :digest", Long.class)
+                 .setParameter("digest", digest).getSingleResult();
+    }
+
+    /**
+     * Verify that games with the same new corpus can be saved concurrently: the sessions that
+     * lose the race on the unique digest use the corpus that was stored by the winner.
+     * @throws Exception Thrown if a save fails.
+     */
+    @Test
+    void testConcurrentCorpusSaves() throws Exception {
+        var words = List.of("wyścig", UUID.randomUUID().toString().replace("-", ""));
+        List<Long> corpusIds = runConcurrently(4, threadDao -> {
+            var model = new HangmanGame();
+            model.addWords(words);
+            model.nextRound();
+            threadDao.save(model);
+            return model.getDictionary().getCorpora().get(0).getId();
+        });
+
+        assertEquals(1, corpusIds.stream().distinct().count(), "The games do not share the stored corpus!");
+        assertEquals(1, countCorpora(new WordCorpus(words).getDigest()), "The corpus was stored more than once!");
+    }
+
+    /**
+     * Verify that the same word file can be imported concurrently: the imports that lose the
+     * race on the unique digest drop their corpus and return the stored one.
+     * @throws Exception Thrown if an import fails.
+     */
+    @Test
+    void testConcurrentImports() throws Exception {
+        var words = List.of("import", UUID.randomUUID().toString().replace("-", ""));
+        List<Long> corpusIds = runConcurrently(4, threadDao -> threadDao
+                .importCorpus(new BufferedReader(new StringReader(String.join("\n", words))), new ImportProgress())
+                .orElseThrow().getId());
+
+        assertEquals(1, corpusIds.stream().distinct().count(), "The imports did not return the same corpus!");
+        assertEquals(1, countCorpora(new WordCorpus(words).getDigest()), "The corpus was stored more than once!");
+    }
+}
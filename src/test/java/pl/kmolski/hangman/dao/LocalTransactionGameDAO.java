@@ -0,0 +1,54 @@
+package pl.kmolski.hangman.dao;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import java.util.function.Function;
+
+/**
+ * HangmanGameDAO for the tests, which run outside the container: the transactions are
+ * resource-local transactions of an application-managed entity manager.
+ *
+ * The persistence context is cleared after every transaction, so the games are detached
+ * like in the container, where the persistence context is scoped to the transaction.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+class LocalTransactionGameDAO extends HangmanGameDAO {
+    /**
+     * The application-managed entity manager.
+     */
+    private final EntityManager em;
+
+    /**
+     * Create a DAO that uses the entity manager.
+     * @param em The application-managed entity manager.
+     */
+    LocalTransactionGameDAO(EntityManager em) {
+        super(em);
+        this.em = em;
+    }
+
+    /**
+     * Execute an action inside a resource-local transaction, with the same conflict
+     * handling as the container-managed transactions.
+     * @param action An action that is executed inside a transaction.
+     * @param <T> The type of the result.
+     * @return The result of the action.
+     */
+    @Override
+    public <T> T computeInsideTransaction(Function<EntityManager, T> action) {
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            T result = super.computeInsideTransaction(action);
+            tx.commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (tx.isActive()) { tx.rollback(); }
+            throw e;
+        } finally {
+            em.clear();
+        }
+    }
+}
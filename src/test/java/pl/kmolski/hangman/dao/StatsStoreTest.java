@@ -0,0 +1,166 @@
+package pl.kmolski.hangman.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import pl.kmolski.hangman.model.StatsRecord;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the StatsStore class.
+ *
+ * This class contains unit tests for the following operations:
+ * recording games and guesses, reading the statistics of unknown players, restoring stored statistics, taking snapshots,
+ * evicting the written statistics of the players and reading them together with the stored statistics.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.2
+ */
+public class StatsStoreTest {
+    /**
+     * The statistics store that is used during testing.
+     */
+    private StatsStore store;
+    /**
+     * The stored statistics of the players, keyed by the player ID.
+     */
+    private final Map<String, StatsRecord> stored = new HashMap<>();
+
+    /**
+     * Sets up an empty statistics store before each unit test.
+     */
+    @BeforeEach
+    void setUp() {
+        store = new StatsStore();
+    }
+
+    /**
+     * Read the statistics of a player from the store and the stored statistics.
+     * @param playerId The ID of the player.
+     * @return The statistics of the player.
+     */
+    private PlayerStats player(String playerId) {
+        return store.getPlayer(playerId, id -> Optional.ofNullable(stored.get(id)));
+    }
+
+    /**
+     * Verify that games and guesses are counted for the player and globally.
+     */
+    @Test
+    void testRecord() {
+        store.recordGuess("a", true);
+        store.recordGuess("a", false);
+        store.recordGuess("b", true);
+        store.recordGame("a", true);
+        store.recordGame("b", false);
+
+        PlayerStats player = player("a");
+        assertEquals(1, player.getWins(), "The player's wins were not counted correctly!");
+        assertEquals(0, player.getLosses(), "The player's losses were not counted correctly!");
+        assertEquals(1, player.getCorrectGuesses(), "The player's correct guesses were not counted correctly!");
+        assertEquals(1, player.getWrongGuesses(), "The player's wrong guesses were not counted correctly!");
+
+        PlayerStats global = store.getGlobal();
+        assertEquals(1, global.getWins(), "The global wins were not counted correctly!");
+        assertEquals(1, global.getLosses(), "The global losses were not counted correctly!");
+        assertEquals(2, global.getCorrectGuesses(), "The global correct guesses were not counted correctly!");
+        assertEquals(1, global.getWrongGuesses(), "The global wrong guesses were not counted correctly!");
+    }
+
+    /**
+     * Verify that reading the statistics of a player who has not played does not store them.
+     */
+    @Test
+    void testUnknownPlayer() {
+        assertEquals(0, player("a").getWins(), "An unknown player has statistics!");
+        assertEquals(0, player(null).getWins(), "A player without an ID has statistics!");
+        assertEquals(0, store.getPlayerCount(), "Reading the statistics stored the player!");
+
+        store.recordGuess("a", true);
+        assertEquals(1, store.getPlayerCount(), "The statistics of the player were not stored!");
+        assertEquals(1, player("a").getCorrectGuesses(), "The stored statistics were not returned!");
+    }
+
+    /**
+     * Verify that the guess accuracy is rounded to a whole percent.
+     * @param correct The number of correct guesses.
+     * @param wrong The number of wrong guesses.
+     * @param accuracy The expected accuracy.
+     */
+    @ParameterizedTest
+    @CsvSource({"0, 0, 0", "1, 0, 100", "1, 1, 50", "2, 1, 67", "0, 3, 0"})
+    void testAccuracy(int correct, int wrong, long accuracy) {
+        for (int i = 0; i < correct; ++i) { store.recordGuess("a", true); }
+        for (int i = 0; i < wrong; ++i) { store.recordGuess("a", false); }
+        assertEquals(accuracy, player("a").getAccuracy(), "The accuracy is incorrect!");
+    }
+
+    /**
+     * Verify that only the statistics that have changed since the last snapshot are snapshotted.
+     */
+    @Test
+    void testSnapshotDirty() {
+        assertTrue(store.snapshotDirty().isEmpty(), "Unchanged statistics were snapshotted!");
+
+        store.recordGame("a", true);
+        List<StatsRecord> snapshots = store.snapshotDirty();
+        assertEquals(2, snapshots.size(), "The player and global statistics were not snapshotted!");
+        assertTrue(store.snapshotDirty().isEmpty(), "The statistics were snapshotted twice!");
+
+        store.restoreDirty(snapshots);
+        assertEquals(2, store.snapshotDirty().size(), "Failed snapshots were not restored!");
+    }
+
+    /**
+     * Verify that restored statistics are added to the counters and are not marked as changed,
+     * and that the stored statistics of a player are read together with the unwritten changes.
+     */
+    @Test
+    void testRestore() {
+        store.restoreGlobal(new StatsRecord(StatsRecord.GLOBAL_ID, 5, 4, 3, 2));
+        stored.put("a", new StatsRecord("a", 1, 2, 3, 4));
+        assertTrue(store.snapshotDirty().isEmpty(), "Restored statistics were marked as changed!");
+        assertEquals(2, player("a").getLosses(), "The stored statistics of the player were not read!");
+        assertEquals(0, store.getPlayerCount(), "Reading the stored statistics kept the player in memory!");
+
+        store.recordGame("a", false);
+        assertEquals(5, store.getGlobal().getLosses(), "The global statistics were not restored!");
+        assertEquals(3, player("a").getLosses(), "The player's statistics were not restored!");
+    }
+
+    /**
+     * Verify that the snapshots of the players hold the unwritten changes, and that the players
+     * are evicted after their changes have been written, unless they have changed again.
+     */
+    @Test
+    void testEviction() {
+        store.recordGame("a", true);
+        store.recordGame("b", true);
+        List<StatsRecord> snapshots = store.snapshotDirty();
+        store.recordGuess("b", true);
+        store.markWritten(snapshots);
+
+        assertEquals(1, store.getPlayerCount(), "The written players were not evicted!");
+        assertEquals(0, player("a").getWins(), "The statistics of an evicted player were not read from the database!");
+        PlayerStats changed = player("b");
+        assertEquals(0, changed.getWins(), "The written changes were not subtracted!");
+        assertEquals(1, changed.getCorrectGuesses(), "The changes after the snapshot were lost!");
+
+        store.recordGame("b", false);
+        List<StatsRecord> next = store.snapshotDirty();
+        StatsRecord playerSnapshot = next.stream().filter(record -> record.getPlayerId().equals("b")).findFirst().orElseThrow();
+        assertEquals(0, playerSnapshot.getWins(), "The written changes were snapshotted again!");
+        assertEquals(1, playerSnapshot.getLosses(), "The new changes were not snapshotted!");
+        assertEquals(2, store.getGlobal().getWins(), "The global statistics were evicted!");
+
+        store.markWritten(next);
+        assertEquals(0, store.getPlayerCount(), "The written players were not evicted!");
+    }
+}
@@ -0,0 +1,76 @@
+package pl.kmolski.hangman.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the LatencyHistogram class.
+ *
+ * This class contains unit tests for the following operations: mapping values to
+ * buckets, recording values, computing the quantiles and the cumulative counts at bounds.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+public class LatencyHistogramTest {
+    /**
+     * Verify that every value is counted in a bucket that contains it and is at most 1/16 of the value wide.
+     * @param value The value.
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1, 15, 16, 17, 31, 32, 1000, 999_999, 1_000_000_007L, Long.MAX_VALUE})
+    void testBucketBounds(long value) {
+        int index = LatencyHistogram.indexOf(value);
+        long highest = LatencyHistogram.highestValueOf(index);
+        long lowest = index == 0 ? 0 : LatencyHistogram.highestValueOf(index - 1) + 1;
+
+        assertTrue(lowest <= value && value <= highest, "The value is not in the bounds of its bucket!");
+        assertTrue(highest - lowest <= Math.max(0, value / 16), "The bucket of the value is too wide!");
+    }
+
+    /**
+     * Verify the count, sum, maximum and the quantiles of uniformly distributed values.
+     */
+    @Test
+    void testQuantiles() {
+        var histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtQuantile(0.5), "The quantile of an empty histogram is not 0!");
+
+        for (long micros = 1; micros <= 10_000; ++micros) {
+            histogram.record(micros * 1000);
+        }
+        histogram.record(-5);
+
+        assertEquals(10_001, histogram.getCount(), "The values were not counted!");
+        assertEquals(50_005_000_000L, histogram.getSumNanos(), "The values were not summed up!");
+        assertEquals(10_000_000, histogram.getMaxNanos(), "The maximum was not recorded!");
+        for (double quantile : new double[]{0.5, 0.9, 0.99}) {
+            double expected = quantile * 10_000_000;
+            assertEquals(expected, histogram.getValueAtQuantile(quantile), expected / 16,
+                         "The quantile is outside of the error bound!");
+        }
+        assertEquals(10_000_000, histogram.getValueAtQuantile(1.0), "The highest quantile is not the maximum!");
+    }
+
+    /**
+     * Verify that the cumulative counts at the bounds include the values whose buckets are below the bounds.
+     */
+    @Test
+    void testCumulativeCounts() {
+        var histogram = new LatencyHistogram();
+        assertArrayEquals(new long[]{0, 0, 0}, histogram.getCumulativeCounts(new long[]{1000, 2000}),
+                          "An empty histogram has counts!");
+
+        histogram.record(10);
+        histogram.record(900);
+        histogram.record(1500);
+        histogram.record(5000);
+
+        assertArrayEquals(new long[]{0, 2, 3, 3, 4}, histogram.getCumulativeCounts(new long[]{5, 1000, 2000, 3000}),
+                          "The cumulative counts are wrong!");
+        assertArrayEquals(new long[]{4}, histogram.getCumulativeCounts(new long[0]), "The total count is wrong!");
+    }
+}
@@ -0,0 +1,85 @@
+package pl.kmolski.hangman.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the Metrics class.
+ *
+ * This class contains unit tests for the following operations: counting the games,
+ * writing the metrics in the Prometheus text format and writing the metrics of the
+ * registered collectors.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.2
+ */
+public class MetricsTest {
+    /**
+     * Verify that the counters and latencies are written as Prometheus samples.
+     */
+    @Test
+    void testPrometheusFormat() {
+        var metrics = new Metrics();
+        metrics.recordGameStarted();
+        metrics.recordGameStarted();
+        metrics.recordGameEnded(true);
+        metrics.recordGameEnded(false);
+        metrics.recordRoundSkipped();
+        metrics.getRequestLatency("/api/guess").record(2_000_000);
+        metrics.getDaoLatency("update").record(500_000);
+        metrics.getRequestLatency("/\"quoted\"");
+
+        var text = new StringWriter();
+        metrics.writePrometheus(new PrintWriter(text));
+        String output = text.toString();
+
+        assertTrue(output.contains("# TYPE hangman_games_started_total counter\nhangman_games_started_total 2\n"),
+                   "The started games were not written!");
+        assertTrue(output.contains("\nhangman_games_won_total 1\n"), "The won games were not written!");
+        assertTrue(output.contains("\nhangman_games_lost_total 1\n"), "The lost games were not written!");
+        assertTrue(output.contains("\nhangman_rounds_skipped_total 1\n"), "The skipped rounds were not written!");
+        assertTrue(output.contains("# TYPE hangman_http_request_seconds histogram\n"), "The histogram type was not written!");
+        assertTrue(output.contains("hangman_http_request_seconds_count{endpoint=\"/api/guess\"} 1\n"),
+                   "The request count was not written!");
+        assertTrue(output.contains("hangman_http_request_seconds_bucket{endpoint=\"/api/guess\",le=\"0.001\"} 0\n"),
+                   "The request latency was counted in a lower bucket!");
+        assertTrue(output.contains("hangman_http_request_seconds_bucket{endpoint=\"/api/guess\",le=\"0.0025\"} 1\n"),
+                   "The request latency was not counted in its bucket!");
+        assertTrue(output.contains("hangman_http_request_seconds_bucket{endpoint=\"/api/guess\",le=\"+Inf\"} 1\n"),
+                   "The request latency was not counted in the +Inf bucket!");
+        assertTrue(output.contains("hangman_dao_operation_seconds_sum{operation=\"update\"} 5.0E-4\n"),
+                   "The DAO latency sum was not written!");
+        assertTrue(output.contains("endpoint=\"/\\\"quoted\\\"\""), "The label value was not escaped!");
+        assertTrue(output.lines().allMatch(line -> line.startsWith("# ") || line.matches("[a-z_]+(\\{.*})? \\S+")),
+                   "A line is not a valid Prometheus sample!");
+    }
+
+    /**
+     * Verify that the metrics of the registered collectors are written in the order of their names,
+     * and that a collector registered under the same name replaces the previous one.
+     */
+    @Test
+    void testCollectors() {
+        var metrics = new Metrics();
+        metrics.register("b", out -> out.gauge("test_b", "Second collector.", 2));
+        metrics.register("a", out -> out.gauge("test_a", "Replaced collector.", 0));
+        metrics.register("a", out -> out.counters("test_a_total", "First collector.", "kind",
+                                                  Map.of("y", 4L, "x", 3L), Long::doubleValue));
+
+        var text = new StringWriter();
+        metrics.writePrometheus(new PrintWriter(text));
+        String output = text.toString();
+
+        assertFalse(output.contains("test_a "), "The replaced collector was written!");
+        assertTrue(output.contains("# TYPE test_a_total counter\ntest_a_total{kind=\"x\"} 3\ntest_a_total{kind=\"y\"} 4\n"),
+                   "The labelled counter was not written in the order of the labels!");
+        assertTrue(output.indexOf("test_a_total") < output.indexOf("test_b"),
+                   "The collectors were not written in the order of their names!");
+        assertTrue(output.endsWith("# TYPE test_b gauge\ntest_b 2\n"), "The gauge was not written!");
+    }
+}
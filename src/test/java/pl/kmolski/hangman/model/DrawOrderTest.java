@@ -0,0 +1,110 @@
+package pl.kmolski.hangman.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the DrawOrder class.
+ *
+ * This class contains unit tests for the following operations:
+ * drawing indices, growing the index range, encoding the draw order and
+ * reproducing seeded draw orders.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.1
+ */
+public class DrawOrderTest {
+    /**
+     * Verify that every index is drawn exactly once, also when the range grows during the draws.
+     * @param size The initial number of indices.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 6, 1000})
+    void testDrawPermutation(int size) {
+        var order = new DrawOrder();
+        var random = RandomSource.of(new Random(size));
+        var drawnIndices = new HashSet<Integer>();
+
+        for (int i = 0; i < size / 2; ++i) {
+            assertTrue(drawnIndices.add(order.next(size, random)), "An index was drawn twice!");
+        }
+
+        // Grow the range, as if words were added to the dictionary in the middle of the game.
+        int grownSize = 2 * size + 1;
+        while (!order.isExhausted(grownSize)) {
+            int index = order.next(grownSize, random);
+            assertTrue(index >= 0 && index < grownSize, "The index is out of range!");
+            assertTrue(drawnIndices.add(index), "An index was drawn twice!");
+        }
+
+        assertEquals(grownSize, drawnIndices.size(), "Not all indices were drawn!");
+        assertEquals(-1, order.next(grownSize, random), "An index was drawn from an exhausted order!");
+    }
+
+    /**
+     * Verify that the draw order is restored from its encoded form.
+     */
+    @Test
+    void testEncodingRoundTrip() {
+        var order = new DrawOrder();
+        var random = RandomSource.of(new Random(42));
+        for (int i = 0; i < 300; ++i) {
+            order.next(100_000, random);
+        }
+
+        var decoded = DrawOrder.fromBytes(order.toBytes());
+        assertEquals(order, decoded, "The decoded draw order is different!");
+        assertEquals(order.next(100_000, RandomSource.of(new Random(7))), decoded.next(100_000, RandomSource.of(new Random(7))),
+                "The decoded draw order draws a different index!");
+        assertEquals(new DrawOrder(), DrawOrder.fromBytes(null), "A null column is not an empty draw order!");
+    }
+
+    /**
+     * Verify that the first drawn index is uniformly distributed.
+     */
+    @Test
+    void testUniformDraw() {
+        var random = RandomSource.of(new Random(1));
+        int[] counts = new int[4];
+        for (int i = 0; i < 40_000; ++i) {
+            var order = new DrawOrder();
+            order.next(4, random);
+            ++counts[order.next(4, random)];
+        }
+
+        for (int count : counts) {
+            assertTrue(Math.abs(count - 10_000) < 500, "The draws are not uniformly distributed!");
+        }
+    }
+
+    /**
+     * Verify that seeded draw orders draw the same indices, also when the range grows,
+     * and that they are encoded compactly and continue the same after decoding.
+     */
+    @Test
+    void testSeededReplay() {
+        var order = DrawOrder.seeded(42);
+        var replayed = DrawOrder.seeded(42);
+        var ignored = RandomSource.of(new Random());
+        for (int i = 0; i < 300; ++i) {
+            int size = i < 200 ? 100_000 : 150_000;
+            assertEquals(order.next(size, ignored), replayed.next(size, ignored),
+                         "The seeded draw orders drew different indices!");
+        }
+
+        byte[] encoded = order.toBytes();
+        assertTrue(encoded.length < 24, "The seeded draw order is not encoded compactly!");
+        var decoded = DrawOrder.fromBytes(encoded);
+        assertEquals(order, decoded, "The decoded seeded draw order is different!");
+        assertEquals(42L, decoded.getSeed(), "The seed was not decoded!");
+        assertEquals(order.next(150_000, ignored), decoded.next(150_000, ignored),
+                     "The decoded seeded draw order draws a different index!");
+        assertNotEquals(order, DrawOrder.seeded(43), "Draw orders with different seeds are equal!");
+    }
+}
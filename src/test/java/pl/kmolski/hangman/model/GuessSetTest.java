@@ -0,0 +1,79 @@
+package pl.kmolski.hangman.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the GuessSet class.
+ *
+ * This class contains unit tests for the following operations:
+ * normalizing guesses, adding letters and listing the guessed letters.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+public class GuessSetTest {
+    /**
+     * The guess set that is used during testing.
+     */
+    private GuessSet guesses;
+
+    /**
+     * Sets up an empty guess set before each unit test.
+     */
+    @BeforeEach
+    void setUp() {
+        guesses = new GuessSet();
+    }
+
+    /**
+     * Verify that guesses are lowercased and composed into a single letter.
+     * @param guess The raw guess.
+     * @param expected The normalized letter.
+     */
+    @ParameterizedTest
+    @CsvSource({
+            "'A', 'a'",
+            "'Ł', 'ł'",
+            "'ó', 'ó'",
+            "']', ']'",
+            "'\\', '\\'"
+    })
+    void testNormalize(String guess, String expected) {
+        assertDoesNotThrow(() -> assertEquals(expected, GuessSet.normalize(guess),
+                "The guess was not normalized correctly!"), "An exception has occurred:");
+    }
+
+    /**
+     * Verify that empty, whitespace and multi-letter guesses are rejected.
+     * @param guess An invalid guess.
+     */
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {" ", "\t", "ab", "[^]"})
+    void testRejectInvalidGuess(String guess) {
+        assertThrows(InvalidGuessException.class, () -> GuessSet.normalize(guess),
+                "An invalid guess was not rejected!");
+    }
+
+    /**
+     * Verify that repeated letters are not added twice and that the letters are listed in order.
+     */
+    @Test
+    void testAddRepeatedLetter() {
+        assertTrue(guesses.add("o"), "A new letter was rejected!");
+        assertTrue(guesses.add("ł"), "A new letter was rejected!");
+        assertTrue(guesses.add("k"), "A new letter was rejected!");
+        assertFalse(guesses.add("o"), "A repeated letter was accepted!");
+
+        assertEquals(3, guesses.size(), "The guess set contains duplicate letters!");
+        assertTrue(guesses.contains("ł"), "The guess set does not contain an added letter!");
+        assertEquals("k o ł", guesses.getSortedLetters(), "The letters are not listed in ascending order!");
+    }
+}
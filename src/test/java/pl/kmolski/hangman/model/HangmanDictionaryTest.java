@@ -1,7 +1,9 @@
 package pl.kmolski.hangman.model;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.EmptySource;
 import org.junit.jupiter.params.provider.NullSource;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -16,10 +18,11 @@ import static org.junit.jupiter.api.Assertions.*;
  * Unit tests for the HangmanDictionary class.
  *
  * This class contains unit tests for the following operations:
- * adding new words, taking a random word, checking if the dictionary is empty.
+ * adding new words, taking a random word, checking if the dictionary is empty,
+ * taking the words in a seeded order.
  *
  * @author Krzysztof Molski
- * @version 1.0.3
+ * @version 1.0.9
  */
 public class HangmanDictionaryTest {
     /**
@@ -36,7 +39,7 @@ public class HangmanDictionaryTest {
     }
 
     /**
-     * Verify that words are correctly added to the dictionary.
+     * Verify that words are correctly added to the dictionary, and empty words are skipped.
      * @param words A list of words to add.
      */
     @ParameterizedTest
@@ -50,6 +53,11 @@ public class HangmanDictionaryTest {
     void testAddWords(String words) {
         var additionalWords = new ArrayList<>(Arrays.asList(words.split(",")));
         dictionary.addWords(additionalWords);
+        if (words.isEmpty()) {
+            // Empty words are skipped, like the empty lines of an imported word file.
+            assertTrue(dictionary.isEmpty(), "an empty word was added to the dictionary!");
+            return;
+        }
         assertFalse(dictionary.isEmpty(), "dictionary is empty after addWords()");
 
         // Drain the dictionary.
@@ -107,4 +115,83 @@ public class HangmanDictionaryTest {
         // Words taken from an empty dictionary _must_ be null.
         assertNull(dictionary.takeWord(), "Got non-null String from empty dictionary!");
     }
-}
\ No newline at end of file
+
+    /**
+     * Verify that words added in several batches, also after some words were taken,
+     * are all taken exactly once.
+     */
+    @Test
+    void testAddWordsInBatches() {
+        var expectedWords = new ArrayList<String>();
+        for (String batch : List.of("boat,apple,orange", "green", "horse,house,field,ok")) {
+            var batchWords = Arrays.asList(batch.split(","));
+            dictionary.addWords(batchWords);
+            expectedWords.addAll(batchWords);
+            // Take one word from every batch before adding the next one.
+            assertTrue(expectedWords.remove(dictionary.takeWord()), "Got a word that was not added!");
+        }
+
+        while (!dictionary.isEmpty()) {
+            assertTrue(expectedWords.remove(dictionary.takeWord()), "Got a word that was not added or was taken twice!");
+        }
+
+        assertTrue(expectedWords.isEmpty(), "Not all words were taken from the dictionary!");
+        assertEquals(8, dictionary.getWordCount(), "The word count is not equal to the number of added words!");
+    }
+
+    /**
+     * Verify that corpora with the same words have the same digest, also if the words
+     * are not normalized or contain duplicates.
+     */
+    @Test
+    void testCorpusDigest() {
+        var corpus = new WordCorpus(HangmanDictionary.DEFAULT_WORDS);
+        assertEquals(corpus.getDigest(), new WordCorpus(new ArrayList<>(HangmanDictionary.DEFAULT_WORDS)).getDigest(),
+                "Identical corpora have different digests!");
+        var raw = new ArrayList<String>();
+        HangmanDictionary.DEFAULT_WORDS.forEach(word -> raw.add(" " + word.toUpperCase() + " "));
+        raw.addAll(HangmanDictionary.DEFAULT_WORDS);
+        raw.add("  ");
+        var normalized = new WordCorpus(raw);
+        assertEquals(HangmanDictionary.DEFAULT_WORDS.size(), normalized.size(), "The duplicate words were kept!");
+        assertEquals(corpus.getDigest(), normalized.getDigest(), "The words were not normalized!");
+        assertNotEquals(corpus.getDigest(), new WordCorpus(List.of("koło")).getDigest(),
+                "Different corpora have the same digest!");
+    }
+
+    /**
+     * Verify that imported words are trimmed, lowercased and composed.
+     * @param word The raw word.
+     * @param expected The normalized word.
+     */
+    @ParameterizedTest
+    @CsvSource({
+            "'  Koło ', 'koło'",
+            "'SŁOŃCE', 'słońce'",
+            "'new  york', 'new york'",
+            "'   ', ''"
+    })
+    void testNormalizeWord(String word, String expected) {
+        assertEquals(expected, WordCorpus.normalizeWord(word), "The word was not normalized correctly!");
+    }
+
+    /**
+     * Verify that seeded dictionaries take their words in the same order, and that the
+     * draw order cannot be seeded after words have been taken.
+     */
+    @Test
+    void testSeededDraws() {
+        dictionary.setSeed(7);
+        dictionary.addWords(HangmanDictionary.DEFAULT_WORDS);
+        var other = new HangmanDictionary();
+        other.setSeed(7);
+        other.addWords(HangmanDictionary.DEFAULT_WORDS);
+
+        while (!dictionary.isEmpty()) {
+            assertEquals(dictionary.takeWord(), other.takeWord(), "The seeded dictionaries took different words!");
+        }
+        assertEquals(7L, dictionary.getSeed(), "The seed was not kept!");
+        assertThrows(IllegalStateException.class, () -> dictionary.setSeed(8),
+                     "The draw order was seeded after words had been taken!");
+    }
+}
@@ -2,14 +2,19 @@ package pl.kmolski.hangman.model;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.NullAndEmptySource;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.io.*;
 import java.text.BreakIterator;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -17,10 +22,11 @@ import static org.junit.jupiter.api.Assertions.*;
  * Unit tests for the HangmanGame class.
  *
  * This class contains unit tests for the game's logic - starting the next round,
- * guessing letters, managing the dictionary and win/lose conditions.
+ * guessing letters, managing the dictionary and win/lose conditions,
+ * and for the externalized form of the game.
  *
  * @author Krzysztof Molski
- * @version 1.0.3
+ * @version 1.0.9
  */
 public class HangmanGameTest {
     /**
@@ -99,6 +105,94 @@ public class HangmanGameTest {
         }
     }
 
+    /**
+     * Verify that the masked word reveals the guessed letters and that the round ends
+     * exactly when the last hidden letter is guessed.
+     */
+    @Test
+    void testIncrementalMasking() {
+        model.addWords(List.of("koło"));
+        model.nextRound();
+        assertEquals("_ _ _ _", model.getMaskedWord(), "maskedWord contains chars other than '_'");
+
+        assertDoesNotThrow(() -> {
+            assertTrue(model.tryLetter("o"), "The current word does not contain its own letter!");
+            assertEquals("_ o _ o", model.getMaskedWord(), "maskedWord does not reveal the guessed letter!");
+            assertFalse(model.tryLetter("x"), "The current word contains a letter that is not in it!");
+            assertTrue(model.tryLetter("K"), "The current word does not contain its own letter!");
+            assertFalse(model.isRoundOver(), "The round is over before all letters were guessed!");
+            assertTrue(model.tryLetter("ł"), "The current word does not contain its own letter!");
+        }, "An exception has occurred:");
+
+        assertEquals("k o ł o", model.getMaskedWord(), "maskedWord is not fully revealed!");
+        assertTrue(model.isRoundOver(), "The round is not over after correctly guessing all letters!");
+        assertEquals(1, model.getMisses(), "incorrect guess count is not 1!");
+    }
+
+    /**
+     * Verify that the memoized masked word and guessed letters are rebuilt after
+     * a new guess and after the next round starts, but not after a repeated guess.
+     */
+    @Test
+    void testMemoizedViews() {
+        model.addWords(List.of("koło", "pole"));
+        model.nextRound();
+        String word = model.getCurrentWord();
+        assertSame(model.getMaskedWord(), model.getMaskedWord(), "maskedWord is rebuilt without a guess!");
+
+        assertDoesNotThrow(() -> {
+            model.tryLetter("o");
+            assertEquals("o", model.getGuessedLetters(), "guessedLetters does not contain the new guess!");
+            String masked = model.getMaskedWord();
+            model.tryLetter("o");
+            assertSame(masked, model.getMaskedWord(), "maskedWord is rebuilt after a repeated guess!");
+            model.tryLetter("a");
+            assertEquals("a o", model.getGuessedLetters(), "guessedLetters does not contain the new guess!");
+        }, "An exception has occurred:");
+
+        model.nextRound();
+        assertNotEquals(word, model.getCurrentWord(), "The same word was taken twice!");
+        assertEquals("_ _ _ _", model.getMaskedWord(), "maskedWord was not reset in the next round!");
+        assertEquals("", model.getGuessedLetters(), "guessedLetters was not reset in the next round!");
+    }
+
+    /**
+     * Verify that regex metacharacters are treated as ordinary letters.
+     * @param letter A metacharacter that is passed to `tryLetter()`.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"]", "^", "\\", "-", "[", "."})
+    void testRegexMetacharacterGuess(String letter) {
+        model.addWords(List.of("a" + letter + "b"));
+        model.nextRound();
+
+        assertDoesNotThrow(() -> {
+            assertTrue(model.tryLetter(letter), "The current word does not contain its own letter!");
+            assertEquals("_ " + letter + " _", model.getMaskedWord(), "maskedWord does not reveal the guessed letter!");
+            assertFalse(model.tryLetter("c"), "The current word contains a letter that is not in it!");
+            assertEquals("_ " + letter + " _", model.getMaskedWord(), "maskedWord reveals a letter that was not guessed!");
+        }, "An exception has occurred:");
+    }
+
+    /**
+     * Verify that a repeated incorrect guess is not counted as another miss.
+     */
+    @Test
+    void testRepeatedGuess() {
+        model.addWords(List.of("koło"));
+        model.nextRound();
+
+        assertDoesNotThrow(() -> {
+            assertFalse(model.tryLetter("x"), "The current word contains a letter that is not in it!");
+            assertFalse(model.tryLetter("X"), "The current word contains a letter that is not in it!");
+            assertTrue(model.tryLetter("o"), "The current word does not contain its own letter!");
+            assertTrue(model.tryLetter("o"), "The current word does not contain its own letter!");
+        }, "An exception has occurred:");
+
+        assertEquals(1, model.getMisses(), "A repeated guess was counted as another miss!");
+        assertEquals("o x", model.getGuessedLetters(), "The guessed letters contain duplicates!");
+    }
+
     /**
      * Verify that the `isRoundOver()` condition is correct.
      * @param words A list of words to add.
@@ -221,4 +315,104 @@ public class HangmanGameTest {
         assertThrows(InvalidGuessException.class, () -> model.tryLetter(tooLong),
                 "A multi-letter guess was not rejected!");
     }
-}
\ No newline at end of file
+
+    /**
+     * Verify that a save summary built from the stored columns matches the game it was taken from.
+     * @param letter A letter that is guessed before taking the summary.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"o", "z", "ł"})
+    void testSaveSummary(String letter) {
+        model.addWords(HangmanDictionary.DEFAULT_WORDS);
+        model.nextRound();
+        assertDoesNotThrow(() -> model.tryLetter(letter), "An exception has occurred:");
+
+        var summary = new GameSaveSummary(model.getId(), model.getCurrentWord(), model.getGuessHistory(),
+                model.getMisses(), model.getWordsGuessed(), model.getDictionary().getWordCount());
+        assertEquals(model.getMaskedWord(), summary.getMaskedWord(), "The summary's masked word is incorrect!");
+        assertEquals(model.getMisses(), summary.getMisses(), "The summary's miss count is incorrect!");
+        assertEquals(model.getWordsRemaining(), summary.getWordsRemaining(),
+                "The summary's remaining word count is incorrect!");
+    }
+
+    /**
+     * Serialize a game and read it back, like a passivated session.
+     * @param game The game.
+     * @return The serialized form and the game that was read from it.
+     * @throws Exception Thrown if the game cannot be serialized.
+     */
+    private static Object[] roundTrip(HangmanGame game) throws Exception {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(bytes)) {
+            out.writeObject(game);
+        }
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return new Object[]{ bytes.toByteArray(), in.readObject() };
+        }
+    }
+
+    /**
+     * Verify that a game that has not been saved keeps its state and its words in the
+     * externalized form, and that the words it takes afterwards have not been taken before.
+     * @throws Exception Thrown if the game cannot be serialized.
+     */
+    @Test
+    void testExternalization() throws Exception {
+        model.addWords(HangmanDictionary.DEFAULT_WORDS);
+        model.nextRound();
+        model.tryLetter("o");
+        model.tryLetter("z");
+
+        HangmanGame copy = (HangmanGame) roundTrip(model)[1];
+        assertEquals(model.getCurrentWord(), copy.getCurrentWord(), "The current word was not restored!");
+        assertEquals(model.getMaskedWord(), copy.getMaskedWord(), "The masked word was not restored!");
+        assertEquals(model.getGuessHistory(), copy.getGuessHistory(), "The guessed letters were not restored!");
+        assertEquals(model.getMisses(), copy.getMisses(), "The miss count was not restored!");
+        assertEquals(model.getWordsRemaining(), copy.getWordsRemaining(), "The remaining words were not restored!");
+        assertEquals(model.getDictionary().getDrawOrder(), copy.getDictionary().getDrawOrder(),
+                     "The draw order was not restored!");
+
+        var taken = new HashSet<>(List.of(model.getCurrentWord()));
+        while (!copy.getDictionary().isEmpty()) {
+            copy.nextRound();
+            assertTrue(taken.add(copy.getCurrentWord()), "A word was taken twice after the game was restored!");
+        }
+        assertEquals(new HashSet<>(HangmanDictionary.DEFAULT_WORDS), taken, "Words were lost in the restored game!");
+    }
+
+    /**
+     * Verify that a stored corpus is written as a reference, and that its words are
+     * only loaded when the restored game takes a word.
+     * @throws Exception Thrown if the game cannot be serialized.
+     */
+    @Test
+    void testStoredCorpusReference() throws Exception {
+        var words = new ArrayList<String>();
+        for (int i = 0; i < 10000; ++i) {
+            words.add("słowo" + i);
+        }
+        var corpus = new WordCorpus(words);
+        corpus.markStored(Long.MAX_VALUE - 1);
+        model.getDictionary().addCorpus(corpus);
+        model.nextRound();
+
+        var loads = new AtomicInteger();
+        WordCorpus.setLoader(id -> {
+            loads.incrementAndGet();
+            return corpus;
+        });
+        try {
+            Object[] result = roundTrip(model);
+            assertTrue(((byte[]) result[0]).length < 200, "The words of a stored corpus were serialized!");
+
+            HangmanGame copy = (HangmanGame) result[1];
+            assertEquals(model.getWordsRemaining(), copy.getWordsRemaining(), "The remaining words were not restored!");
+            assertEquals(0, loads.get(), "The corpus was loaded before it was used!");
+            copy.nextRound();
+            assertTrue(words.contains(copy.getCurrentWord()), "The restored game took an unknown word!");
+            assertEquals(1, loads.get(), "The corpus was not loaded exactly once!");
+        } finally {
+            WordCorpus.setLoader(null);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package pl.kmolski.hangman.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the MappedWordIndex class.
+ *
+ * This class contains unit tests for the following operations:
+ * compiling a word file, opening the index and decoding words.
+ *
+ * @author Krzysztof Molski
+ * @version 1.0.0
+ */
+public class MappedWordIndexTest {
+    /**
+     * Verify that a compiled index contains the normalized words of the file.
+     * @param directory Temporary directory for the index file.
+     * @throws IOException Thrown if compiling the index fails.
+     */
+    @Test
+    void testCompileAndOpen(@TempDir Path directory) throws IOException {
+        Path indexFile = directory.resolve("words.idx");
+        MappedWordIndex.compile(new BufferedReader(new StringReader("Koło\n\n  drzwi \npowóz\nSłońce\n")), indexFile);
+
+        var index = MappedWordIndex.open(indexFile);
+        var expectedWords = List.of("koło", "drzwi", "powóz", "słońce");
+        assertEquals(expectedWords.size(), index.size(), "The index does not contain all words!");
+        for (int i = 0; i < expectedWords.size(); ++i) {
+            assertEquals(expectedWords.get(i), index.get(i), "The index contains a different word!");
+        }
+
+        assertEquals(WordCorpus.digestOf(expectedWords), index.getDigest(),
+                "The index digest is different from the digest of an identical corpus!");
+        assertSame(index, MappedWordIndex.open(indexFile), "The index was mapped twice!");
+        assertThrows(IndexOutOfBoundsException.class, () -> index.get(expectedWords.size()),
+                "A word was decoded from outside of the index!");
+    }
+
+    /**
+     * Verify that a dictionary draws every word of an index-backed corpus exactly once.
+     * @param directory Temporary directory for the index file.
+     * @throws IOException Thrown if compiling the index fails.
+     */
+    @Test
+    void testDictionaryWithIndex(@TempDir Path directory) throws IOException {
+        Path indexFile = directory.resolve("words.idx");
+        MappedWordIndex.compile(new BufferedReader(new StringReader(String.join("\n", HangmanDictionary.DEFAULT_WORDS))),
+                                indexFile);
+
+        var dictionary = new HangmanDictionary();
+        dictionary.addCorpus(new WordCorpus(MappedWordIndex.open(indexFile)));
+        var remainingWords = new ArrayList<>(HangmanDictionary.DEFAULT_WORDS);
+        while (!dictionary.isEmpty()) {
+            assertTrue(remainingWords.remove(dictionary.takeWord()), "Got a word that was not in the index!");
+        }
+        assertTrue(remainingWords.isEmpty(), "Not all words were taken from the dictionary!");
+    }
+
+    /**
+     * Verify that opening a file that is not a word index fails.
+     * @param directory Temporary directory for the invalid file.
+     * @throws IOException Thrown if writing the invalid file fails.
+     */
+    @Test
+    void testRejectInvalidFile(@TempDir Path directory) throws IOException {
+        Path invalidFile = Files.writeString(directory.resolve("invalid.idx"), "koło\ndrzwi\n");
+        assertThrows(RuntimeException.class, () -> MappedWordIndex.open(invalidFile),
+                "A file that is not a word index was opened!");
+    }
+}